@@ -0,0 +1,79 @@
+package com.laioffer.deliver.bench;
+
+import com.laioffer.deliver.config.JwtProperties;
+import com.laioffer.deliver.security.AccessTokenClaims;
+import com.laioffer.deliver.security.AuthorityInterner;
+import com.laioffer.deliver.security.JwtAuthenticationToken;
+import com.laioffer.deliver.security.JwtService;
+import com.laioffer.deliver.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 稳态认证路径（token 已验签缓存）每个请求的分配量，看 gc.alloc.rate.norm（B/op）：
+ *   java -jar build/libs/deliver-0.0.1-SNAPSHOT-jmh.jar AuthenticationAllocationBenchmark -prof gc
+ * - legacy：改动前第 6 步的做法，切 token、逐个新建 SimpleGrantedAuthority、UsernamePasswordAuthenticationToken 复制列表
+ * - interned：当前做法，按头里的范围查已验签缓存，包一层 JwtAuthenticationToken，权限集合共享
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationAllocationBenchmark {
+
+    private static final List<String> AUTHORITIES =
+            List.of("order_read", "order_create", "profile_update", "invite_create", "session_revoke_all");
+
+    private String header;
+    private Claims claims;
+    private VerifiedTokenCache cache;
+    private Function<String, AccessTokenClaims> verifier;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtService jwtService = new JwtService(new JwtProperties("deliver-demo",
+                "benchmark-secret-benchmark-secret-benchmark-secret", 15, 14));
+        String token = jwtService.generateAccessToken(123456L, "user@example.com", AUTHORITIES, 1, "sid-1");
+        header = "Bearer " + token;
+        claims = jwtService.parse(token).getBody();
+
+        AuthorityInterner interner = new AuthorityInterner();
+        AccessTokenClaims verified = new AccessTokenClaims(123456L, 1, "sid-1",
+                interner.intern(AUTHORITIES.stream().map(s -> s.toUpperCase(Locale.ROOT)).toList()),
+                claims.getExpiration().toInstant());
+        verifier = t -> verified;
+        cache = new VerifiedTokenCache(1000);
+        cache.get(header, 7, header.length(), verifier);
+    }
+
+    @Benchmark
+    public Authentication legacy() {
+        String token = header.substring(7).trim();
+        List<?> rawAuthorities = claims.get("authorities", List.class);
+        Collection<? extends GrantedAuthority> authorities = rawAuthorities.stream()
+                .map(Object::toString)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> new SimpleGrantedAuthority(s.toUpperCase(Locale.ROOT)))
+                .toList();
+        return new UsernamePasswordAuthenticationToken(Long.parseLong(claims.getSubject()) + token.length(), null, authorities);
+    }
+
+    @Benchmark
+    public Authentication interned() {
+        AccessTokenClaims verified = cache.get(header, 7, header.length(), verifier);
+        return new JwtAuthenticationToken(verified);
+    }
+}
@@ -0,0 +1,97 @@
+package com.laioffer.deliver.bench;
+
+import com.laioffer.deliver.config.JwtProperties;
+import com.laioffer.deliver.security.AuthorityInterner;
+import com.laioffer.deliver.security.JwtAuthFilter;
+import com.laioffer.deliver.security.JwtService;
+import com.laioffer.deliver.security.VerifiedTokenCache;
+import com.laioffer.deliver.security.store.SidBlacklistStore;
+import com.laioffer.deliver.security.store.TokenVersionStore;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthFilter 每个请求的开销。
+ * activeTokens 个用户各持有一个 15 分钟的 access token，请求随机落在这些 token 上（token 被反复使用）。
+ * - filter：当前实现（复用 parser + 已验签缓存；cacheSize=0 时只复用 parser）
+ * - parserPerRequest：改动前的做法，每个请求新建 parser 再验签，只测解析本身
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    private static final String ISSUER = "deliver-demo";
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    @Param({"1000"})
+    public int activeTokens;
+
+    @Param({"0", "100000"})
+    public long cacheSize;
+
+    private JwtAuthFilter filter;
+    private SecretKey key;
+    private String[] headers;
+    private String[] tokens;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtService jwtService = new JwtService(new JwtProperties(ISSUER, SECRET, 15, 14));
+        TokenVersionStore versions = new TokenVersionStore() {
+            @Override public long getCurrentVersion(long userId) { return 1; }
+            @Override public void bumpVersion(long userId) { }
+            @Override public void invalidate(long userId) { }
+            @Override public long invalidationStamp() { return 0; }
+            @Override public void prime(long userId, long version, long stamp) { }
+        };
+        SidBlacklistStore blacklist = new SidBlacklistStore() {
+            @Override public void revokeTemporarily(String sid, long ttlSeconds) { }
+            @Override public boolean isRevoked(String sid) { return false; }
+        };
+        filter = new JwtAuthFilter(jwtService, versions, blacklist, new VerifiedTokenCache(cacheSize), new AuthorityInterner());
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+        tokens = new String[activeTokens];
+        headers = new String[activeTokens];
+        for (int i = 0; i < activeTokens; i++) {
+            tokens[i] = jwtService.generateAccessToken(i + 1, "user" + i + "@example.com",
+                    List.of("ORDER_READ", "ORDER_CREATE", "PROFILE_UPDATE"), 1, "sid-" + i);
+            headers[i] = "Bearer " + tokens[i];
+        }
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.addHeader("Authorization", headers[ThreadLocalRandom.current().nextInt(activeTokens)]);
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    @Benchmark
+    public Object parserPerRequest() {
+        return Jwts.parserBuilder()
+                .requireIssuer(ISSUER)
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(tokens[ThreadLocalRandom.current().nextInt(activeTokens)]);
+    }
+}
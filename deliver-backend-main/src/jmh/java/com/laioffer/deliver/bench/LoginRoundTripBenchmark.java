@@ -0,0 +1,141 @@
+package com.laioffer.deliver.bench;
+
+import com.laioffer.deliver.security.PrincipalLoader;
+import com.laioffer.deliver.security.store.PermissionCache;
+import com.laioffer.deliver.security.store.TokenVersionStore;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录时加载用户 + 版本号 + 权限的数据库往返次数与耗时（缓存全冷，即每个用户第一次登录 / 缓存过期后）：
+ * - legacy：改动前的做法，findByEmail、token_version、三表 join 权限各一次
+ * - principalLoader：当前做法，一条 array_agg 查询
+ * 往返次数看每轮结束打印的 statements per login，需要一个已初始化 schema 的 Postgres（DATABASE_URL 等环境变量）：
+ *   java -jar build/libs/deliver-0.0.1-SNAPSHOT-jmh.jar LoginRoundTripBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoginRoundTripBenchmark {
+
+    private static final String EMAIL = "admin@deliver.local";
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbc;
+    private PrincipalLoader loader;
+    private final AtomicLong statements = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:postgresql://" + env("DATABASE_URL", "localhost") + ":"
+                + env("DATABASE_PORT", "5432") + "/deliver");
+        pool.setUsername(env("DATABASE_USERNAME", "deliver"));
+        pool.setPassword(env("DATABASE_PASSWORD", "secret"));
+        pool.setMaximumPoolSize(4);
+        jdbc = new JdbcTemplate(new CountingDataSource(pool, statements));
+
+        // 缓存全冷：prime 什么也不留
+        TokenVersionStore versions = new TokenVersionStore() {
+            @Override public long getCurrentVersion(long userId) { throw new UnsupportedOperationException(); }
+            @Override public void bumpVersion(long userId) { }
+            @Override public void invalidate(long userId) { }
+            @Override public long invalidationStamp() { return 0; }
+            @Override public void prime(long userId, long version, long stamp) { }
+        };
+        PermissionCache permissions = new PermissionCache() {
+            @Override public List<String> getPermissions(long userId) { throw new UnsupportedOperationException(); }
+            @Override public void invalidate(long userId) { }
+            @Override public void prime(long userId, List<String> codes) { }
+        };
+        loader = new PrincipalLoader(jdbc, versions, permissions);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @State(Scope.Thread)
+    public static class RoundTrips {
+        long statements;
+        long logins;
+
+        @TearDown(Level.Iteration)
+        public void report() {
+            System.out.printf("%n  statements per login: %.2f%n", (double) statements / Math.max(1, logins));
+            statements = 0;
+            logins = 0;
+        }
+    }
+
+    @Benchmark
+    public Object legacy(RoundTrips trips) {
+        long before = statements.get();
+        Long id = (Long) jdbc.queryForMap("SELECT * FROM users WHERE email = ?", EMAIL).get("id");
+        Long version = jdbc.queryForObject("SELECT token_version FROM users WHERE id = ?", Long.class, id);
+        List<String> codes = jdbc.queryForList("""
+           SELECT p.code
+           FROM permissions p
+           JOIN role_permissions rp ON rp.permission_id = p.id
+           JOIN user_roles ur ON ur.role_id = rp.role_id
+           WHERE ur.user_id = ?
+           """, String.class, id);
+        trips.statements += statements.get() - before;
+        trips.logins++;
+        return codes.size() + version;
+    }
+
+    @Benchmark
+    public Object principalLoader(RoundTrips trips) {
+        long before = statements.get();
+        PrincipalLoader.LoadedPrincipal p = loader.loadByEmail(EMAIL);
+        trips.statements += statements.get() - before;
+        trips.logins++;
+        return p;
+    }
+
+    // 统计在连接上准备 / 执行的语句数
+    private static final class CountingDataSource extends DelegatingDataSource {
+        private final AtomicLong counter;
+
+        CountingDataSource(HikariDataSource target, AtomicLong counter) {
+            super(target);
+            this.counter = counter;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection conn = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                            counter.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(conn, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,124 @@
+package com.laioffer.deliver.bench;
+
+import com.laioffer.deliver.security.store.impl.SessionStoreJdbc;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * refresh 轮换压测：32 个线程抢 10 个连接，模拟早高峰连接池打满，看持续吞吐（ops/s）。
+ * - legacy：改动前的做法，校验一次 + UPDATE + INSERT...SELECT，三次往返、不在一个事务里
+ * - rotateIfValid：当前做法，一条 CTE 语句
+ * 需要一个已按 schema-locations 初始化的 Postgres，连接参数和应用一致（DATABASE_URL 等环境变量）：
+ *   java -jar build/libs/deliver-0.0.1-SNAPSHOT-jmh.jar RefreshRotationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Threads(32)
+@Fork(1)
+public class RefreshRotationBenchmark {
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private SessionStoreJdbc store;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:postgresql://" + env("DATABASE_URL", "localhost") + ":"
+                + env("DATABASE_PORT", "5432") + "/deliver");
+        dataSource.setUsername(env("DATABASE_USERNAME", "deliver"));
+        dataSource.setPassword(env("DATABASE_PASSWORD", "secret"));
+        dataSource.setMaximumPoolSize(10);
+        jdbc = new JdbcTemplate(dataSource);
+        store = new SessionStoreJdbc(jdbc, false, 200, 500);
+
+        jdbc.update("""
+           INSERT INTO users(email, password) VALUES ('bench-refresh@deliver.local', 'x')
+           ON CONFLICT (lower(email)) DO NOTHING
+        """);
+        userId = jdbc.queryForObject("SELECT id FROM users WHERE lower(email)='bench-refresh@deliver.local'", Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbc.update("DELETE FROM refresh_sessions WHERE user_id=?", userId);
+        dataSource.close();
+    }
+
+    // 每个线程一条自己的会话链，每次操作把当前会话轮换成下一个
+    @State(Scope.Thread)
+    public static class Chain {
+        String sid;
+        String refresh;
+
+        @Setup(Level.Iteration)
+        public void start(RefreshRotationBenchmark bench) {
+            sid = newSid();
+            refresh = UUID.randomUUID().toString();
+            bench.store.createSession(bench.userId, sid, refresh, expiry(), "bench");
+        }
+    }
+
+    @Benchmark
+    public boolean legacy(Chain chain) {
+        String newSid = newSid();
+        String newRefresh = UUID.randomUUID().toString();
+        if (!store.isRefreshValid(userId, chain.sid, chain.refresh)) {
+            return false;
+        }
+        jdbc.update("UPDATE refresh_sessions SET revoked=TRUE WHERE sid=?", chain.sid);
+        jdbc.update("""
+           INSERT INTO refresh_sessions(user_id,sid,refresh_hash,expires_at)
+           SELECT user_id, ?, ?, ? FROM refresh_sessions WHERE sid=? LIMIT 1
+        """, newSid, sha256(newRefresh), Timestamp.from(expiry()), chain.sid);
+        chain.sid = newSid;
+        chain.refresh = newRefresh;
+        return true;
+    }
+
+    @Benchmark
+    public boolean rotateIfValid(Chain chain) {
+        String newSid = newSid();
+        String newRefresh = UUID.randomUUID().toString();
+        boolean ok = store.rotateIfValid(userId, chain.sid, chain.refresh, newSid, newRefresh, expiry());
+        chain.sid = newSid;
+        chain.refresh = newRefresh;
+        return ok;
+    }
+
+    private static String newSid() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private static Instant expiry() {
+        return Instant.now().plus(Duration.ofDays(14));
+    }
+
+    private static String sha256(String s) {
+        try {
+            var md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
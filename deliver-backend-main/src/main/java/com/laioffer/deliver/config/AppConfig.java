@@ -1,11 +1,15 @@
 package com.laioffer.deliver.config;
 
+import com.laioffer.deliver.security.AuthorityInterner;
+import com.laioffer.deliver.security.BoundedPasswordEncoder;
 import com.laioffer.deliver.security.JwtAuthFilter;
 import com.laioffer.deliver.security.JwtService;
+import com.laioffer.deliver.security.VerifiedTokenCache;
 import com.laioffer.deliver.security.store.SidBlacklistStore;
 import com.laioffer.deliver.security.store.TokenVersionStore;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,6 +18,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -26,18 +31,28 @@ import java.util.List;
 @Configuration
 public class AppConfig {
 
-    // 密码加密器（注册时加密保存）
+    // 密码加密器（注册时加密保存）：bcrypt 在专用线程池里算，排队满了返回 429
+    // calibrate-target-ms > 0 时启动时按本机实测挑 cost（不低于 bcrypt-strength）
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.password.bcrypt-strength:10}") int strength,
+                                           @Value("${app.password.calibrate-target-ms:0}") long calibrateTargetMs,
+                                           @Value("${app.password.threads:0}") int threads,
+                                           @Value("${app.password.queue-capacity:64}") int queueCapacity) {
+        if (calibrateTargetMs > 0) {
+            strength = BoundedPasswordEncoder.calibrate(strength, calibrateTargetMs);
+        }
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity);
     }
 
     // 安全规则
     @Bean
     public JwtAuthFilter jwtAuthFilter(JwtService jwtService,
                                        TokenVersionStore tokenVersionStore,
-                                       SidBlacklistStore sidBlacklistStore) {
-        return new JwtAuthFilter(jwtService, tokenVersionStore, sidBlacklistStore);
+                                       SidBlacklistStore sidBlacklistStore,
+                                       VerifiedTokenCache verifiedTokenCache,
+                                       AuthorityInterner authorityInterner) {
+        return new JwtAuthFilter(jwtService, tokenVersionStore, sidBlacklistStore, verifiedTokenCache, authorityInterner);
     }
 
 
@@ -36,13 +36,6 @@ public class CacheConfig {
                         .maximumSize(10000)
                         .build());
 
-        // SID 黑名单缓存（安全缓存，存登出的会话 ID，TTL 与 token 一致）
-        cacheManager.registerCustomCache("sidBlacklistCache",
-                Caffeine.newBuilder()
-                        .expireAfterWrite(Duration.ofHours(1))
-                        .maximumSize(10000)
-                        .build());
-
         // 权限缓存（安全缓存，减少 DB 查询，失效时间可短一些）
         cacheManager.registerCustomCache("permissionCache",
                 Caffeine.newBuilder()
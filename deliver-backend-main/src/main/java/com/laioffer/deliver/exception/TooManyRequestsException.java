@@ -0,0 +1,8 @@
+package com.laioffer.deliver.exception;
+
+// 服务端资源已满、请求被直接拒绝（HTTP 429），客户端稍后重试即可
+public class TooManyRequestsException extends BusinessException {
+    public TooManyRequestsException(String code, String message) {
+        super(code, message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.laioffer.deliver.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * 验签并校验通过的 access token 内容。
+ * userId 只装箱一次，直接作为 principal；authorities 是 AuthorityInterner 里共享的不可变集合。
+ */
+public record AccessTokenClaims(
+        Long userId,
+        long tokenVersion,
+        String sid,
+        Collection<GrantedAuthority> authorities,
+        Instant expiresAt
+) {}
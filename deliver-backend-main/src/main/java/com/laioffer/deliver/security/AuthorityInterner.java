@@ -0,0 +1,36 @@
+package com.laioffer.deliver.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 权限集合驻留：相同的权限列表快照共享同一个不可变 Collection&lt;GrantedAuthority&gt;。
+ * 用户的权限组合种类很少，驻留后认证路径上不再为每个请求创建 SimpleGrantedAuthority 和列表。
+ */
+@Component
+public class AuthorityInterner {
+
+    // 只有服务端签发的权限组合才会走到这里，上限只是防御
+    private static final long MAX_DISTINCT_SETS = 10_000;
+
+    private final Cache<List<String>, Collection<GrantedAuthority>> interned = Caffeine.newBuilder()
+            .maximumSize(MAX_DISTINCT_SETS)
+            .build();
+
+    /** authorities 需已规范化（去空白、转大写）；返回的集合不可修改 */
+    public Collection<GrantedAuthority> intern(List<String> authorities) {
+        if (authorities.isEmpty()) {
+            return List.of();
+        }
+        return interned.get(List.copyOf(authorities), key -> key.stream()
+                .map(SimpleGrantedAuthority::new)
+                .map(GrantedAuthority.class::cast)
+                .toList());
+    }
+}
@@ -0,0 +1,94 @@
+package com.laioffer.deliver.security;
+
+import com.laioffer.deliver.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把 bcrypt 的计算放到专用线程池（线程数 = CPU 核数），请求线程只是等结果：
+ * - 登录高峰时最多占满这几个核，其他接口的请求线程还能拿到 CPU
+ * - 排队超过 queueCapacity 直接拒绝，返回 429，不让请求无限堆积
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private static final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return call(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T call(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("TOO_MANY_REQUESTS", "请求过多，请稍后重试");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 校准：在本机实测每个 cost 的耗时，选不超过 targetMs 的最大 cost，且不低于 minStrength。
+     * cost 每加 1 耗时翻倍，超过目标就停。
+     */
+    public static int calibrate(int minStrength, long targetMs) {
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= 16; strength++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            encoder.encode("calibration-warmup");
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 3; i++) {
+                long start = System.nanoTime();
+                encoder.encode("calibration-password");
+                best = Math.min(best, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            log.info("bcrypt calibration: strength {} takes {} ms", strength, best);
+            if (best > targetMs) {
+                break;
+            }
+            chosen = strength;
+        }
+        log.info("bcrypt calibration: using strength {} for target {} ms", chosen, targetMs);
+        return chosen;
+    }
+}
@@ -10,19 +10,15 @@ import jakarta.servlet.http.HttpServletResponse;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Function;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -30,13 +26,20 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final TokenVersionStore tokenVersionStore;
     private final SidBlacklistStore sidBlacklistStore;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AuthorityInterner authorityInterner;
+    private final Function<String, AccessTokenClaims> verifier = this::verify;
 
     public JwtAuthFilter(JwtService jwtService,
                          TokenVersionStore tokenVersionStore,
-                         SidBlacklistStore sidBlacklistStore) {
+                         SidBlacklistStore sidBlacklistStore,
+                         VerifiedTokenCache verifiedTokenCache,
+                         AuthorityInterner authorityInterner) {
         this.jwtService = jwtService;
         this.tokenVersionStore = tokenVersionStore;
         this.sidBlacklistStore = sidBlacklistStore;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.authorityInterner = authorityInterner;
     }
 
     @Override
@@ -58,79 +61,36 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        String token = authz.substring(7).trim();
-        if (token.isEmpty()) {
+        // token 在头里的范围（等价于 substring(7).trim()，命中缓存时不需要切出新字符串）
+        int start = 7;
+        int end = authz.length();
+        while (start < end && authz.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && authz.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
             throw new BusinessException("TOKEN_INVALID", "访问令牌无效");
         }
 
         try {
-            // 3) 基础校验：签名 / issuer / 有效期 / type=access
-            Jws<Claims> jws = jwtService.parse(token);
-            Claims claims = jws.getBody();
-
-            Object type = claims.get("type");
-            if (type == null || !"access".equals(type.toString())) {
-                throw new BusinessException("TOKEN_INVALID", "非法访问令牌");
-            }
-
-            Date exp = claims.getExpiration();
-            if (exp == null || exp.before(new Date())) {
-                throw new BusinessException("TOKEN_EXPIRED", "访问令牌已过期");
-            }
-
-            String sub = claims.getSubject();
-            if (sub == null || sub.isBlank()) {
-                throw new BusinessException("TOKEN_INVALID", "令牌缺少用户标识");
-            }
-            long userId;
-            try {
-                userId = Long.parseLong(sub);
-            } catch (NumberFormatException nfe) {
-                throw new BusinessException("TOKEN_INVALID", "令牌用户标识无效");
-            }
-
-            Object verObj = claims.get("ver");
-            if (verObj == null) {
-                throw new BusinessException("TOKEN_INVALID", "令牌缺少版本字段");
-            }
-            long tokenVer;
-            try {
-                tokenVer = ((Number) verObj).longValue();
-            } catch (ClassCastException cce) {
-                throw new BusinessException("TOKEN_INVALID", "令牌版本字段类型错误");
-            }
-
-            String sid = (String) claims.get("sid");
-            if (sid == null || sid.isBlank()) {
-                throw new BusinessException("TOKEN_INVALID", "令牌缺少会话标识");
-            }
+            // 3) 基础校验：签名 / issuer / 有效期 / type=access（同一个 token 验过之后走缓存，直到 exp）
+            AccessTokenClaims claims = verifiedTokenCache.get(authz, start, end, verifier);
 
             // 4) 版本号校验（权限变更 / 登出全部）
-            long currentVer = tokenVersionStore.getCurrentVersion(userId);
-            if (tokenVer < currentVer) {
+            long currentVer = tokenVersionStore.getCurrentVersion(claims.userId());
+            if (claims.tokenVersion() < currentVer) {
                 throw new BusinessException("TOKEN_VERSION_OUTDATED", "令牌版本已过期，请重新登录");
             }
 
             // 5) 黑名单校验（登出当前设备）
-            if (sidBlacklistStore.isRevoked(sid)) {
+            if (sidBlacklistStore.isRevoked(claims.sid())) {
                 throw new BusinessException("SESSION_REVOKED", "会话已登出，请重新登录");
             }
 
-            // 6) 构建 Authentication，写入上下文
-            List<?> rawAuthorities = claims.get("authorities", List.class);
-            Collection<? extends GrantedAuthority> authorities =
-                    rawAuthorities == null ? List.of()
-                            : rawAuthorities.stream()
-                            .map(Object::toString)
-                            .map(String::trim)
-                            .filter(s -> !s.isEmpty())
-                            .map(s -> new SimpleGrantedAuthority(s.toUpperCase(Locale.ROOT)))
-                            .toList();
-
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(userId, null, authorities);
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            // 6) 构建 Authentication，写入上下文（权限集合是驻留的共享实例，不再逐个请求新建）
+            SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(claims));
 
             // 7) 放行
             filterChain.doFilter(request, response);
@@ -144,6 +104,61 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
     }
 
+    /** 验签并校验 access token 的各个字段，结果可以缓存到 exp */
+    private AccessTokenClaims verify(String token) {
+        Jws<Claims> jws = jwtService.parse(token);
+        Claims claims = jws.getBody();
+
+        Object type = claims.get("type");
+        if (type == null || !"access".equals(type.toString())) {
+            throw new BusinessException("TOKEN_INVALID", "非法访问令牌");
+        }
+
+        Date exp = claims.getExpiration();
+        if (exp == null || exp.before(new Date())) {
+            throw new BusinessException("TOKEN_EXPIRED", "访问令牌已过期");
+        }
+
+        String sub = claims.getSubject();
+        if (sub == null || sub.isBlank()) {
+            throw new BusinessException("TOKEN_INVALID", "令牌缺少用户标识");
+        }
+        long userId;
+        try {
+            userId = Long.parseLong(sub);
+        } catch (NumberFormatException nfe) {
+            throw new BusinessException("TOKEN_INVALID", "令牌用户标识无效");
+        }
+
+        Object verObj = claims.get("ver");
+        if (verObj == null) {
+            throw new BusinessException("TOKEN_INVALID", "令牌缺少版本字段");
+        }
+        long tokenVer;
+        try {
+            tokenVer = ((Number) verObj).longValue();
+        } catch (ClassCastException cce) {
+            throw new BusinessException("TOKEN_INVALID", "令牌版本字段类型错误");
+        }
+
+        String sid = (String) claims.get("sid");
+        if (sid == null || sid.isBlank()) {
+            throw new BusinessException("TOKEN_INVALID", "令牌缺少会话标识");
+        }
+
+        List<?> rawAuthorities = claims.get("authorities", List.class);
+        List<String> authorities =
+                rawAuthorities == null ? List.of()
+                        : rawAuthorities.stream()
+                        .map(Object::toString)
+                        .map(String::trim)
+                        .filter(s -> !s.isEmpty())
+                        .map(s -> s.toUpperCase(Locale.ROOT))
+                        .toList();
+
+        return new AccessTokenClaims(userId, tokenVer, sid, authorityInterner.intern(authorities), exp.toInstant());
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
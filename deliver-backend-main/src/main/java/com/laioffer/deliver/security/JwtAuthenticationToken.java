@@ -0,0 +1,64 @@
+package com.laioffer.deliver.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * JWT 认证结果。直接引用缓存里的 AccessTokenClaims，权限集合是驻留的共享实例，
+ * 每个请求只多分配这一个对象（UsernamePasswordAuthenticationToken 会把权限复制成新列表）。
+ * principal 是 userId，getName() 返回 userId 字符串，与原来的用法一致。
+ */
+public class JwtAuthenticationToken implements Authentication {
+
+    private final AccessTokenClaims claims;
+    private boolean authenticated = true;
+
+    public JwtAuthenticationToken(AccessTokenClaims claims) {
+        this.claims = claims;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return claims.authorities();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return claims.userId();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) {
+        if (isAuthenticated) {
+            throw new IllegalArgumentException("只能由 JwtAuthFilter 创建已认证的令牌");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public String getName() {
+        return claims.userId().toString();
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthenticationToken[userId=" + claims.userId() + ", authorities=" + claims.authorities() + "]";
+    }
+}
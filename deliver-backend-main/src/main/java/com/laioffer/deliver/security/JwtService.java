@@ -4,6 +4,7 @@ import com.laioffer.deliver.config.JwtProperties;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -21,11 +22,16 @@ public class JwtService {
 
     private final JwtProperties jwtProperties;  // record：无 get 前缀
     private final SecretKey signingKey;
+    private final JwtParser parser;          // 不可变、线程安全，构建一次复用
 
     public JwtService(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
         // HS256 至少 32 bytes
         this.signingKey = Keys.hmacShaKeyFor(jwtProperties.secret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .requireIssuer(jwtProperties.issuer())
+                .setSigningKey(signingKey)
+                .build();
     }
 
     /** 生成 Access Token（含 ver/sid/authorities 快照） */
@@ -69,10 +75,6 @@ public class JwtService {
 
     /** 解析并校验（签名 / issuer / exp） */
     public Jws<Claims> parse(String token) throws JwtException {
-        return Jwts.parserBuilder()
-                .requireIssuer(jwtProperties.issuer())
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
 }
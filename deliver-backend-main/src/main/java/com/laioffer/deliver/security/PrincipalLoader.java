@@ -0,0 +1,71 @@
+package com.laioffer.deliver.security;
+
+import com.laioffer.deliver.security.store.PermissionCache;
+import com.laioffer.deliver.security.store.TokenVersionStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 登录 / 刷新时一次查询拿齐签发 token 需要的东西：用户行、token_version、权限码（array_agg 聚合）。
+ * 查到的版本号和权限顺带写进 TokenVersionStore / PermissionCache，后续请求直接命中缓存。
+ */
+@Component
+public class PrincipalLoader {
+
+    public record LoadedPrincipal(long id, String email, String passwordHash,
+                                  long tokenVersion, List<String> permissions) {}
+
+    private static final String SELECT = """
+           SELECT u.id, u.email, u.password, u.token_version,
+                  COALESCE(array_agg(DISTINCT p.code) FILTER (WHERE p.code IS NOT NULL), '{}') AS permissions
+             FROM users u
+             LEFT JOIN user_roles ur       ON ur.user_id = u.id
+             LEFT JOIN role_permissions rp ON rp.role_id = ur.role_id
+             LEFT JOIN permissions p       ON p.id = rp.permission_id
+           """;
+
+    private final JdbcTemplate jdbc;
+    private final TokenVersionStore tokenVersionStore;
+    private final PermissionCache permissionCache;
+
+    public PrincipalLoader(JdbcTemplate jdbc, TokenVersionStore tokenVersionStore, PermissionCache permissionCache) {
+        this.jdbc = jdbc;
+        this.tokenVersionStore = tokenVersionStore;
+        this.permissionCache = permissionCache;
+    }
+
+    // email 需已转小写；走 ux_users_email_ci
+    public LoadedPrincipal loadByEmail(String email) {
+        return load(SELECT + " WHERE lower(u.email) = ? GROUP BY u.id", email);
+    }
+
+    public LoadedPrincipal loadById(long userId) {
+        return load(SELECT + " WHERE u.id = ? GROUP BY u.id", userId);
+    }
+
+    private LoadedPrincipal load(String sql, Object arg) {
+        long stamp = tokenVersionStore.invalidationStamp();
+        List<LoadedPrincipal> rows = jdbc.query(sql, (rs, i) -> map(rs), arg);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        LoadedPrincipal p = rows.get(0);
+        tokenVersionStore.prime(p.id(), p.tokenVersion(), stamp);
+        permissionCache.prime(p.id(), p.permissions());
+        return p;
+    }
+
+    private static LoadedPrincipal map(ResultSet rs) throws SQLException {
+        Array array = rs.getArray("permissions");
+        List<String> permissions = Arrays.asList((String[]) array.getArray());
+        array.free();
+        return new LoadedPrincipal(rs.getLong("id"), rs.getString("email"), rs.getString("password"),
+                rs.getLong("token_version"), List.copyOf(permissions));
+    }
+}
@@ -0,0 +1,126 @@
+package com.laioffer.deliver.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * 已验签 access token 的本地缓存（cache-aside）。
+ * 同一个 access token 在有效期内会被反复使用，命中时跳过验签和 JSON 解析；
+ * key 是 token 的 SHA-256 摘要（不在内存里保留原始 token），每条记录在 token 的 exp 时刻过期。
+ * 版本号和黑名单不缓存在这里，每次请求仍然实时校验。
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<TokenDigest, AccessTokenClaims> cache;
+
+    public VerifiedTokenCache(@Value("${app.jwt.verified-cache-size:100000}") long maximumSize) {
+        this.cache = maximumSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExp())
+                .build();
+    }
+
+    /**
+     * token 是 header[start, end) 这一段（直接传 Authorization 头，命中缓存时不用切出新字符串）。
+     * 命中且未过期直接返回；否则调用 verifier 完整校验，成功后放入缓存（校验失败的 token 不缓存）。
+     */
+    public AccessTokenClaims get(String header, int start, int end, Function<String, AccessTokenClaims> verifier) {
+        TokenDigest key = cache == null ? null : TokenDigest.of(header, start, end);
+        // 非 ASCII 字符不可能是合法 JWT，不走缓存，交给 verifier 拒绝
+        if (key == null) {
+            return verifier.apply(header.substring(start, end));
+        }
+        AccessTokenClaims claims = cache.getIfPresent(key);
+        // 过期清理是惰性的，命中时再确认一次 exp
+        if (claims != null && claims.expiresAt().toEpochMilli() > System.currentTimeMillis()) {
+            return claims;
+        }
+        claims = verifier.apply(header.substring(start, end));
+        cache.put(key, claims);
+        return claims;
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    /** SHA-256 摘要拆成 4 个 long，equals/hashCode 不需要比较数组 */
+    private record TokenDigest(long a, long b, long c, long d) {
+
+        // MessageDigest.getInstance 每次都要查 Provider，连同输入输出缓冲区按线程复用（请求线程是固定的 Tomcat 线程池）
+        private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+        static TokenDigest of(String header, int start, int end) {
+            Scratch scratch = SCRATCH.get();
+            int length = end - start;
+            if (scratch.input.length < length) {
+                scratch.input = new byte[Math.max(length, scratch.input.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = header.charAt(start + i);
+                if (c > 0x7F) {
+                    return null;
+                }
+                scratch.input[i] = (byte) c;
+            }
+            try {
+                scratch.sha256.update(scratch.input, 0, length);
+                scratch.sha256.digest(scratch.output, 0, scratch.output.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            byte[] h = scratch.output;
+            return new TokenDigest(readLong(h, 0), readLong(h, 8), readLong(h, 16), readLong(h, 24));
+        }
+
+        private static long readLong(byte[] b, int off) {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (b[off + i] & 0xFF);
+            }
+            return v;
+        }
+    }
+
+    private static final class Scratch {
+        final MessageDigest sha256;
+        byte[] input = new byte[512];
+        final byte[] output = new byte[32];
+
+        Scratch() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 不可用", e);
+            }
+        }
+    }
+
+    private static final class ExpireAtTokenExp implements Expiry<TokenDigest, AccessTokenClaims> {
+        @Override
+        public long expireAfterCreate(TokenDigest key, AccessTokenClaims value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, AccessTokenClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, AccessTokenClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -5,4 +5,5 @@ import java.util.List;
 public interface PermissionCache {
     java.util.List<String> getPermissions(long userId);
     void invalidate(long userId);
+    void prime(long userId, List<String> permissions); // 已查到的权限顺带写缓存，已有则不覆盖
 }
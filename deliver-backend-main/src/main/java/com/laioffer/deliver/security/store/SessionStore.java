@@ -8,4 +8,8 @@ public interface SessionStore {
     void revokeBySid(String sid);
     void revokeAll(long userId);
     boolean isRefreshValid(long userId, String sid, String refreshPlain);
+
+    // 校验 + 作废旧会话 + 写入新会话，一条语句原子完成；旧 refresh 无效（或已被并发请求用掉）时返回 false
+    boolean rotateIfValid(long userId, String oldSid, String oldRefreshPlain,
+                          String newSid, String newRefreshPlain, Instant newExpiresAt);
 }
@@ -0,0 +1,12 @@
+package com.laioffer.deliver.security.store;
+
+import java.util.function.LongConsumer;
+
+// 集群内广播 token 版本号变化，各节点收到后清掉本地缓存
+public interface TokenVersionBus {
+    // 通知所有节点（包括自己）；在事务里调用时随提交一起发出，回滚则不发
+    void publish(long userId);
+
+    // resynced：与广播通道断开重连后调用，期间的消息可能丢了，需要整体清空本地缓存
+    void subscribe(LongConsumer invalidated, Runnable resynced);
+}
@@ -4,4 +4,8 @@ public interface TokenVersionStore {
     long getCurrentVersion(long userId);
     void bumpVersion(long userId);
     void invalidate(long userId);
+
+    // 别处已经查到版本号时顺带写进缓存：stamp 在查询前用 invalidationStamp() 取，期间发生过失效就不写
+    long invalidationStamp();
+    void prime(long userId, long version, long stamp);
 }
@@ -0,0 +1,44 @@
+package com.laioffer.deliver.security.store.impl;
+
+import com.laioffer.deliver.security.store.TokenVersionBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+// 单节点 / 本地测试用：同一进程内直接回调，不经过数据库
+// 和 pg_notify 一样随事务提交才通知，回滚不通知；不在事务里时立即通知
+@Component
+@ConditionalOnProperty(name = "app.jwt.version-bus", havingValue = "local")
+public class LocalTokenVersionBus implements TokenVersionBus {
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyListeners(userId);
+                }
+            });
+            return;
+        }
+        notifyListeners(userId);
+    }
+
+    private void notifyListeners(long userId) {
+        for (LongConsumer listener : listeners) {
+            listener.accept(userId);
+        }
+    }
+
+    @Override
+    public void subscribe(LongConsumer invalidated, Runnable resynced) {
+        listeners.add(invalidated);
+    }
+}
@@ -28,4 +28,9 @@ public class PermissionCacheSpring implements PermissionCache {
     public void invalidate(long userId) {
         cache.evict(userId);
     }
+
+    @Override
+    public void prime(long userId, List<String> permissions) {
+        cache.putIfAbsent(userId, permissions);
+    }
 }
@@ -0,0 +1,119 @@
+package com.laioffer.deliver.security.store.impl;
+
+import com.laioffer.deliver.security.store.TokenVersionBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+// 多节点部署：用 Postgres LISTEN/NOTIFY 广播版本号变化
+// NOTIFY 在事务提交时才投递，其他节点收到消息时新版本一定已经可读
+@Component
+@ConditionalOnProperty(name = "app.jwt.version-bus", havingValue = "postgres", matchIfMissing = true)
+public class PgNotifyTokenVersionBus implements TokenVersionBus {
+    private static final Logger log = LoggerFactory.getLogger(PgNotifyTokenVersionBus.class);
+
+    private static final String CHANNEL = "token_version";
+    private static final int POLL_MILLIS = 1000;
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final DataSourceProperties dataSourceProperties;
+    private final List<LongConsumer> invalidatedListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resyncedListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PgNotifyTokenVersionBus(JdbcTemplate jdbc, DataSourceProperties dataSourceProperties) {
+        this.jdbc = jdbc;
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    @Override
+    public void publish(long userId) {
+        jdbc.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, CHANNEL, Long.toString(userId));
+    }
+
+    @Override
+    public void subscribe(LongConsumer invalidated, Runnable resynced) {
+        invalidatedListeners.add(invalidated);
+        resyncedListeners.add(resynced);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "token-version-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listenerThread.interrupt();
+        listenerThread.join(POLL_MILLIS * 2L);
+    }
+
+    private void listenLoop() {
+        while (running) {
+            // LISTEN 要一直占着一个连接，单独建连接，不占用连接池
+            try (Connection conn = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                // 连上之前的消息收不到，本地缓存整体作废
+                resyncedListeners.forEach(Runnable::run);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification n : notifications) {
+                        dispatch(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("token version listener disconnected, reconnecting", e);
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        long userId;
+        try {
+            userId = Long.parseLong(payload);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        for (LongConsumer listener : invalidatedListeners) {
+            listener.accept(userId);
+        }
+    }
+}
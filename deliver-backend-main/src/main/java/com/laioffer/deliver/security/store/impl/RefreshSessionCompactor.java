@@ -0,0 +1,154 @@
+// com/laioffer/deliver/security/store/impl/RefreshSessionCompactor.java
+package com.laioffer.deliver.security.store.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * refresh_sessions 后台清理：
+ * - 过期的和撤销超过保留期的行，按批删除，每批一个短事务，多节点同时跑用 SKIP LOCKED 互不阻塞
+ * - 如果表是按 expires_at 月份分区的（refresh-sessions-partitioned.sql），提前建好未来几个月的分区，整月过期的分区直接 DROP
+ */
+@Component
+public class RefreshSessionCompactor {
+    private static final Logger log = LoggerFactory.getLogger(RefreshSessionCompactor.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("refresh_sessions_y(\\d{4})m(\\d{2})");
+    // refresh 最长 14 天左右，当前月 + 后两个月足够覆盖新会话的过期时间
+    private static final int MONTHS_AHEAD = 2;
+
+    private final JdbcTemplate jdbc;
+    private final long intervalMinutes;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int revokedRetentionHours;
+    private final int partitionGraceDays;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "refresh-session-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private boolean partitioned;
+
+    public RefreshSessionCompactor(JdbcTemplate jdbc,
+                                   @Value("${app.session.compaction.interval-minutes:10}") long intervalMinutes,
+                                   @Value("${app.session.compaction.batch-size:1000}") int batchSize,
+                                   @Value("${app.session.compaction.max-batches-per-run:100}") int maxBatchesPerRun,
+                                   @Value("${app.session.compaction.revoked-retention-hours:24}") int revokedRetentionHours,
+                                   @Value("${app.session.compaction.partition-grace-days:1}") int partitionGraceDays) {
+        this.jdbc = jdbc;
+        this.intervalMinutes = intervalMinutes;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.revokedRetentionHours = revokedRetentionHours;
+        this.partitionGraceDays = partitionGraceDays;
+    }
+
+    @PostConstruct
+    public void start() {
+        Boolean p = jdbc.queryForObject("""
+           SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt
+                            JOIN pg_class c ON c.oid = pt.partrelid
+                           WHERE c.relname = 'refresh_sessions')
+        """, Boolean.class);
+        partitioned = Boolean.TRUE.equals(p);
+        if (partitioned) {
+            // 分区表没有默认分区，登录前必须先有当月分区
+            ensurePartitions();
+        }
+        scheduler.scheduleWithFixedDelay(this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            if (partitioned) {
+                ensurePartitions();
+                dropExpiredPartitions();
+            }
+            int expired = deleteInBatches("expires_at < now()");
+            int revoked = deleteInBatches("revoked AND created_at < now() - make_interval(hours => " + revokedRetentionHours + ")");
+            if (expired + revoked > 0) {
+                log.info("refresh_sessions compaction: {} expired, {} revoked rows deleted", expired, revoked);
+            }
+        } catch (RuntimeException e) {
+            log.warn("refresh_sessions compaction failed", e);
+        }
+    }
+
+    // 每批先挑出 id 再删，单批耗时可控；删不满一批说明清完了
+    private int deleteInBatches(String condition) {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int deleted = jdbc.update("""
+               DELETE FROM refresh_sessions WHERE id IN (
+                   SELECT id FROM refresh_sessions WHERE %s LIMIT ? FOR UPDATE SKIP LOCKED
+               )
+            """.formatted(condition), batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private void ensurePartitions() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= MONTHS_AHEAD; i++) {
+            YearMonth m = month.plusMonths(i);
+            jdbc.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF refresh_sessions FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(partitionName(m), monthStart(m), monthStart(m.plusMonths(1))));
+        }
+    }
+
+    // 整个分区的 expires_at 上界都已过去（再加宽限期），里面不可能还有有效会话
+    private void dropExpiredPartitions() {
+        List<String> names = jdbc.queryForList("""
+           SELECT c.relname FROM pg_inherits i
+             JOIN pg_class c ON c.oid = i.inhrelid
+             JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = 'refresh_sessions'
+        """, String.class);
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(partitionGraceDays);
+        for (String name : names) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (!m.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (month.plusMonths(1).atDay(1).isBefore(cutoff)) {
+                jdbc.execute("DROP TABLE IF EXISTS " + name);
+                log.info("dropped expired partition {}", name);
+            }
+        }
+    }
+
+    private static String partitionName(YearMonth m) {
+        return "refresh_sessions_y%04dm%02d".formatted(m.getYear(), m.getMonthValue());
+    }
+
+    private static String monthStart(YearMonth m) {
+        return m.atDay(1) + " 00:00:00+00";
+    }
+}
@@ -2,20 +2,57 @@
 package com.laioffer.deliver.security.store.impl;
 
 import com.laioffer.deliver.security.store.SessionStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class SessionStoreJdbc implements SessionStore {
+    private static final Logger log = LoggerFactory.getLogger(SessionStoreJdbc.class);
+
     private final JdbcTemplate jdbc;
 
-    public SessionStoreJdbc(JdbcTemplate jdbc) {
+    // write-behind：单端登出的会话撤销先记在内存，定时批量落库；未落库前本节点的校验会直接拒绝
+    private final boolean writeBehind;
+    private final int maxBatch;
+    private final Queue<String> pendingRevokes = new ConcurrentLinkedQueue<>();
+    private final Set<String> pendingRevokedSids = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher;
+
+    public SessionStoreJdbc(JdbcTemplate jdbc,
+                            @Value("${app.session.write-behind.enabled:false}") boolean writeBehind,
+                            @Value("${app.session.write-behind.flush-millis:200}") long flushMillis,
+                            @Value("${app.session.write-behind.max-batch:500}") int maxBatch) {
         this.jdbc = jdbc;
+        this.writeBehind = writeBehind;
+        this.maxBatch = maxBatch;
+        if (writeBehind) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "session-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
     }
 
     private static String sha256(String s) {
@@ -37,19 +74,56 @@ public class SessionStoreJdbc implements SessionStore {
 
     @Override
     public void rotateSession(String oldSid, String newSid, String newRefreshPlain, Instant newExpiresAt) {
-        jdbc.update("UPDATE refresh_sessions SET revoked=TRUE WHERE sid=?", oldSid);
+        // 作废旧会话和写入新会话在同一条语句里，要么都成功要么都不做
         jdbc.update("""
-           INSERT INTO refresh_sessions(user_id,sid,refresh_hash,expires_at)
-           SELECT user_id, ?, ?, ? FROM refresh_sessions WHERE sid=? LIMIT 1
-        """, newSid, sha256(newRefreshPlain), java.sql.Timestamp.from(newExpiresAt), oldSid);
+           WITH old AS (
+               UPDATE refresh_sessions SET revoked=TRUE, last_used_at=now() WHERE sid=?
+               RETURNING user_id, device_info
+           )
+           INSERT INTO refresh_sessions(user_id,sid,refresh_hash,expires_at,device_info)
+           SELECT user_id, ?, ?, ?, device_info FROM old
+        """, oldSid, newSid, sha256(newRefreshPlain), java.sql.Timestamp.from(newExpiresAt));
+    }
+
+    @Override
+    public boolean rotateIfValid(long userId, String oldSid, String oldRefreshPlain,
+                                 String newSid, String newRefreshPlain, Instant newExpiresAt) {
+        if (pendingRevokedSids.contains(oldSid)) {
+            return false;
+        }
+        // UPDATE 的 WHERE 就是校验条件，行锁保证同一个 refresh 并发轮换只有一个命中
+        int inserted = jdbc.update("""
+           WITH old AS (
+               UPDATE refresh_sessions SET revoked=TRUE, last_used_at=now()
+                WHERE user_id=? AND sid=? AND revoked=FALSE AND refresh_hash=? AND expires_at>now()
+               RETURNING user_id, device_info
+           )
+           INSERT INTO refresh_sessions(user_id,sid,refresh_hash,expires_at,device_info)
+           SELECT user_id, ?, ?, ?, device_info FROM old
+        """, userId, oldSid, sha256(oldRefreshPlain),
+                newSid, sha256(newRefreshPlain), java.sql.Timestamp.from(newExpiresAt));
+        return inserted == 1;
     }
 
-    @Override public void revokeBySid(String sid) { jdbc.update("UPDATE refresh_sessions SET revoked=TRUE WHERE sid=?", sid); }
+    @Override
+    public void revokeBySid(String sid) {
+        if (!writeBehind) {
+            jdbc.update("UPDATE refresh_sessions SET revoked=TRUE WHERE sid=?", sid);
+            return;
+        }
+        if (pendingRevokedSids.add(sid)) {
+            pendingRevokes.add(sid);
+        }
+    }
 
+    // 踢出全部会话属于安全操作，始终同步执行
     @Override public void revokeAll(long userId) { jdbc.update("UPDATE refresh_sessions SET revoked=TRUE WHERE user_id=? AND revoked=FALSE", userId); }
 
     @Override
     public boolean isRefreshValid(long userId, String sid, String refreshPlain) {
+        if (pendingRevokedSids.contains(sid)) {
+            return false;
+        }
         Integer ok = jdbc.query("""
            SELECT 1 FROM refresh_sessions
             WHERE user_id=? AND sid=? AND revoked=FALSE AND refresh_hash=? AND expires_at>now()
@@ -61,4 +135,35 @@ public class SessionStoreJdbc implements SessionStore {
         }, rs -> rs.next() ? 1 : 0);
         return ok != null && ok == 1;
     }
+
+    // 一批撤销一条 UPDATE ... = ANY(array)，失败的放回队列下一轮重试
+    private void flush() {
+        while (!pendingRevokes.isEmpty()) {
+            List<String> batch = new ArrayList<>(Math.min(maxBatch, pendingRevokes.size()));
+            String sid;
+            while (batch.size() < maxBatch && (sid = pendingRevokes.poll()) != null) {
+                batch.add(sid);
+            }
+            try {
+                jdbc.update(con -> {
+                    var ps = con.prepareStatement("UPDATE refresh_sessions SET revoked=TRUE WHERE sid = ANY(?) AND revoked=FALSE");
+                    ps.setArray(1, con.createArrayOf("varchar", batch.toArray()));
+                    return ps;
+                });
+                batch.forEach(pendingRevokedSids::remove);
+            } catch (RuntimeException e) {
+                pendingRevokes.addAll(batch);
+                log.warn("session revoke flush failed, {} pending", pendingRevokedSids.size(), e);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
 }
@@ -0,0 +1,105 @@
+// com/laioffer/deliver/security/store/impl/SidBlacklistStoreJdbc.java
+package com.laioffer.deliver.security.store.impl;
+
+import com.laioffer.deliver.config.JwtProperties;
+import com.laioffer.deliver.security.store.SidBlacklistStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SID 黑名单：sid_revocations 表是只追加的撤销日志，所有节点共享；
+ * 每个节点把日志增量拉进本地的 SidBloomIndex，查询只走内存。
+ * - 启动时只读未过期的记录（expires_at 上有索引）
+ * - 之后按 id 游标增量拉取；id 由序列分配、提交顺序可能乱，所以每次多回看最近几秒新写入的行，重复记录是幂等的
+ * - 本节点登出的 sid 写库后立刻进本地索引，不等下一轮拉取
+ */
+@Component
+public class SidBlacklistStoreJdbc implements SidBlacklistStore {
+    private static final Logger log = LoggerFactory.getLogger(SidBlacklistStoreJdbc.class);
+
+    private static final int LOOKBACK_SECONDS = 10;
+    private static final int PRUNE_EVERY_POLLS = 600;
+
+    private final JdbcTemplate jdbc;
+    private final SidBloomIndex index;
+    private final long pollMillis;
+    private final ScheduledExecutorService tailer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sid-revocation-tailer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private long cursor;   // 只在 tailer 线程里读写（启动追赶除外）
+    private int polls;
+
+    public SidBlacklistStoreJdbc(JdbcTemplate jdbc,
+                                 JwtProperties jwtProperties,
+                                 @Value("${app.jwt.sid-blacklist.bucket-seconds:60}") long bucketSeconds,
+                                 @Value("${app.jwt.sid-blacklist.expected-per-bucket:4096}") int expectedPerBucket,
+                                 @Value("${app.jwt.sid-blacklist.poll-millis:1000}") long pollMillis) {
+        this.jdbc = jdbc;
+        this.index = new SidBloomIndex(bucketSeconds * 1000, jwtProperties.accessTtlMinutes() * 60_000L, expectedPerBucket);
+        this.pollMillis = pollMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        // 启动追赶：同步完成后才开始对外服务
+        jdbc.query("SELECT id, sid, expires_at FROM sid_revocations WHERE expires_at > now()", rs -> {
+            cursor = Math.max(cursor, rs.getLong(1));
+            index.add(rs.getString(2), rs.getTimestamp(3).getTime());
+        });
+        Long maxId = jdbc.queryForObject("SELECT COALESCE(max(id), 0) FROM sid_revocations", Long.class);
+        cursor = Math.max(cursor, maxId == null ? 0 : maxId);
+        tailer.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        tailer.shutdownNow();
+    }
+
+    @Override
+    public void revokeTemporarily(String sid, long ttlSeconds) {
+        long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        jdbc.update("INSERT INTO sid_revocations(sid, expires_at) VALUES (?, ?)", sid, new Timestamp(expiresAt));
+        index.add(sid, expiresAt);
+    }
+
+    @Override
+    public boolean isRevoked(String sid) {
+        return index.contains(sid);
+    }
+
+    private void poll() {
+        try {
+            jdbc.query("""
+               SELECT id, sid, expires_at FROM sid_revocations
+                WHERE (id > ? OR created_at > now() - make_interval(secs => ?))
+                  AND expires_at > now()
+                ORDER BY id
+            """, rs -> {
+                cursor = Math.max(cursor, rs.getLong(1));
+                index.add(rs.getString(2), rs.getTimestamp(3).getTime());
+            }, cursor, LOOKBACK_SECONDS);
+
+            // 过期很久的日志没人再需要，偶尔清一次（多节点重复执行也无妨）
+            if (++polls % PRUNE_EVERY_POLLS == 0) {
+                jdbc.update("DELETE FROM sid_revocations WHERE expires_at < now() - interval '1 hour'");
+            }
+        } catch (RuntimeException e) {
+            // 数据库暂时不可用：保持已有的内存黑名单，下一轮继续
+            log.warn("sid revocation tail failed", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+// com/laioffer/deliver/security/store/impl/SidBloomIndex.java
+package com.laioffer.deliver.security.store.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * SID 黑名单的内存索引：按过期时间分桶，每个桶 = Bloom 过滤器 + 精确集合。
+ * - 每条记录按自己的 ttl 过期，桶里最后一条过期后整桶丢掉，不按条数淘汰，活着的记录不会被挤掉
+ * - 查询先看 Bloom，绝大多数没登出的 sid 不碰精确集合；Bloom 命中再查精确集合，不会误判
+ * - 环形桶数覆盖 access token 最长寿命，内存只跟仍有效的记录数有关
+ */
+class SidBloomIndex {
+    private static final int HASHES = 5;       // 每条 10 bit、5 个哈希，假阳性约 1%
+    private static final int BITS_PER_ENTRY = 10;
+
+    private final long bucketMillis;
+    private final long maxTtlMillis;
+    private final int bloomBits;
+    private final AtomicReferenceArray<Bucket> ring;
+    private final LongSupplier clock;
+
+    // maxTtlMillis：access token 最长寿命，黑名单不需要更久
+    SidBloomIndex(long bucketMillis, long maxTtlMillis, int expectedPerBucket) {
+        this(bucketMillis, maxTtlMillis, expectedPerBucket, System::currentTimeMillis);
+    }
+
+    // clock 返回毫秒时间戳，测试里用假时钟驱动桶轮转
+    SidBloomIndex(long bucketMillis, long maxTtlMillis, int expectedPerBucket, LongSupplier clock) {
+        this.clock = clock;
+        this.bucketMillis = bucketMillis;
+        this.maxTtlMillis = maxTtlMillis;
+        // 多一个桶：保证某个桶被新时间片复用时，旧时间片里的记录都已过期
+        this.ring = new AtomicReferenceArray<>((int) (maxTtlMillis / bucketMillis) + 2);
+        this.bloomBits = Math.max(64, Integer.highestOneBit(expectedPerBucket * BITS_PER_ENTRY - 1) << 1);
+    }
+
+    // 重复添加同一条是幂等的，过期时间取较晚的
+    void add(String sid, long expiresAt) {
+        long now = clock.getAsLong();
+        if (expiresAt <= now) {
+            return;
+        }
+        expiresAt = Math.min(expiresAt, now + maxTtlMillis);
+        long hash = hash(sid);
+        Bucket bucket = bucketFor(expiresAt / bucketMillis);
+        bucket.exact.merge(sid, expiresAt, Math::max);
+        bucket.add(hash);
+        dropExpired(now / bucketMillis);
+    }
+
+    boolean contains(String sid) {
+        long now = clock.getAsLong();
+        long nowSlot = now / bucketMillis;
+        long hash = hash(sid);
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket == null || bucket.slot < nowSlot || !bucket.mightContain(hash)) {
+                continue;
+            }
+            Long expiresAt = bucket.exact.get(sid);
+            if (expiresAt != null && expiresAt > now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Bucket bucketFor(long slot) {
+        int index = (int) (slot % ring.length());
+        while (true) {
+            Bucket current = ring.get(index);
+            if (current != null && current.slot >= slot) {
+                return current;
+            }
+            // 旧时间片已整体过期，换成新桶
+            Bucket fresh = new Bucket(slot, bloomBits);
+            if (ring.compareAndSet(index, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    // 登出是低频操作，顺手把过期的桶清掉，查询路径不做清理
+    private void dropExpired(long nowSlot) {
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.slot < nowSlot) {
+                ring.compareAndSet(i, bucket, null);
+            }
+        }
+    }
+
+    // 64 位 FNV-1a，再做一次混合；高低 32 位作为双哈希的两个基
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Bucket {
+        final long slot;
+        final AtomicLongArray bits;
+        final int mask;
+        final ConcurrentHashMap<String, Long> exact = new ConcurrentHashMap<>();
+
+        Bucket(long slot, int bitCount) {
+            this.slot = slot;
+            this.bits = new AtomicLongArray(bitCount >>> 6);
+            this.mask = bitCount - 1;
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int k = 0; k < HASHES; k++) {
+                int bit = (h1 + k * h2) & mask;
+                long word = 1L << bit;
+                int index = bit >>> 6;
+                long old;
+                while (((old = bits.get(index)) & word) == 0 && !bits.compareAndSet(index, old, old | word)) {
+                    // 被其他线程改过，重试
+                }
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int k = 0; k < HASHES; k++) {
+                int bit = (h1 + k * h2) & mask;
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
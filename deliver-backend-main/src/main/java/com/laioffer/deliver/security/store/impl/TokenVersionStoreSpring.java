@@ -1,20 +1,37 @@
 package com.laioffer.deliver.security.store.impl;
 
 import com.laioffer.deliver.repository.UserRepository;
+import com.laioffer.deliver.security.store.TokenVersionBus;
 import com.laioffer.deliver.security.store.TokenVersionStore;
+import jakarta.annotation.PostConstruct;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+// 读走本节点缓存；版本号变化通过 TokenVersionBus 广播，所有节点一起失效
 @Component
 public class TokenVersionStoreSpring implements TokenVersionStore {
     private final Cache cache;
     private final UserRepository userRepository;
+    private final TokenVersionBus bus;
+    private final AtomicLong invalidations = new AtomicLong(); // 每次失效先 +1 再删缓存，prime 据此判断读到的版本是否可能过时
 
-    public TokenVersionStoreSpring(CacheManager cacheManager, UserRepository userRepository) {
+    public TokenVersionStoreSpring(CacheManager cacheManager, UserRepository userRepository, TokenVersionBus bus) {
         this.cache = cacheManager.getCache("tokenVersionCache");
         this.userRepository = userRepository;
+        this.bus = bus;
+    }
+
+    // 不在构造器里订阅：this 还没构造完就交给了总线
+    @PostConstruct
+    void subscribe() {
+        bus.subscribe(this::invalidate, () -> {
+            invalidations.incrementAndGet();
+            cache.clear();
+        });
     }
 
     @Override
@@ -27,11 +44,30 @@ public class TokenVersionStoreSpring implements TokenVersionStore {
     @Override
     public void bumpVersion(long userId) {
         userRepository.bumpTokenVersion(userId);
-        cache.evict(userId); // 立刻让新版本生效
+        bus.publish(userId); // 随事务提交通知其他节点
+        invalidate(userId);  // 本节点立刻生效
     }
 
     @Override
     public void invalidate(long userId) {
+        invalidations.incrementAndGet();
         cache.evict(userId);
     }
+
+    @Override
+    public long invalidationStamp() {
+        return invalidations.get();
+    }
+
+    @Override
+    public void prime(long userId, long version, long stamp) {
+        if (invalidations.get() != stamp) {
+            return;
+        }
+        cache.putIfAbsent(userId, version);
+        // 写入和并发失效交错时，宁可删掉重新查也不留旧版本
+        if (invalidations.get() != stamp) {
+            cache.evict(userId);
+        }
+    }
 }
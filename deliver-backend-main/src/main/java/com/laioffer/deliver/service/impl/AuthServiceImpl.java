@@ -5,8 +5,8 @@ import com.laioffer.deliver.exception.BusinessException;
 import com.laioffer.deliver.model.LoginRequest;
 import com.laioffer.deliver.model.RefreshRequest;
 import com.laioffer.deliver.model.TokenResponse;
-import com.laioffer.deliver.repository.UserRepository;
 import com.laioffer.deliver.security.JwtService;
+import com.laioffer.deliver.security.PrincipalLoader;
 import com.laioffer.deliver.security.store.PermissionCache;
 import com.laioffer.deliver.security.store.SessionStore;
 import com.laioffer.deliver.security.store.SidBlacklistStore;
@@ -29,7 +29,6 @@ import java.util.UUID;
 @Service
 public class AuthServiceImpl implements AuthService {
 
-    private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final JwtProperties jwtProperties;       // 统一使用这个字段名
@@ -38,16 +37,16 @@ public class AuthServiceImpl implements AuthService {
     private final PermissionCache permissionCache;
     private final SessionStore sessionStore;
     private final SidBlacklistStore sidBlacklistStore;
+    private final PrincipalLoader principalLoader;
 
-    public AuthServiceImpl(UserRepository userRepository,
-                           PasswordEncoder passwordEncoder,
+    public AuthServiceImpl(PasswordEncoder passwordEncoder,
                            JwtService jwtService,
                            JwtProperties jwtProperties,
                            TokenVersionStore tokenVersionStore,
                            PermissionCache permissionCache,
                            SessionStore sessionStore,
-                           SidBlacklistStore sidBlacklistStore) {
-        this.userRepository = userRepository;
+                           SidBlacklistStore sidBlacklistStore,
+                           PrincipalLoader principalLoader) {
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.jwtProperties = jwtProperties;         // 字段名与参数一致
@@ -55,6 +54,7 @@ public class AuthServiceImpl implements AuthService {
         this.permissionCache = permissionCache;
         this.sessionStore = sessionStore;
         this.sidBlacklistStore = sidBlacklistStore;
+        this.principalLoader = principalLoader;
     }
 
     /** 登录：签发 access/refresh 并持久化会话 */
@@ -62,13 +62,14 @@ public class AuthServiceImpl implements AuthService {
     public TokenResponse login(LoginRequest req) {
         String email = req.email().trim().toLowerCase(Locale.ROOT);
 
-        var user = userRepository.findByEmail(email);
-        if (user == null || !passwordEncoder.matches(req.password(), user.password())) {
+        // 用户、版本号、权限一次查询
+        var user = principalLoader.loadByEmail(email);
+        if (user == null || !passwordEncoder.matches(req.password(), user.passwordHash())) {
             throw new BusinessException("BAD_CREDENTIALS", "邮箱或密码错误");
         }
 
-        long ver = tokenVersionStore.getCurrentVersion(user.id());
-        List<String> authorities = permissionCache.getPermissions(user.id());
+        long ver = user.tokenVersion();
+        List<String> authorities = user.permissions();
 
         String sid = UUID.randomUUID().toString().replace("-", "");
 
@@ -109,21 +110,21 @@ public class AuthServiceImpl implements AuthService {
             throw new BusinessException("INVALID_TOKEN", "刷新令牌缺少会话标识");
         }
 
-        if (!sessionStore.isRefreshValid(userId, oldSid, refreshToken)) {
-            throw new BusinessException("INVALID_TOKEN", "刷新令牌已失效");
-        }
-
-        // 轮换会话
+        // 校验并轮换会话（一次往返；同一个 refresh 并发提交只有一个能成功）
         String newSid = UUID.randomUUID().toString().replace("-", "");
         String newRefresh = jwtService.generateRefreshToken(userId, newSid);
         Instant newRefreshExp = Instant.now().plus(Duration.ofDays(jwtProperties.refreshTtlDays()));
-        sessionStore.rotateSession(oldSid, newSid, newRefresh, newRefreshExp);
+        if (!sessionStore.rotateIfValid(userId, oldSid, refreshToken, newSid, newRefresh, newRefreshExp)) {
+            throw new BusinessException("INVALID_TOKEN", "刷新令牌已失效");
+        }
 
         // 重签发 access
-        var u = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException("USER_NOT_FOUND", "用户不存在"));
-        long ver = tokenVersionStore.getCurrentVersion(userId);
-        List<String> authorities = permissionCache.getPermissions(userId);
+        var u = principalLoader.loadById(userId);
+        if (u == null) {
+            throw new BusinessException("USER_NOT_FOUND", "用户不存在");
+        }
+        long ver = u.tokenVersion();
+        List<String> authorities = u.permissions();
 
         String newAccess = jwtService.generateAccessToken(userId, u.email(), authorities, ver, newSid);
         long expiresInSeconds = jwtProperties.accessTtlMinutes() * 60L;
@@ -0,0 +1,231 @@
+package com.laioffer.deliver.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * email_outbox 发送端：
+ * - 每个 worker 线程一次认领一批（SKIP LOCKED，多节点并发不重复），整批用一个 SMTP 连接发出
+ * - 认领时把 next_attempt_at 推后作为租约，节点挂掉后租约到期会被别人重新认领
+ * - 失败按指数退避重试，超过 max-attempts 标成 FAILED
+ * - 正文里有验证码 / 邀请链接：SENT、FAILED 后立即清空 body，整行过了 retention-hours 删除
+ * - 指标：email.outbox.depth（待发数）、email.send.latency（单批 SMTP 耗时）、email.outbox.delivery（入队到发出）、email.outbox.sent
+ */
+@Component
+public class EmailOutboxWorker {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final long PURGE_INTERVAL_MILLIS = Duration.ofMinutes(10).toMillis();
+    private static final int PURGE_BATCH = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final JavaMailSender mailSender;
+    private final String from;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long pollMillis;
+    private final Duration baseBackoff;
+    private final long retentionHours;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong lastPurge = new AtomicLong();
+    private final Timer sendLatency;
+    private final Timer deliveryLatency;
+    private final Counter sent;
+    private final Counter failed;
+    private ExecutorService pool;
+    private volatile boolean running;
+
+    public EmailOutboxWorker(JdbcTemplate jdbc,
+                             JavaMailSender mailSender,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.email.from:no-reply@deliver.local}") String from,
+                             @Value("${app.email.outbox.workers:2}") int workers,
+                             @Value("${app.email.outbox.batch-size:20}") int batchSize,
+                             @Value("${app.email.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${app.email.outbox.poll-millis:1000}") long pollMillis,
+                             @Value("${app.email.outbox.base-backoff-seconds:10}") long baseBackoffSeconds,
+                             @Value("${app.email.outbox.retention-hours:168}") long retentionHours) {
+        this.jdbc = jdbc;
+        this.mailSender = mailSender;
+        this.from = from;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollMillis = pollMillis;
+        this.baseBackoff = Duration.ofSeconds(baseBackoffSeconds);
+        this.retentionHours = retentionHours;
+        meterRegistry.gauge("email.outbox.depth", depth);
+        this.sendLatency = meterRegistry.timer("email.send.latency");
+        this.deliveryLatency = meterRegistry.timer("email.outbox.delivery");
+        this.sent = meterRegistry.counter("email.outbox.sent", "result", "sent");
+        this.failed = meterRegistry.counter("email.outbox.sent", "result", "failed");
+    }
+
+    private record OutboxMessage(long id, String recipient, String subject, String body, int attempts, Timestamp createdAt) {}
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "email-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            pool.submit(this::loop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        pool.shutdownNow();
+    }
+
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                purgeIfDue();
+                int processed = processBatch();
+                if (processed < batchSize) {
+                    // 没取满说明暂时清空了，等新邮件或下一轮
+                    wakeUps.tryAcquire(pollMillis, TimeUnit.MILLISECONDS);
+                    wakeUps.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("email outbox batch failed", e);
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int processBatch() {
+        List<OutboxMessage> batch = jdbc.query("""
+           UPDATE email_outbox
+              SET attempts = attempts + 1, next_attempt_at = now() + make_interval(secs => ?)
+            WHERE id IN (SELECT id FROM email_outbox
+                          WHERE status = 'PENDING' AND next_attempt_at <= now()
+                          ORDER BY next_attempt_at
+                          LIMIT ? FOR UPDATE SKIP LOCKED)
+           RETURNING id, recipient, subject, body, attempts, created_at
+        """, (rs, i) -> new OutboxMessage(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                rs.getInt(5), rs.getTimestamp(6)), LEASE.toSeconds(), batchSize);
+        Long pending = jdbc.queryForObject("SELECT count(*) FROM email_outbox WHERE status = 'PENDING'", Long.class);
+        depth.set(pending == null ? 0 : pending);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage m = batch.get(i);
+            messages[i] = new SimpleMailMessage();
+            messages[i].setFrom(from);
+            messages[i].setTo(m.recipient());
+            messages[i].setSubject(m.subject());
+            messages[i].setText(m.body());
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        MailException connectionFailure = null;
+        long start = System.nanoTime();
+        try {
+            mailSender.send(messages); // 同一批共用一个 SMTP 连接
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                connectionFailure = e;
+            }
+        } catch (MailException e) {
+            connectionFailure = e;
+        }
+        sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        List<Object[]> sentIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage m = batch.get(i);
+            Exception error = connectionFailure != null ? connectionFailure : failures.get(messages[i]);
+            if (error == null) {
+                sentIds.add(new Object[]{m.id()});
+                deliveryLatency.record(System.currentTimeMillis() - m.createdAt().getTime(), TimeUnit.MILLISECONDS);
+                sent.increment();
+            } else {
+                markFailed(m, error);
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            jdbc.batchUpdate("UPDATE email_outbox SET status = 'SENT', sent_at = now(), last_error = NULL, body = NULL WHERE id = ?", sentIds);
+        }
+        return batch.size();
+    }
+
+    // 每 10 分钟由一个 worker 删一次过期的 SENT / FAILED 行，分批删避免长事务
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL_MILLIS || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+        int deleted;
+        do {
+            deleted = jdbc.update("""
+               DELETE FROM email_outbox
+                WHERE id IN (SELECT id FROM email_outbox
+                              WHERE status IN ('SENT', 'FAILED') AND created_at < now() - make_interval(hours => ?)
+                              LIMIT ?)
+            """, retentionHours, PURGE_BATCH);
+        } while (deleted == PURGE_BATCH && running);
+    }
+
+    private void markFailed(OutboxMessage m, Exception error) {
+        failed.increment();
+        String message = String.valueOf(error.getMessage());
+        if (m.attempts() >= maxAttempts) {
+            log.warn("email {} to {} gave up after {} attempts: {}", m.id(), m.recipient(), m.attempts(), message);
+            jdbc.update("UPDATE email_outbox SET status = 'FAILED', last_error = ?, body = NULL WHERE id = ?", message, m.id());
+            return;
+        }
+        // 指数退避：base * 2^(attempts-1)，封顶 MAX_BACKOFF
+        long backoff = Math.min(MAX_BACKOFF.toSeconds(), baseBackoff.toSeconds() << Math.min(20, m.attempts() - 1));
+        jdbc.update("UPDATE email_outbox SET next_attempt_at = now() + make_interval(secs => ?), last_error = ? WHERE id = ?",
+                backoff, message, m.id());
+    }
+}
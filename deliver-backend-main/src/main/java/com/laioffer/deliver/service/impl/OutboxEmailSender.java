@@ -0,0 +1,37 @@
+package com.laioffer.deliver.service.impl;
+
+import com.laioffer.deliver.service.EmailSender;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 邮件先写 email_outbox 就返回，由 EmailOutboxWorker 异步发送；请求线程不再等 SMTP
+@Primary
+@Service
+public class OutboxEmailSender implements EmailSender {
+    private final JdbcTemplate jdbc;
+    private final EmailOutboxWorker worker;
+
+    public OutboxEmailSender(JdbcTemplate jdbc, EmailOutboxWorker worker) {
+        this.jdbc = jdbc;
+        this.worker = worker;
+    }
+
+    @Override
+    public void send(String to, String subject, String content) {
+        jdbc.update("INSERT INTO email_outbox(recipient, subject, body) VALUES (?, ?, ?)", to, subject, content);
+        // 本节点的 worker 立刻去取，不用等下一轮轮询；在事务里时等提交后再叫醒，否则 worker 看不到这一行
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    worker.wakeUp();
+                }
+            });
+        } else {
+            worker.wakeUp();
+        }
+    }
+}
@@ -85,23 +85,44 @@ CREATE INDEX IF NOT EXISTS ix_role_permissions_role ON role_permissions(role_id)
 CREATE INDEX IF NOT EXISTS ix_role_permissions_perm ON role_permissions(permission_id);
 
 -- ---------- REFRESH SESSIONS ----------
-CREATE TABLE IF NOT EXISTS refresh_sessions (
-                                                id            BIGSERIAL PRIMARY KEY,
-                                                user_id       BIGINT       NOT NULL REFERENCES users(id) ON DELETE CASCADE,
-                                                sid           VARCHAR(64)  NOT NULL UNIQUE,
-                                                refresh_hash  VARCHAR(128) NOT NULL,
-                                                revoked       BOOLEAN      NOT NULL DEFAULT FALSE,
-                                                expires_at    TIMESTAMPTZ  NOT NULL,
-                                                created_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
-                                                last_used_at  TIMESTAMPTZ,
-                                                device_info   VARCHAR(255)
+-- 表结构在 refresh-sessions-plain.sql / refresh-sessions-partitioned.sql，由 spring.sql.init.schema-locations 选择
+
+-- ---------- SID REVOCATIONS ----------
+-- 只追加的 access token sid 撤销日志，各节点增量拉取到本地黑名单
+CREATE TABLE IF NOT EXISTS sid_revocations (
+                                               id          BIGSERIAL PRIMARY KEY,
+                                               sid         VARCHAR(64) NOT NULL,
+                                               expires_at  TIMESTAMPTZ NOT NULL,
+                                               created_at  TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 
--- Replace the previous invalid partial index (with now()) by composite index:
-CREATE INDEX IF NOT EXISTS ix_refresh_sessions_user_rev_expires
-    ON refresh_sessions(user_id, revoked, expires_at);
-CREATE INDEX IF NOT EXISTS ix_refresh_sessions_user
-    ON refresh_sessions(user_id);
+CREATE INDEX IF NOT EXISTS ix_sid_revocations_expires
+    ON sid_revocations(expires_at);
+CREATE INDEX IF NOT EXISTS ix_sid_revocations_created
+    ON sid_revocations(created_at);
+
+-- ---------- EMAIL OUTBOX ----------
+-- 待发邮件队列：业务只负责插入，EmailOutboxWorker 认领发送、失败退避重试
+CREATE TABLE IF NOT EXISTS email_outbox (
+                                            id               BIGSERIAL PRIMARY KEY,
+                                            recipient        TEXT        NOT NULL,
+                                            subject          TEXT        NOT NULL,
+                                            body             TEXT,                                   -- 发送成功 / 放弃后清空
+                                            status           VARCHAR(16) NOT NULL DEFAULT 'PENDING', -- PENDING / SENT / FAILED
+                                            attempts         INT         NOT NULL DEFAULT 0,
+                                            next_attempt_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+                                            last_error       TEXT,
+                                            created_at       TIMESTAMPTZ NOT NULL DEFAULT now(),
+                                            sent_at          TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS ix_email_outbox_pending
+    ON email_outbox(next_attempt_at) WHERE status = 'PENDING';
+-- 旧库里 body 是 NOT NULL
+ALTER TABLE email_outbox ALTER COLUMN body DROP NOT NULL;
+-- 过期清理按创建时间扫已结束的行
+CREATE INDEX IF NOT EXISTS ix_email_outbox_done
+    ON email_outbox(created_at) WHERE status <> 'PENDING';
 
 -- ---------- Seed permissions & role bindings ----------
 INSERT INTO permissions(code, name) VALUES
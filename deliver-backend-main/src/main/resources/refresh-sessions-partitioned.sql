@@ -0,0 +1,27 @@
+-- =========================================
+-- refresh_sessions：按 expires_at 月份分区（可选，REFRESH_SESSIONS_LAYOUT=partitioned）
+-- 整月过期后 RefreshSessionCompactor 直接 DROP 分区；未来月份的分区也由它提前建好
+-- 注意：已有普通表的库不会自动迁移（CREATE ... IF NOT EXISTS 会跳过），需要手工导数据后换表
+-- =========================================
+
+-- 分区表的主键 / 唯一约束必须带分区键，所以 sid 唯一性改为 (sid, expires_at)；sid 本身是随机 UUID
+CREATE TABLE IF NOT EXISTS refresh_sessions (
+                                                id            BIGSERIAL,
+                                                user_id       BIGINT       NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+                                                sid           VARCHAR(64)  NOT NULL,
+                                                refresh_hash  VARCHAR(128) NOT NULL,
+                                                revoked       BOOLEAN      NOT NULL DEFAULT FALSE,
+                                                expires_at    TIMESTAMPTZ  NOT NULL,
+                                                created_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
+                                                last_used_at  TIMESTAMPTZ,
+                                                device_info   VARCHAR(255),
+                                                PRIMARY KEY (id, expires_at),
+                                                UNIQUE (sid, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+CREATE INDEX IF NOT EXISTS ix_refresh_sessions_user_rev_expires
+    ON refresh_sessions(user_id, revoked, expires_at);
+CREATE INDEX IF NOT EXISTS ix_refresh_sessions_user
+    ON refresh_sessions(user_id);
+CREATE INDEX IF NOT EXISTS ix_refresh_sessions_revoked_created
+    ON refresh_sessions(created_at) WHERE revoked;
@@ -0,0 +1,28 @@
+-- =========================================
+-- refresh_sessions：普通表（默认）
+-- 过期 / 已撤销的行由 RefreshSessionCompactor 分批删除
+-- =========================================
+
+CREATE TABLE IF NOT EXISTS refresh_sessions (
+                                                id            BIGSERIAL PRIMARY KEY,
+                                                user_id       BIGINT       NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+                                                sid           VARCHAR(64)  NOT NULL UNIQUE,
+                                                refresh_hash  VARCHAR(128) NOT NULL,
+                                                revoked       BOOLEAN      NOT NULL DEFAULT FALSE,
+                                                expires_at    TIMESTAMPTZ  NOT NULL,
+                                                created_at    TIMESTAMPTZ  NOT NULL DEFAULT now(),
+                                                last_used_at  TIMESTAMPTZ,
+                                                device_info   VARCHAR(255)
+);
+
+-- Replace the previous invalid partial index (with now()) by composite index:
+CREATE INDEX IF NOT EXISTS ix_refresh_sessions_user_rev_expires
+    ON refresh_sessions(user_id, revoked, expires_at);
+CREATE INDEX IF NOT EXISTS ix_refresh_sessions_user
+    ON refresh_sessions(user_id);
+
+-- 压缩任务按过期时间 / 撤销时间找行
+CREATE INDEX IF NOT EXISTS ix_refresh_sessions_expires
+    ON refresh_sessions(expires_at);
+CREATE INDEX IF NOT EXISTS ix_refresh_sessions_revoked_created
+    ON refresh_sessions(created_at) WHERE revoked;
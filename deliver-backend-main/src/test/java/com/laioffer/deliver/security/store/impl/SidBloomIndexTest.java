@@ -0,0 +1,120 @@
+package com.laioffer.deliver.security.store.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 假时钟逐毫秒推进，让环形桶转很多圈：仍有效的 sid 一个都不能漏（没有假阴性），过期的不能再命中
+class SidBloomIndexTest {
+    private static final long BUCKET_MILLIS = 10;
+    private static final long MAX_TTL_MILLIS = 100;
+    private static final long START = 1_700_000_000_000L;
+
+    private record Entry(String sid, long expiresAt) {}
+
+    @Test
+    void noFalseNegativesAcrossRingRollover() {
+        AtomicLong clock = new AtomicLong(START);
+        SidBloomIndex index = new SidBloomIndex(BUCKET_MILLIS, MAX_TTL_MILLIS, 64, clock::get);
+        Random random = new Random(42);
+        List<Entry> entries = new ArrayList<>();
+        for (int n = 0; n < 20 * MAX_TTL_MILLIS; n++) {
+            long now = clock.get();
+            Entry added = new Entry("sid-" + n, now + 1 + random.nextInt((int) MAX_TTL_MILLIS));
+            index.add(added.sid(), added.expiresAt());
+            entries.add(added);
+
+            Iterator<Entry> it = entries.iterator();
+            while (it.hasNext()) {
+                Entry e = it.next();
+                if (e.expiresAt() > now) {
+                    assertTrue(index.contains(e.sid()), e.sid() + " still valid at " + (now - START));
+                } else {
+                    assertFalse(index.contains(e.sid()), e.sid() + " expired " + (now - e.expiresAt()) + " ms ago");
+                    it.remove();
+                }
+            }
+            clock.incrementAndGet();
+        }
+    }
+
+    @Test
+    void concurrentWritersNeverLoseLiveEntries() throws Exception {
+        AtomicLong clock = new AtomicLong(START);
+        SidBloomIndex index = new SidBloomIndex(BUCKET_MILLIS, MAX_TTL_MILLIS, 64, clock::get);
+        int threads = 4;
+        AtomicLong checks = new AtomicLong();
+        AtomicLong misses = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread writer = new Thread(() -> {
+                Random random = new Random(id);
+                List<Entry> mine = new ArrayList<>();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // 各线程共用一个时钟并轮流推进，桶轮转和并发写交错在一起
+                for (int n = 0; n < 5 * MAX_TTL_MILLIS; n++) {
+                    Entry added = new Entry("t" + id + "-" + n,
+                            clock.get() + 1 + random.nextInt((int) MAX_TTL_MILLIS));
+                    index.add(added.sid(), added.expiresAt());
+                    mine.add(added);
+                    for (Entry e : mine) {
+                        checks.incrementAndGet();
+                        // 其他线程可能在调用期间推进时钟，调用返回后仍有效才算漏判
+                        if (!index.contains(e.sid()) && clock.get() < e.expiresAt()) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                    mine.removeIf(e -> e.expiresAt() <= clock.get());
+                    clock.incrementAndGet();
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertTrue(checks.get() > 0);
+        assertEquals(0, misses.get());
+    }
+
+    @Test
+    void ttlIsCappedAndReAddKeepsLaterExpiry() {
+        AtomicLong clock = new AtomicLong(START);
+        SidBloomIndex index = new SidBloomIndex(BUCKET_MILLIS, MAX_TTL_MILLIS, 64, clock::get);
+        index.add("capped", START + 60_000);
+        index.add("renewed", START + MAX_TTL_MILLIS);
+        index.add("renewed", START + 20);     // 较早的过期时间不会把记录提前
+        index.add("expired", START - 1);
+        assertTrue(index.contains("capped"));
+        assertTrue(index.contains("renewed"));
+        assertFalse(index.contains("expired"));
+        assertFalse(index.contains("never-added"));
+
+        clock.set(START + MAX_TTL_MILLIS / 2);
+        assertTrue(index.contains("renewed"));
+
+        clock.set(START + MAX_TTL_MILLIS - 1);
+        assertTrue(index.contains("capped"));
+        assertTrue(index.contains("renewed"));
+
+        clock.set(START + MAX_TTL_MILLIS);
+        // 超过 access token 最长寿命的 ttl 被截断
+        assertFalse(index.contains("capped"));
+        assertFalse(index.contains("renewed"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.laioffer.robotcontrol.bench;
+
+import com.laioffer.robotcontrol.command.CommandDispatcher;
+import com.laioffer.robotcontrol.command.DeviceCommand;
+import com.laioffer.robotcontrol.command.SimulatedDeviceFleet;
+import com.laioffer.robotcontrol.command.Waypoint;
+import com.laioffer.robotcontrol.device.KnownDevices;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下发链路离线压测：本机回环上跑 CommandDispatcher 和 SimulatedDeviceFleet（默认 2000 台设备，1% 丢包，5% 慢链路）。
+ * 每次操作给每台设备各下发一条 400 个航点（3 块）的路线，等全部确认或失败，时间即一整波下发的耗时。
+ * 结束时打印两端统计：重传次数、模拟器收到的重复块、失败 / 拒绝数，全部路线应当 ACKED。
+ *   gradle jmh -Pjmh.includes=CommandDispatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CommandDispatchBenchmark {
+    private static final int WAYPOINTS = 400;
+
+    @Param({"2000"})
+    public int devices;
+
+    @Param({"0.01"})
+    public double lossRate;
+
+    private CommandDispatcher dispatcher;
+    private SimulatedDeviceFleet fleet;
+    private List<Waypoint> route;
+    private long lastFailed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        KnownDevices knownDevices = new KnownDevices(null, 0);
+        dispatcher = new CommandDispatcher(knownDevices, 0, 4, 8, 170, 50, 8, 30_000, 5, 4 << 20, devices, 600_000);
+        dispatcher.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        fleet = new SimulatedDeviceFleet(knownDevices, devices, 0, lossRate, 0, 0.05, 100, 1000);
+        fleet.start(dispatcher.localAddress());
+        route = new ArrayList<>(WAYPOINTS);
+        for (int i = 0; i < WAYPOINTS; i++) {
+            route.add(new Waypoint(37.7 + i * 1e-5, -122.4 - i * 1e-5));
+        }
+        // 等所有模拟设备登记地址
+        while (dispatcher.stats().devices() < devices) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n%s%n%s%n", dispatcher.stats(), fleet.stats());
+        fleet.stop();
+        dispatcher.stop();
+    }
+
+    @Benchmark
+    public int wave() throws InterruptedException {
+        List<DeviceCommand> commands = new ArrayList<>(devices);
+        for (int i = 0; i < devices; i++) {
+            commands.add(dispatcher.submit(SimulatedDeviceFleet.deviceId(i), route));
+        }
+        for (DeviceCommand command : commands) {
+            while (!command.isFinished()) {
+                Thread.sleep(1);
+            }
+        }
+        long failed = dispatcher.stats().failed();
+        if (failed != lastFailed) {
+            System.out.printf("%n%d routes failed in this wave%n", failed - lastFailed);
+            lastFailed = failed;
+        }
+        return commands.size();
+    }
+}
@@ -0,0 +1,75 @@
+package com.laioffer.robotcontrol.bench;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import com.laioffer.robotcontrol.telemetry.TelemetryFrame;
+import com.laioffer.robotcontrol.telemetry.TelemetryTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 遥测写入吞吐：每次操作解析一个含 32 帧的数据报并合并进 TelemetryTable。
+ * 帧数/秒 = ops/s * 32；目标单节点 5 万条/秒。加 -prof gc：每次操作的 64 B 来自这里的 duplicate()，解析和合并本身不分配。
+ *   gradle jmh -Pjmh.includes=TelemetryIngestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class TelemetryIngestBenchmark {
+    private static final int FRAMES_PER_DATAGRAM = 32;
+    private static final int DATAGRAMS = 1024;
+
+    @Param({"10000"})
+    public int devices;
+
+    private TelemetryTable table;
+    private ByteBuffer[] datagrams;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> ids = new ArrayList<>(devices);
+        for (int i = 0; i < devices; i++) {
+            ids.add("ROBOT-" + i);
+        }
+        KnownDevices knownDevices = new KnownDevices(null, 0);
+        knownDevices.replace(ids);
+        table = new TelemetryTable(knownDevices, devices);
+        datagrams = new ByteBuffer[DATAGRAMS];
+        long now = System.currentTimeMillis();
+        int device = 0;
+        for (int d = 0; d < DATAGRAMS; d++) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(FRAMES_PER_DATAGRAM * TelemetryFrame.SIZE);
+            for (int f = 0; f < FRAMES_PER_DATAGRAM; f++) {
+                TelemetryFrame.write(buf, "ROBOT-" + (device++ % devices), 37.7 + f * 1e-4, -122.4 - d * 1e-5,
+                        80, now + d);
+            }
+            buf.flip();
+            datagrams[d] = buf;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public int ingestDatagram(Cursor cursor) {
+        ByteBuffer buf = datagrams[cursor.next++ & (DATAGRAMS - 1)];
+        return TelemetryFrame.ingestAll(buf.duplicate(), table);
+    }
+
+    // 模拟落库线程定期取走脏数据（不含写库本身）
+    @Benchmark
+    @Threads(1)
+    public int drain() {
+        return table.drainDirty().size();
+    }
+}
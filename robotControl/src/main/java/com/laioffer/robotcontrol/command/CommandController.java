@@ -0,0 +1,56 @@
+package com.laioffer.robotcontrol.command;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// 路线下发入口：接受后异步发送，用 commandId 查询进度；设备队列满时返回 429，未登记的设备、超长路线返回 400
+@RestController
+@RequestMapping("/api/commands")
+public class CommandController {
+
+    public record RouteCommand(String deviceId, List<Waypoint> waypoints) {}
+
+    private final CommandDispatcher dispatcher;
+
+    public CommandController(CommandDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @PostMapping
+    public ResponseEntity<DeviceCommand.View> submit(@RequestBody RouteCommand request) {
+        if (!CommandFrame.isValidDeviceId(request.deviceId()) || request.waypoints() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        DeviceCommand command = dispatcher.submit(request.deviceId(), request.waypoints());
+        if (command.status() == DeviceCommand.Status.REJECTED) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").body(command.view());
+        }
+        return ResponseEntity.accepted().body(command.view());
+    }
+
+    @GetMapping("/{commandId}")
+    public ResponseEntity<DeviceCommand.View> status(@PathVariable long commandId) {
+        DeviceCommand command = dispatcher.find(commandId);
+        return command == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(command.view());
+    }
+
+    @GetMapping("/stats")
+    public CommandDispatcher.Stats stats() {
+        return dispatcher.stats();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
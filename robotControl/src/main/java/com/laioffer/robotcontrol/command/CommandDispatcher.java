@@ -0,0 +1,374 @@
+package com.laioffer.robotcontrol.command;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路线下发：每台设备一个有界命令队列，命令按 CommandFrame 切块后用 UDP 发出，设备逐块确认。
+ * 每台设备同时在途的块数有上限（发送窗口）：链路慢时确认回得慢，窗口占满就停发，
+ * 命令在队列里积压，队列满了新命令直接拒绝，由调用方稍后重试（背压）。
+ * 超时未确认的块按指数退避重传，超过次数整条命令失败；创建后太久没完成的命令过期。
+ * 设备通过 HELLO 登记地址，之前的命令只排队不发送；只有 devices 表里登记过的设备能 HELLO / 接收命令，
+ * 链路数不超过 command.max-links，空闲且超过 link-timeout-millis 没有 HELLO 的链路会被回收。
+ */
+@Component
+public class CommandDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(CommandDispatcher.class);
+
+    private static final int MAX_DATAGRAM = 65_507;
+    // 已结束的命令保留一段时间供查询
+    private static final long RETAIN_MILLIS = 60_000;
+
+    public record Stats(long submitted, long rejected, long acked, long failed, long expired,
+                        long chunksSent, long retransmits, int devices, int activeDevices) {}
+
+    private final KnownDevices knownDevices;
+    private final int port;
+    private final int receiveBufferBytes;
+    private final int queueCapacity;
+    private final int windowChunks;
+    private final int waypointsPerChunk;
+    private final long retransmitMillis;
+    private final int maxAttempts;
+    private final long expireMillis;
+    private final long tickMillis;
+    private final int maxLinks;
+    private final long linkTimeoutMillis;
+
+    private final Map<String, DeviceLink> links = new ConcurrentHashMap<>();
+    private final Map<Long, DeviceCommand> commands = new ConcurrentHashMap<>();
+    // 有排队或在途命令的设备，定时任务只扫这些
+    private final Set<DeviceLink> active = ConcurrentHashMap.newKeySet();
+    // 以启动时间为起点，重启后命令号不会和设备上残留的旧命令撞上
+    private final AtomicLong nextCommandId = new AtomicLong(System.currentTimeMillis() << 16);
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder chunksSent = new LongAdder();
+    private final LongAdder retransmits = new LongAdder();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "command-dispatch");
+        t.setDaemon(true);
+        return t;
+    });
+    private DatagramChannel channel;
+    private long lastPrune;
+
+    public CommandDispatcher(KnownDevices knownDevices,
+                             @Value("${command.udp.port:0}") int port,
+                             @Value("${command.queue-capacity:4}") int queueCapacity,
+                             @Value("${command.window-chunks:8}") int windowChunks,
+                             @Value("${command.waypoints-per-chunk:170}") int waypointsPerChunk,
+                             @Value("${command.retransmit-millis:200}") long retransmitMillis,
+                             @Value("${command.max-attempts:5}") int maxAttempts,
+                             @Value("${command.expire-millis:30000}") long expireMillis,
+                             @Value("${command.tick-millis:10}") long tickMillis,
+                             @Value("${command.udp.receive-buffer-bytes:4194304}") int receiveBufferBytes,
+                             @Value("${command.max-links:100000}") int maxLinks,
+                             @Value("${command.link-timeout-millis:600000}") long linkTimeoutMillis) {
+        this.knownDevices = knownDevices;
+        this.port = port;
+        this.receiveBufferBytes = receiveBufferBytes;
+        this.queueCapacity = queueCapacity;
+        this.windowChunks = windowChunks;
+        this.waypointsPerChunk = Math.max(1, Math.min(waypointsPerChunk, CommandFrame.MAX_WAYPOINTS_PER_CHUNK));
+        this.retransmitMillis = retransmitMillis;
+        this.maxAttempts = maxAttempts;
+        this.expireMillis = expireMillis;
+        this.tickMillis = tickMillis;
+        this.maxLinks = maxLinks;
+        this.linkTimeoutMillis = linkTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (port <= 0) {
+            return; // 未配置端口则不开下发通道
+        }
+        open(new InetSocketAddress(port));
+    }
+
+    // 绑定下发端口并启动收包线程和定时重传；压测时绑定到回环地址的临时端口
+    public void open(InetSocketAddress bind) throws IOException {
+        channel = DatagramChannel.open();
+        // 成千上万台设备的 HELLO / 确认会集中到达，内核缓冲调大
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+        channel.bind(bind);
+        Thread receiver = new Thread(this::receiveLoop, "command-udp");
+        receiver.setDaemon(true);
+        receiver.start();
+        scheduler.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("command dispatch listening on {}", channel.getLocalAddress());
+    }
+
+    public InetSocketAddress localAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        scheduler.shutdown();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // 入队一条路线命令；队列已满（或链路数已满）时返回状态为 REJECTED 的命令，不会入队
+    public DeviceCommand submit(String deviceId, List<Waypoint> waypoints) {
+        if (!CommandFrame.isValidDeviceId(deviceId)) {
+            throw new IllegalArgumentException("invalid deviceId: " + deviceId);
+        }
+        if (!knownDevices.contains(deviceId)) {
+            throw new IllegalArgumentException("unknown deviceId: " + deviceId);
+        }
+        if ((waypoints.size() + (long) waypointsPerChunk - 1) / waypointsPerChunk > CommandFrame.MAX_CHUNKS) {
+            throw new IllegalArgumentException("route too long: " + waypoints.size() + " waypoints");
+        }
+        long now = System.currentTimeMillis();
+        long id = nextCommandId.incrementAndGet();
+        DeviceCommand command = new DeviceCommand(id, deviceId,
+                CommandFrame.encodeChunks(deviceId, id, waypoints, waypointsPerChunk), now);
+        while (true) {
+            DeviceLink link = linkFor(deviceId, now);
+            if (link == null) {
+                command.finish(DeviceCommand.Status.REJECTED, now);
+                rejected.increment();
+                return command;
+            }
+            synchronized (link) {
+                // 拿锁前链路被回收了，换新链路重试
+                if (links.get(deviceId) != link) {
+                    continue;
+                }
+                if (link.queue.size() >= queueCapacity) {
+                    command.finish(DeviceCommand.Status.REJECTED, now);
+                    rejected.increment();
+                    return command;
+                }
+                link.queue.add(command);
+                commands.put(id, command);
+                active.add(link);
+                pump(link, now);
+            }
+            submitted.increment();
+            return command;
+        }
+    }
+
+    public DeviceCommand find(long commandId) {
+        return commands.get(commandId);
+    }
+
+    public Stats stats() {
+        return new Stats(submitted.sum(), rejected.sum(), acked.sum(), failed.sum(), expired.sum(),
+                chunksSent.sum(), retransmits.sum(), links.size(), active.size());
+    }
+
+    // 链路数已满时返回 null；新链路的 lastHelloAt 从创建时算起，长时间不 HELLO 也会被回收
+    private DeviceLink linkFor(String deviceId, long now) {
+        DeviceLink link = links.get(deviceId);
+        if (link != null || links.size() >= maxLinks) {
+            return link;
+        }
+        return links.computeIfAbsent(deviceId, id -> {
+            DeviceLink created = new DeviceLink(id);
+            created.lastHelloAt = now;
+            return created;
+        });
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+        while (channel.isOpen()) {
+            try {
+                buf.clear();
+                SocketAddress from = channel.receive(buf);
+                if (from == null) {
+                    continue;
+                }
+                buf.flip();
+                onDatagram(buf, from);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("command UDP receive failed", e);
+            }
+        }
+    }
+
+    private void onDatagram(ByteBuffer buf, SocketAddress from) {
+        byte type = CommandFrame.type(buf, 0);
+        if (type != CommandFrame.TYPE_ACK && type != CommandFrame.TYPE_HELLO) {
+            return;
+        }
+        String deviceId = CommandFrame.deviceId(buf, 0);
+        long now = System.currentTimeMillis();
+        DeviceLink link;
+        if (type == CommandFrame.TYPE_HELLO) {
+            // 只有登记过的设备能建链路 / 改地址；确认帧不改地址，伪造的确认不能把下发引到别处
+            link = knownDevices.contains(deviceId) ? linkFor(deviceId, now) : null;
+            if (link == null) {
+                return;
+            }
+            link.address = from;
+            link.lastHelloAt = now;
+        } else {
+            link = links.get(deviceId);
+            if (link == null) {
+                return;
+            }
+        }
+        synchronized (link) {
+            if (type == CommandFrame.TYPE_ACK) {
+                onAck(link, CommandFrame.commandId(buf, 0), CommandFrame.chunkIndex(buf, 0), now);
+            }
+            // 收到确认后立即补发窗口里空出来的块，不等下一次定时任务
+            pump(link, now);
+        }
+    }
+
+    // 重复确认、旧命令迟到的确认直接忽略
+    private void onAck(DeviceLink link, long commandId, int chunk, long now) {
+        DeviceCommand c = link.current;
+        if (c == null || c.id != commandId || chunk >= c.nextUnsent || c.acked[chunk]) {
+            return;
+        }
+        c.acked[chunk] = true;
+        c.inFlight--;
+        c.ackedCount++;
+        while (c.firstUnacked < c.nextUnsent && c.acked[c.firstUnacked]) {
+            c.firstUnacked++;
+        }
+        if (c.ackedCount == c.chunks.length) {
+            finish(link, c, DeviceCommand.Status.ACKED, now);
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (DeviceLink link : active) {
+            synchronized (link) {
+                pump(link, now);
+                if (link.isIdle()) {
+                    active.remove(link);
+                }
+            }
+        }
+        if (now - lastPrune >= 1000) {
+            lastPrune = now;
+            commands.values().removeIf(c -> c.isFinished() && now - c.finishedAt() > RETAIN_MILLIS);
+            pruneLinks(now);
+        }
+    }
+
+    // 回收空闲链路：设备已从 devices 表删除，或者太久没有 HELLO
+    private void pruneLinks(long now) {
+        for (DeviceLink link : links.values()) {
+            if (knownDevices.contains(link.deviceId) && now - link.lastHelloAt <= linkTimeoutMillis) {
+                continue;
+            }
+            synchronized (link) {
+                if (link.isIdle()) {
+                    links.remove(link.deviceId, link);
+                }
+            }
+        }
+    }
+
+    // 在 link 锁内调用：处理过期和超时重传，再把窗口填满；当前命令结束后接着发队列里的下一条
+    private void pump(DeviceLink link, long now) {
+        while (true) {
+            DeviceCommand c = link.current;
+            if (c == null) {
+                c = link.queue.poll();
+                if (c == null) {
+                    return;
+                }
+                link.current = c;
+                c.markSending();
+            }
+            if (now - c.createdAt > expireMillis) {
+                finish(link, c, DeviceCommand.Status.EXPIRED, now);
+                continue;
+            }
+            SocketAddress address = link.address;
+            if (address == null || channel == null) {
+                return;
+            }
+            if (!retransmit(c, address, now)) {
+                finish(link, c, DeviceCommand.Status.FAILED, now);
+                continue;
+            }
+            while (c.inFlight < windowChunks && c.nextUnsent < c.chunks.length) {
+                send(c, c.nextUnsent++, address, now);
+                c.inFlight++;
+            }
+            return;
+        }
+    }
+
+    // 重传超时的块；某块发送次数用完时返回 false
+    private boolean retransmit(DeviceCommand c, SocketAddress address, long now) {
+        for (int i = c.firstUnacked; i < c.nextUnsent; i++) {
+            if (c.acked[i] || now - c.sentAt[i] < (retransmitMillis << Math.min(c.attempts[i] - 1, 6))) {
+                continue;
+            }
+            if (c.attempts[i] >= maxAttempts) {
+                return false;
+            }
+            send(c, i, address, now);
+            c.retransmits++;
+            retransmits.increment();
+        }
+        return true;
+    }
+
+    private void send(DeviceCommand c, int chunk, SocketAddress address, long now) {
+        c.sentAt[chunk] = now;
+        c.attempts[chunk]++;
+        try {
+            channel.send(ByteBuffer.wrap(c.chunks[chunk]), address);
+            chunksSent.increment();
+        } catch (IOException e) {
+            // 发送失败按丢包处理，等超时重传
+            log.warn("command send to {} failed: {}", c.deviceId, e.getMessage());
+        }
+    }
+
+    private void finish(DeviceLink link, DeviceCommand c, DeviceCommand.Status status, long now) {
+        c.finish(status, now);
+        link.current = null;
+        switch (status) {
+            case ACKED -> acked.increment();
+            case FAILED -> failed.increment();
+            case EXPIRED -> expired.increment();
+            default -> { }
+        }
+    }
+}
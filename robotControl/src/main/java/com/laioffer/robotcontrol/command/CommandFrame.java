@@ -0,0 +1,124 @@
+package com.laioffer.robotcontrol.command;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 下行命令 / 上行确认的 UDP 帧（大端），36 字节头 + 航点：
+ * <pre>
+ *  0  u16  magic 0x5243 ("RC")
+ *  2  u8   version = 1
+ *  3  u8   类型：1 航点块（下行）、2 确认（上行）、3 HELLO（上行，登记设备地址）
+ *  4  16B  deviceId，ASCII，不足补 0
+ * 20  i64  commandId（HELLO 为 0）
+ * 28  u16  块序号
+ * 30  u16  总块数
+ * 32  u16  本块航点数（确认 / HELLO 为 0）
+ * 34  u16  保留
+ * 36  航点数 × (i32 纬度 * 1e7, i32 经度 * 1e7)
+ * </pre>
+ * 一条路线按块切分，每块一个数据报，控制在常见 MTU 以内不分片；设备按块确认。
+ */
+public final class CommandFrame {
+    public static final int HEADER_SIZE = 36;
+    public static final int WAYPOINT_SIZE = 8;
+    public static final short MAGIC = 0x5243;
+    public static final byte VERSION = 1;
+    public static final byte TYPE_WAYPOINTS = 1;
+    public static final byte TYPE_ACK = 2;
+    public static final byte TYPE_HELLO = 3;
+    public static final int MAX_DEVICE_ID_LENGTH = 16;
+    // 36 + 170 * 8 = 1396 字节，低于以太网 1472 字节的 UDP 载荷上限
+    public static final int MAX_WAYPOINTS_PER_CHUNK = 170;
+    // 块序号和总块数都是 u16
+    public static final int MAX_CHUNKS = 0xffff;
+
+    private CommandFrame() {
+    }
+
+    // 把路线切成若干块并编码好，重传时直接复用
+    public static byte[][] encodeChunks(String deviceId, long commandId, List<Waypoint> waypoints, int perChunk) {
+        int chunkCount = Math.max(1, (waypoints.size() + perChunk - 1) / perChunk);
+        byte[][] chunks = new byte[chunkCount][];
+        for (int c = 0; c < chunkCount; c++) {
+            int from = c * perChunk;
+            int to = Math.min(waypoints.size(), from + perChunk);
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + (to - from) * WAYPOINT_SIZE);
+            writeHeader(buf, TYPE_WAYPOINTS, deviceId, commandId, c, chunkCount, to - from);
+            for (int i = from; i < to; i++) {
+                Waypoint w = waypoints.get(i);
+                buf.putInt((int) Math.round(w.lat() * 1e7)).putInt((int) Math.round(w.lng() * 1e7));
+            }
+            chunks[c] = buf.array();
+        }
+        return chunks;
+    }
+
+    // 确认 / HELLO 帧（设备端 / 模拟器用），写在 buf 当前位置
+    public static void writeControl(ByteBuffer buf, byte type, String deviceId, long commandId, int chunkIndex) {
+        writeHeader(buf, type, deviceId, commandId, chunkIndex, 0, 0);
+    }
+
+    public static void writeHeader(ByteBuffer buf, byte type, String deviceId, long commandId,
+                                   int chunkIndex, int chunkCount, int waypointCount) {
+        byte[] id = deviceId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length > MAX_DEVICE_ID_LENGTH) {
+            throw new IllegalArgumentException("deviceId too long: " + deviceId);
+        }
+        buf.putShort(MAGIC).put(VERSION).put(type);
+        buf.put(id);
+        for (int i = id.length; i < MAX_DEVICE_ID_LENGTH; i++) {
+            buf.put((byte) 0);
+        }
+        buf.putLong(commandId);
+        buf.putShort((short) chunkIndex).putShort((short) chunkCount).putShort((short) waypointCount).putShort((short) 0);
+    }
+
+    // 头部合法时返回类型，否则返回 0；buf 从 offset 开始
+    public static byte type(ByteBuffer buf, int offset) {
+        if (buf.limit() - offset < HEADER_SIZE || buf.getShort(offset) != MAGIC || buf.get(offset + 2) != VERSION) {
+            return 0;
+        }
+        return buf.get(offset + 3);
+    }
+
+    public static String deviceId(ByteBuffer buf, int offset) {
+        int length = 0;
+        while (length < MAX_DEVICE_ID_LENGTH && buf.get(offset + 4 + length) != 0) {
+            length++;
+        }
+        byte[] id = new byte[length];
+        buf.get(offset + 4, id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    public static long commandId(ByteBuffer buf, int offset) {
+        return buf.getLong(offset + 20);
+    }
+
+    public static int chunkIndex(ByteBuffer buf, int offset) {
+        return buf.getShort(offset + 28) & 0xffff;
+    }
+
+    public static int chunkCount(ByteBuffer buf, int offset) {
+        return buf.getShort(offset + 30) & 0xffff;
+    }
+
+    public static int waypointCount(ByteBuffer buf, int offset) {
+        return buf.getShort(offset + 32) & 0xffff;
+    }
+
+    static boolean isValidDeviceId(String deviceId) {
+        if (deviceId == null || deviceId.isEmpty() || deviceId.length() > MAX_DEVICE_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < deviceId.length(); i++) {
+            char c = deviceId.charAt(i);
+            if (c == 0 || c > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
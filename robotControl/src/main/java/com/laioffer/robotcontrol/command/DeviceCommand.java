@@ -0,0 +1,66 @@
+package com.laioffer.robotcontrol.command;
+
+// 一条下发给设备的路线命令；发送窗口相关字段只在所属 DeviceLink 的锁内读写
+public final class DeviceCommand {
+
+    public enum Status { QUEUED, SENDING, ACKED, FAILED, EXPIRED, REJECTED }
+
+    public record View(long commandId, String deviceId, Status status, int chunks, int ackedChunks,
+                       int retransmits, long createdAt, long finishedAt) {}
+
+    final long id;
+    final String deviceId;
+    final byte[][] chunks;
+    final long createdAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile long finishedAt;
+
+    // 每块的发送时间、已发送次数、是否已确认
+    final long[] sentAt;
+    final int[] attempts;
+    final boolean[] acked;
+    int nextUnsent;
+    int firstUnacked;
+    int inFlight;
+    volatile int ackedCount;
+    volatile int retransmits;
+
+    DeviceCommand(long id, String deviceId, byte[][] chunks, long createdAt) {
+        this.id = id;
+        this.deviceId = deviceId;
+        this.chunks = chunks;
+        this.createdAt = createdAt;
+        this.sentAt = new long[chunks.length];
+        this.attempts = new int[chunks.length];
+        this.acked = new boolean[chunks.length];
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    long finishedAt() {
+        return finishedAt;
+    }
+
+    void markSending() {
+        status = Status.SENDING;
+    }
+
+    void finish(Status finalStatus, long now) {
+        status = finalStatus;
+        finishedAt = now;
+    }
+
+    public View view() {
+        return new View(id, deviceId, status, chunks.length, ackedCount, retransmits, createdAt, finishedAt);
+    }
+}
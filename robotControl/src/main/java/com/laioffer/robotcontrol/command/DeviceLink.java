@@ -0,0 +1,22 @@
+package com.laioffer.robotcontrol.command;
+
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+
+// 单台设备的下行链路：有界命令队列 + 正在发送的命令；除 address / lastHelloAt 外都在 link 自身的锁内访问
+final class DeviceLink {
+    final String deviceId;
+    // 最近一次 HELLO 的来源地址，设备换网络后重新 HELLO 即更新
+    volatile SocketAddress address;
+    volatile long lastHelloAt;
+    final ArrayDeque<DeviceCommand> queue = new ArrayDeque<>();
+    DeviceCommand current;
+
+    DeviceLink(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    boolean isIdle() {
+        return current == null && queue.isEmpty();
+    }
+}
@@ -0,0 +1,221 @@
+package com.laioffer.robotcontrol.command;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地模拟设备，离线压测下发链路用：一个 UDP socket 扮演成千上万台设备（SIM0、SIM1…）。
+ * 启动后定期替每台设备发 HELLO；收到航点块按 loss-rate 丢弃，其余逐块确认，
+ * 按 slow-fraction 抽一部分设备模拟慢链路，确认延迟 slow-ack-delay-millis。
+ * command.simulator.devices 为 0（默认）时不启动。
+ */
+@Component
+public class SimulatedDeviceFleet {
+    private static final Logger log = LoggerFactory.getLogger(SimulatedDeviceFleet.class);
+
+    private static final String ID_PREFIX = "SIM";
+    private static final int MAX_DATAGRAM = 65_507;
+
+    public record Stats(long chunksReceived, long duplicateChunks, long dropped, long routesCompleted) {}
+
+    private final KnownDevices knownDevices;
+    private final int deviceCount;
+    private final int dispatcherPort;
+    private final double lossRate;
+    private final long ackDelayMillis;
+    private final long slowAckDelayMillis;
+    private final long helloMillis;
+    private final boolean[] slow;
+
+    // 收包线程独占，不需要加锁
+    private final long[] currentCommand;
+    private final BitSet[] receivedChunks;
+
+    private final LongAdder chunksReceived = new LongAdder();
+    private final LongAdder duplicateChunks = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder routesCompleted = new LongAdder();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "command-simulator");
+        t.setDaemon(true);
+        return t;
+    });
+    private DatagramChannel channel;
+    private SocketAddress dispatcher;
+
+    public SimulatedDeviceFleet(KnownDevices knownDevices,
+                                @Value("${command.simulator.devices:0}") int deviceCount,
+                                @Value("${command.udp.port:0}") int dispatcherPort,
+                                @Value("${command.simulator.loss-rate:0.0}") double lossRate,
+                                @Value("${command.simulator.ack-delay-millis:0}") long ackDelayMillis,
+                                @Value("${command.simulator.slow-fraction:0.0}") double slowFraction,
+                                @Value("${command.simulator.slow-ack-delay-millis:500}") long slowAckDelayMillis,
+                                @Value("${command.simulator.hello-millis:5000}") long helloMillis) {
+        this.knownDevices = knownDevices;
+        this.deviceCount = deviceCount;
+        this.dispatcherPort = dispatcherPort;
+        this.lossRate = lossRate;
+        this.ackDelayMillis = ackDelayMillis;
+        this.slowAckDelayMillis = slowAckDelayMillis;
+        this.helloMillis = helloMillis;
+        this.slow = new boolean[deviceCount];
+        this.currentCommand = new long[deviceCount];
+        this.receivedChunks = new BitSet[deviceCount];
+        Random random = new Random(42); // 固定种子，每次压测慢设备是同一批
+        for (int i = 0; i < deviceCount; i++) {
+            slow[i] = random.nextDouble() < slowFraction;
+            receivedChunks[i] = new BitSet();
+        }
+    }
+
+    public static String deviceId(int index) {
+        return ID_PREFIX + index;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (deviceCount <= 0 || dispatcherPort <= 0) {
+            return;
+        }
+        start(new InetSocketAddress(InetAddress.getLoopbackAddress(), dispatcherPort));
+    }
+
+    public void start(InetSocketAddress dispatcherAddress) throws IOException {
+        // 模拟设备不在 devices 表里，登记后下发通道才认
+        List<String> ids = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            ids.add(deviceId(i));
+        }
+        knownDevices.registerLocal(ids);
+        dispatcher = dispatcherAddress;
+        channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, 4 << 20);
+        channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread receiver = new Thread(this::receiveLoop, "command-simulator-udp");
+        receiver.setDaemon(true);
+        receiver.start();
+        scheduler.scheduleWithFixedDelay(this::helloAll, 0, helloMillis, TimeUnit.MILLISECONDS);
+        log.info("simulating {} devices against {}", deviceCount, dispatcherAddress);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        scheduler.shutdown();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(chunksReceived.sum(), duplicateChunks.sum(), dropped.sum(), routesCompleted.sum());
+    }
+
+    private void helloAll() {
+        for (int i = 0; i < deviceCount; i++) {
+            sendControl(CommandFrame.TYPE_HELLO, deviceId(i), 0, 0);
+        }
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+        while (channel.isOpen()) {
+            try {
+                buf.clear();
+                if (channel.receive(buf) == null) {
+                    continue;
+                }
+                buf.flip();
+                onChunk(buf);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("simulator receive failed", e);
+            }
+        }
+    }
+
+    private void onChunk(ByteBuffer buf) {
+        if (CommandFrame.type(buf, 0) != CommandFrame.TYPE_WAYPOINTS) {
+            return;
+        }
+        String deviceId = CommandFrame.deviceId(buf, 0);
+        int device = index(deviceId);
+        if (device < 0) {
+            return;
+        }
+        if (lossRate > 0 && ThreadLocalRandom.current().nextDouble() < lossRate) {
+            dropped.increment();
+            return;
+        }
+        chunksReceived.increment();
+        long commandId = CommandFrame.commandId(buf, 0);
+        int chunk = CommandFrame.chunkIndex(buf, 0);
+        BitSet received = receivedChunks[device];
+        if (currentCommand[device] != commandId) {
+            currentCommand[device] = commandId;
+            received.clear();
+        }
+        if (received.get(chunk)) {
+            duplicateChunks.increment(); // 确认丢了或太慢导致的重传，照样再确认一次
+        } else {
+            received.set(chunk);
+            if (received.cardinality() == CommandFrame.chunkCount(buf, 0)) {
+                routesCompleted.increment();
+            }
+        }
+        long delay = slow[device] ? slowAckDelayMillis : ackDelayMillis;
+        if (delay <= 0) {
+            sendControl(CommandFrame.TYPE_ACK, deviceId, commandId, chunk);
+        } else {
+            scheduler.schedule(() -> sendControl(CommandFrame.TYPE_ACK, deviceId, commandId, chunk),
+                    delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sendControl(byte type, String deviceId, long commandId, int chunk) {
+        ByteBuffer buf = ByteBuffer.allocate(CommandFrame.HEADER_SIZE);
+        CommandFrame.writeControl(buf, type, deviceId, commandId, chunk);
+        buf.flip();
+        try {
+            channel.send(buf, dispatcher);
+        } catch (IOException e) {
+            log.warn("simulator send failed: {}", e.getMessage());
+        }
+    }
+
+    private int index(String deviceId) {
+        if (!deviceId.startsWith(ID_PREFIX)) {
+            return -1;
+        }
+        try {
+            int i = Integer.parseInt(deviceId, ID_PREFIX.length(), deviceId.length(), 10);
+            return i < deviceCount ? i : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
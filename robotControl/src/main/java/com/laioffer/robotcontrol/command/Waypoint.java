@@ -0,0 +1,3 @@
+package com.laioffer.robotcontrol.command;
+
+public record Waypoint(double lat, double lng) {}
@@ -0,0 +1,74 @@
+package com.laioffer.robotcontrol.device;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * devices 表里登记过的设备 id，定时从库里整表重新加载。
+ * 遥测和命令通道只接受登记过的设备：未知 id 不占内存，也不会每轮产生空跑的 UPDATE。
+ * 第一次加载成功之前（库不可用）所有设备都不接受，新登记的设备最多等一个刷新周期生效。
+ * 进程内的模拟设备不在库里，由模拟器启动时单独登记。
+ */
+@Component
+public class KnownDevices {
+    private static final Logger log = LoggerFactory.getLogger(KnownDevices.class);
+
+    private final JdbcTemplate jdbc;
+    private final long refreshMillis;
+    private volatile Set<String> ids = Set.of();
+    private final Set<String> local = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "known-devices");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public KnownDevices(JdbcTemplate jdbc, @Value("${devices.refresh-millis:30000}") long refreshMillis) {
+        this.jdbc = jdbc;
+        this.refreshMillis = refreshMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        refresh();
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    void refresh() {
+        try {
+            replace(jdbc.queryForList("SELECT device_id FROM devices", String.class));
+        } catch (RuntimeException e) {
+            // 加载失败保留上一次的结果
+            log.warn("loading device ids failed: {}", e.getMessage());
+        }
+    }
+
+    public void replace(Collection<String> deviceIds) {
+        ids = Set.copyOf(deviceIds);
+    }
+
+    public void registerLocal(Collection<String> deviceIds) {
+        local.addAll(deviceIds);
+    }
+
+    public boolean contains(String deviceId) {
+        return ids.contains(deviceId) || (!local.isEmpty() && local.contains(deviceId));
+    }
+}
@@ -0,0 +1,43 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+// HTTP 上报入口：JSON 批量，或二进制帧批量（与 UDP 同一格式）
+@RestController
+@RequestMapping("/api/telemetry")
+public class TelemetryController {
+
+    public record TelemetryReport(String deviceId, double lat, double lng, int battery, long timestamp) {}
+
+    public record IngestResult(int received, int accepted) {}
+
+    private final TelemetryTable table;
+
+    public TelemetryController(TelemetryTable table) {
+        this.table = table;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public IngestResult ingest(@RequestBody List<TelemetryReport> reports) {
+        int accepted = 0;
+        for (TelemetryReport r : reports) {
+            if (table.update(r.deviceId(), r.lat(), r.lng(), r.battery(), r.timestamp())) {
+                accepted++;
+            }
+        }
+        return new IngestResult(reports.size(), accepted);
+    }
+
+    @PostMapping(value = "/frames", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public IngestResult ingestFrames(@RequestBody byte[] body) {
+        int accepted = TelemetryFrame.ingestAll(ByteBuffer.wrap(body), table);
+        return new IngestResult(body.length / TelemetryFrame.SIZE, accepted);
+    }
+}
@@ -0,0 +1,114 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 定时把 TelemetryTable 里有变化的设备批量写回 devices 表；每台设备每轮最多写一次
+// 配置了 telemetry.forward-url 时，同一批数据再推给 routeplanning 的实时状态表，规划侧不用等数据库
+// 推送带连接 / 读超时，routeplanning 卡住时不会拖住落库线程
+@Component
+public class TelemetryFlusher {
+    private static final Logger log = LoggerFactory.getLogger(TelemetryFlusher.class);
+
+    private final TelemetryTable table;
+    private final KnownDevices knownDevices;
+    private final JdbcTemplate jdbc;
+    private final long flushMillis;
+    private final int batchSize;
+    private final RestClient forwardClient;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "telemetry-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public TelemetryFlusher(TelemetryTable table, KnownDevices knownDevices, JdbcTemplate jdbc,
+                            @Value("${telemetry.flush-millis:500}") long flushMillis,
+                            @Value("${telemetry.flush-batch-size:1000}") int batchSize,
+                            @Value("${telemetry.forward-url:}") String forwardUrl,
+                            @Value("${telemetry.forward-connect-timeout-millis:1000}") int connectTimeoutMillis,
+                            @Value("${telemetry.forward-read-timeout-millis:2000}") int readTimeoutMillis,
+                            RestClient.Builder restClientBuilder) {
+        this.table = table;
+        this.knownDevices = knownDevices;
+        this.jdbc = jdbc;
+        this.flushMillis = flushMillis;
+        this.batchSize = batchSize;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMillis);
+        requestFactory.setReadTimeout(readTimeoutMillis);
+        this.forwardClient = forwardUrl.isBlank() ? null
+                : restClientBuilder.baseUrl(forwardUrl).requestFactory(requestFactory).build();
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    void flush() {
+        List<TelemetryTable.DeviceUpdate> updates = table.drainDirty();
+        // 入表之后才从 devices 里删掉的设备不再写库
+        updates.removeIf(u -> !knownDevices.contains(u.deviceId()));
+        if (updates.isEmpty()) {
+            return;
+        }
+        try {
+            jdbc.batchUpdate("UPDATE devices SET latitude = ?, longitude = ?, battery = ? WHERE device_id = ?",
+                    updates, batchSize, (ps, u) -> {
+                        ps.setDouble(1, u.lat());
+                        ps.setDouble(2, u.lng());
+                        ps.setInt(3, u.battery());
+                        ps.setString(4, u.deviceId());
+                    });
+        } catch (RuntimeException e) {
+            // 数据库暂时不可用：重新标脏，下一轮连同新数据一起写
+            table.markDirty(updates);
+            log.warn("telemetry flush of {} devices failed", updates.size(), e);
+        }
+        forward(updates);
+    }
+
+    // 推送失败不重试：下一轮会带上更新的位置，规划侧过期后也会退回数据库里的值
+    private void forward(List<TelemetryTable.DeviceUpdate> updates) {
+        if (forwardClient == null) {
+            return;
+        }
+        List<ForwardedTelemetry> body = new ArrayList<>(updates.size());
+        for (TelemetryTable.DeviceUpdate u : updates) {
+            body.add(new ForwardedTelemetry(u.deviceId(), u.lat(), u.lng(), u.battery(), u.timestamp()));
+        }
+        try {
+            forwardClient.post()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RuntimeException e) {
+            log.warn("telemetry forward of {} devices failed: {}", updates.size(), e.getMessage());
+        }
+    }
+
+    record ForwardedTelemetry(String deviceId, double lat, double lng, int battery, long timestamp) {}
+}
@@ -0,0 +1,114 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 设备上报的定长二进制帧（大端），40 字节：
+ * <pre>
+ *  0  u16  magic 0x5246 ("RF")
+ *  2  u8   version = 1
+ *  3  u8   保留
+ *  4  16B  deviceId，ASCII，不足补 0
+ * 20  i32  纬度 * 1e7
+ * 24  i32  经度 * 1e7
+ * 28  u8   电量 0-100
+ * 29  3B   保留
+ * 32  i64  设备时间戳（毫秒）
+ * </pre>
+ * 解析直接按偏移读，deviceId 以两个 long 作为 key，不产生任何对象。
+ */
+public final class TelemetryFrame {
+    public static final int SIZE = 40;
+    public static final short MAGIC = 0x5246;
+    public static final byte VERSION = 1;
+    public static final int MAX_DEVICE_ID_LENGTH = 16;
+
+    private TelemetryFrame() {
+    }
+
+    // 解析 buf 中 [position, limit) 的所有完整帧并写入 table，返回接受的帧数；不完整的尾部忽略
+    public static int ingestAll(ByteBuffer buf, TelemetryTable table) {
+        int accepted = 0;
+        int end = buf.limit();
+        for (int offset = buf.position(); offset + SIZE <= end; offset += SIZE) {
+            if (ingest(buf, offset, table)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    public static boolean ingest(ByteBuffer buf, int offset, TelemetryTable table) {
+        if (buf.getShort(offset) != MAGIC || buf.get(offset + 2) != VERSION) {
+            return false;
+        }
+        int battery = buf.get(offset + 28) & 0xff;
+        if (battery > 100) {
+            return false;
+        }
+        return table.update(buf.getLong(offset + 4), buf.getLong(offset + 12),
+                buf.getInt(offset + 20) / 1e7, buf.getInt(offset + 24) / 1e7,
+                battery, buf.getLong(offset + 32));
+    }
+
+    // 编码一帧（设备端 / 压测用），写在 buf 当前位置
+    public static void write(ByteBuffer buf, String deviceId, double lat, double lng, int battery, long timestampMillis) {
+        byte[] id = deviceId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length > MAX_DEVICE_ID_LENGTH) {
+            throw new IllegalArgumentException("deviceId too long: " + deviceId);
+        }
+        buf.putShort(MAGIC).put(VERSION).put((byte) 0);
+        buf.put(id);
+        for (int i = id.length; i < MAX_DEVICE_ID_LENGTH; i++) {
+            buf.put((byte) 0);
+        }
+        buf.putInt((int) Math.round(lat * 1e7)).putInt((int) Math.round(lng * 1e7));
+        buf.put((byte) battery).put((byte) 0).putShort((short) 0);
+        buf.putLong(timestampMillis);
+    }
+
+    // deviceId 与 key 的互相转换：16 字节 ASCII 按大端拆成两个 long，和帧里的读法一致
+    static long keyHigh(String deviceId) {
+        return pack(deviceId, 0);
+    }
+
+    static long keyLow(String deviceId) {
+        return pack(deviceId, 8);
+    }
+
+    static boolean isValidDeviceId(String deviceId) {
+        if (deviceId == null || deviceId.isEmpty() || deviceId.length() > MAX_DEVICE_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < deviceId.length(); i++) {
+            char c = deviceId.charAt(i);
+            if (c == 0 || c > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long pack(String deviceId, int from) {
+        long v = 0;
+        for (int i = from; i < from + 8; i++) {
+            v = (v << 8) | (i < deviceId.length() ? deviceId.charAt(i) & 0xff : 0);
+        }
+        return v;
+    }
+
+    static String deviceId(long high, long low) {
+        byte[] bytes = new byte[MAX_DEVICE_ID_LENGTH];
+        int length = 0;
+        for (int i = 0; i < MAX_DEVICE_ID_LENGTH; i++) {
+            long word = i < 8 ? high : low;
+            byte b = (byte) (word >>> (56 - (i % 8) * 8));
+            if (b == 0) {
+                break;
+            }
+            bytes[length++] = b;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
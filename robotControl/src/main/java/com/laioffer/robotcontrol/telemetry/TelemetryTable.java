@@ -0,0 +1,224 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 每台设备的最新遥测，按 deviceId 分条带加锁。
+ * 同一台设备在两次落库之间的多次上报合并成一条（只保留时间戳最新的），落库时只取有变化的设备。
+ * 上报路径不分配对象：deviceId 的 String 只在第一次见到这台设备时建一次。
+ * 只收 devices 表里登记过的设备，总条数不超过 telemetry.max-devices，满了之后新设备的上报直接丢弃。
+ */
+@Component
+public class TelemetryTable {
+    private static final int STRIPES = 64;
+
+    public record DeviceUpdate(String deviceId, double lat, double lng, int battery, long timestamp,
+                               int stripe, int slot) {}
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final KnownDevices knownDevices;
+    private final int maxDevices;
+    private final AtomicInteger deviceCount = new AtomicInteger();
+
+    public TelemetryTable(KnownDevices knownDevices, @Value("${telemetry.max-devices:100000}") int maxDevices) {
+        this.knownDevices = knownDevices;
+        this.maxDevices = maxDevices;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean update(String deviceId, double lat, double lng, int battery, long timestamp) {
+        if (!TelemetryFrame.isValidDeviceId(deviceId)) {
+            return false;
+        }
+        return update(TelemetryFrame.keyHigh(deviceId), TelemetryFrame.keyLow(deviceId), lat, lng, battery, timestamp);
+    }
+
+    public boolean update(long keyHigh, long keyLow, double lat, double lng, int battery, long timestamp) {
+        if (keyHigh == 0 || Double.isNaN(lat) || Double.isNaN(lng)
+                || Math.abs(lat) > 90 || Math.abs(lng) > 180 || battery < 0 || battery > 100) {
+            return false;
+        }
+        long hash = mix(keyHigh, keyLow);
+        Stripe stripe = stripes[(int) (hash >>> 58)];
+        stripe.lock.lock();
+        try {
+            int slot = stripe.find(keyHigh, keyLow, (int) hash);
+            if (slot < 0) {
+                slot = admit(stripe, keyHigh, keyLow, ~slot);
+                if (slot < 0) {
+                    return false;
+                }
+            }
+            // 乱序到达的旧数据不覆盖新数据
+            if (timestamp < stripe.timestamp[slot]) {
+                return true;
+            }
+            stripe.lat[slot] = lat;
+            stripe.lng[slot] = lng;
+            stripe.battery[slot] = battery;
+            stripe.timestamp[slot] = timestamp;
+            if (!stripe.dirty[slot]) {
+                stripe.dirty[slot] = true;
+                stripe.pushDirty(slot);
+            }
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // 第一次见到的设备：未登记或者表已满时返回 -1
+    private int admit(Stripe stripe, long keyHigh, long keyLow, int pos) {
+        String deviceId = TelemetryFrame.deviceId(keyHigh, keyLow);
+        if (!knownDevices.contains(deviceId)) {
+            return -1;
+        }
+        if (deviceCount.incrementAndGet() > maxDevices) {
+            deviceCount.decrementAndGet();
+            return -1;
+        }
+        return stripe.add(keyHigh, keyLow, pos, deviceId);
+    }
+
+    // 取走自上次以来有变化的设备，取出即清除脏标记
+    public List<DeviceUpdate> drainDirty() {
+        List<DeviceUpdate> updates = new ArrayList<>();
+        for (int s = 0; s < STRIPES; s++) {
+            Stripe stripe = stripes[s];
+            stripe.lock.lock();
+            try {
+                for (int i = 0; i < stripe.dirtyCount; i++) {
+                    int slot = stripe.dirtyList[i];
+                    stripe.dirty[slot] = false;
+                    updates.add(new DeviceUpdate(stripe.ids[slot], stripe.lat[slot], stripe.lng[slot],
+                            stripe.battery[slot], stripe.timestamp[slot], s, slot));
+                }
+                stripe.dirtyCount = 0;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return updates;
+    }
+
+    // 落库失败时重新标脏，下一轮再写；期间有新上报的话写的是更新后的值
+    public void markDirty(List<DeviceUpdate> updates) {
+        for (DeviceUpdate u : updates) {
+            Stripe stripe = stripes[u.stripe()];
+            stripe.lock.lock();
+            try {
+                if (!stripe.dirty[u.slot()]) {
+                    stripe.dirty[u.slot()] = true;
+                    stripe.pushDirty(u.slot());
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    public int deviceCount() {
+        return deviceCount.get();
+    }
+
+    private static long mix(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // 一个条带：开放寻址哈希（key -> slot）+ 按 slot 排列的各列数据
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+
+        long[] keyHigh = new long[64];
+        long[] keyLow = new long[64];
+        int[] index = new int[64];     // slot + 1，0 表示空位
+
+        String[] ids = new String[32];
+        double[] lat = new double[32];
+        double[] lng = new double[32];
+        int[] battery = new int[32];
+        long[] timestamp = new long[32];
+        boolean[] dirty = new boolean[32];
+        int[] dirtyList = new int[32];
+        int dirtyCount;
+        int size;
+
+        // 找到返回 slot，找不到返回 ~空位
+        int find(long high, long low, int hash) {
+            int mask = index.length - 1;
+            for (int pos = hash & mask; ; pos = (pos + 1) & mask) {
+                int slot = index[pos] - 1;
+                if (slot < 0) {
+                    return ~pos;
+                }
+                if (keyHigh[pos] == high && keyLow[pos] == low) {
+                    return slot;
+                }
+            }
+        }
+
+        int add(long high, long low, int pos, String deviceId) {
+            int slot = size++;
+            if (slot == ids.length) {
+                int capacity = slot * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                lat = Arrays.copyOf(lat, capacity);
+                lng = Arrays.copyOf(lng, capacity);
+                battery = Arrays.copyOf(battery, capacity);
+                timestamp = Arrays.copyOf(timestamp, capacity);
+                dirty = Arrays.copyOf(dirty, capacity);
+                dirtyList = Arrays.copyOf(dirtyList, capacity);
+            }
+            ids[slot] = deviceId;
+            timestamp[slot] = Long.MIN_VALUE;
+            keyHigh[pos] = high;
+            keyLow[pos] = low;
+            index[pos] = slot + 1;
+            // 负载超过一半就扩容重排
+            if (size * 2 > index.length) {
+                rehash(index.length * 2);
+            }
+            return slot;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldHigh = keyHigh;
+            long[] oldLow = keyLow;
+            int[] oldIndex = index;
+            keyHigh = new long[capacity];
+            keyLow = new long[capacity];
+            index = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldIndex.length; i++) {
+                if (oldIndex[i] == 0) {
+                    continue;
+                }
+                int pos = (int) mix(oldHigh[i], oldLow[i]) & mask;
+                while (index[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keyHigh[pos] = oldHigh[i];
+                keyLow[pos] = oldLow[i];
+                index[pos] = oldIndex[i];
+            }
+        }
+
+        void pushDirty(int slot) {
+            dirtyList[dirtyCount++] = slot;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+// UDP 上报入口：一个数据报里放若干个 TelemetryFrame；复用同一块直接内存，收包解析不分配对象
+@Component
+public class TelemetryUdpListener {
+    private static final Logger log = LoggerFactory.getLogger(TelemetryUdpListener.class);
+
+    private static final int MAX_DATAGRAM = 65_507;
+
+    private final TelemetryTable table;
+    private final int port;
+    private final int receiveBufferBytes;
+    private DatagramChannel channel;
+    private Thread thread;
+
+    public TelemetryUdpListener(TelemetryTable table,
+                                @Value("${telemetry.udp.port:0}") int port,
+                                @Value("${telemetry.udp.receive-buffer-bytes:4194304}") int receiveBufferBytes) {
+        this.table = table;
+        this.port = port;
+        this.receiveBufferBytes = receiveBufferBytes;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (port <= 0) {
+            return; // 未配置端口则不开 UDP
+        }
+        channel = DatagramChannel.open();
+        // 内核缓冲调大，突发时少丢包
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+        channel.bind(new InetSocketAddress(port));
+        thread = new Thread(this::receiveLoop, "telemetry-udp");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("telemetry UDP listening on {}", port);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buf = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+        while (channel.isOpen()) {
+            try {
+                buf.clear();
+                if (channel.receive(buf) == null) {
+                    continue;
+                }
+                buf.flip();
+                TelemetryFrame.ingestAll(buf, table);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("telemetry UDP receive failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.laioffer.robotcontrol.command;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 回环上跑 CommandDispatcher 和模拟设备：丢包时靠重传全部确认，不回确认的设备失败，不上线的设备过期，队列满了拒绝
+class CommandDispatcherTest {
+
+    private static final long WAIT_MILLIS = 20_000;
+
+    private final KnownDevices knownDevices = new KnownDevices(null, 0);
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+    }
+
+    // 20 ms 重传、最多 20 次、每块 10 个航点，测试里的丢包能很快恢复
+    private CommandDispatcher dispatcher(int queueCapacity, int maxAttempts, long expireMillis) throws IOException {
+        CommandDispatcher dispatcher = new CommandDispatcher(knownDevices, 0, queueCapacity, 4, 10, 20,
+                maxAttempts, expireMillis, 5, 1 << 20, 1000, 600_000);
+        dispatcher.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        closeables.add(dispatcher::stop);
+        return dispatcher;
+    }
+
+    private static List<Waypoint> route(int waypoints) {
+        List<Waypoint> route = new ArrayList<>(waypoints);
+        for (int i = 0; i < waypoints; i++) {
+            route.add(new Waypoint(37.7 + i * 1e-5, -122.4 - i * 1e-5));
+        }
+        return route;
+    }
+
+    private static void awaitFinished(List<DeviceCommand> commands) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!commands.stream().allMatch(DeviceCommand::isFinished)) {
+            assertTrue(System.currentTimeMillis() < deadline, "commands did not finish in time");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void everyCommandIsAckedDespiteLoss() throws Exception {
+        int devices = 20;
+        CommandDispatcher dispatcher = dispatcher(4, 20, 30_000);
+        SimulatedDeviceFleet fleet = new SimulatedDeviceFleet(knownDevices, devices, 0, 0.2, 0, 0.1, 30, 50);
+        fleet.start(dispatcher.localAddress());
+        closeables.add(fleet::stop);
+
+        List<DeviceCommand> commands = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int d = 0; d < devices; d++) {
+                DeviceCommand command = dispatcher.submit(SimulatedDeviceFleet.deviceId(d), route(95));
+                assertNotEquals(DeviceCommand.Status.REJECTED, command.status());
+                commands.add(command);
+            }
+        }
+        awaitFinished(commands);
+
+        for (DeviceCommand command : commands) {
+            assertEquals(DeviceCommand.Status.ACKED, command.status(), command.view().toString());
+            assertEquals(10, command.view().ackedChunks());
+        }
+        CommandDispatcher.Stats stats = dispatcher.stats();
+        assertEquals(commands.size(), stats.acked());
+        assertTrue(stats.retransmits() > 0, "20% loss should force retransmits");
+        assertTrue(fleet.stats().dropped() > 0);
+        assertEquals(commands.size(), fleet.stats().routesCompleted());
+    }
+
+    @Test
+    void silentDeviceFailsAfterMaxAttempts() throws Exception {
+        knownDevices.replace(List.of("DEAD"));
+        CommandDispatcher dispatcher = dispatcher(4, 3, 30_000);
+        // 设备 HELLO 之后再也不回确认
+        DatagramChannel device = DatagramChannel.open();
+        closeables.add(device);
+        device.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        ByteBuffer hello = ByteBuffer.allocate(CommandFrame.HEADER_SIZE);
+        CommandFrame.writeControl(hello, CommandFrame.TYPE_HELLO, "DEAD", 0, 0);
+        device.send(hello.flip(), dispatcher.localAddress());
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (dispatcher.stats().devices() == 0) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+
+        List<DeviceCommand> commands = List.of(dispatcher.submit("DEAD", route(25)), dispatcher.submit("DEAD", route(5)));
+        awaitFinished(commands);
+
+        for (DeviceCommand command : commands) {
+            assertEquals(DeviceCommand.Status.FAILED, command.status());
+            assertEquals(0, command.view().ackedChunks());
+        }
+        assertEquals(2, dispatcher.stats().failed());
+        assertTrue(dispatcher.stats().retransmits() > 0);
+    }
+
+    @Test
+    void commandsForADeviceThatNeverConnectsExpire() throws Exception {
+        knownDevices.replace(List.of("OFFLINE"));
+        CommandDispatcher dispatcher = dispatcher(4, 3, 200);
+
+        List<DeviceCommand> commands = List.of(dispatcher.submit("OFFLINE", route(5)), dispatcher.submit("OFFLINE", route(5)));
+        awaitFinished(commands);
+
+        for (DeviceCommand command : commands) {
+            assertEquals(DeviceCommand.Status.EXPIRED, command.status());
+        }
+        assertEquals(2, dispatcher.stats().expired());
+        assertEquals(0, dispatcher.stats().chunksSent());
+    }
+
+    @Test
+    void fullQueueRejectsNewCommands() throws Exception {
+        knownDevices.replace(List.of("OFFLINE"));
+        int capacity = 2;
+        CommandDispatcher dispatcher = dispatcher(capacity, 3, 30_000);
+
+        // 第一条已经出队成为当前命令（等设备上线），后面的排队直到队列满
+        for (int i = 0; i < capacity + 1; i++) {
+            assertNotEquals(DeviceCommand.Status.REJECTED, dispatcher.submit("OFFLINE", route(5)).status());
+        }
+        DeviceCommand rejected = dispatcher.submit("OFFLINE", route(5));
+        assertEquals(DeviceCommand.Status.REJECTED, rejected.status());
+        assertTrue(rejected.isFinished());
+        assertNull(dispatcher.find(rejected.id()));
+        assertEquals(1, dispatcher.stats().rejected());
+        assertEquals(capacity + 1, dispatcher.stats().submitted());
+    }
+
+    @Test
+    void rejectsUnknownDevicesAndOversizedRoutes() throws Exception {
+        knownDevices.replace(List.of("R-1"));
+        CommandDispatcher dispatcher = dispatcher(4, 3, 30_000);
+
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.submit("R-unknown", route(5)));
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.submit("", route(5)));
+        // 每块 10 个航点，超过 MAX_CHUNKS 块
+        assertThrows(IllegalArgumentException.class,
+                () -> dispatcher.submit("R-1", route(CommandFrame.MAX_CHUNKS * 10 + 1)));
+        assertEquals(0, dispatcher.stats().devices());
+    }
+}
@@ -0,0 +1,79 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 落库失败的设备重新标脏，下一轮带着最新值再写一次
+class TelemetryFlusherTest {
+
+    private static final class FlakyJdbc extends JdbcTemplate {
+        int failuresLeft;
+        final List<List<TelemetryTable.DeviceUpdate>> written = new ArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new DataAccessResourceFailureException("database down");
+            }
+            written.add(new ArrayList<>((Collection<TelemetryTable.DeviceUpdate>) batchArgs));
+            return new int[0][];
+        }
+    }
+
+    @Test
+    void failedFlushIsRetriedWithLatestValues() {
+        KnownDevices known = new KnownDevices(null, 30000);
+        known.replace(List.of("R-1", "R-2"));
+        TelemetryTable table = new TelemetryTable(known, 10);
+        FlakyJdbc jdbc = new FlakyJdbc();
+        TelemetryFlusher flusher = new TelemetryFlusher(table, known, jdbc, 500, 1000, "", 1000, 2000, RestClient.builder());
+
+        table.update("R-1", 1, 1, 50, 1);
+        table.update("R-2", 2, 2, 60, 1);
+        jdbc.failuresLeft = 1;
+        flusher.flush();
+        assertTrue(jdbc.written.isEmpty());
+
+        table.update("R-1", 3, 3, 40, 2);
+        flusher.flush();
+        assertEquals(1, jdbc.written.size());
+        List<TelemetryTable.DeviceUpdate> batch = jdbc.written.get(0);
+        assertEquals(2, batch.size());
+        for (TelemetryTable.DeviceUpdate u : batch) {
+            assertEquals(u.deviceId().equals("R-1") ? 3 : 2, u.lat());
+        }
+
+        flusher.flush();
+        assertEquals(1, jdbc.written.size());
+    }
+
+    @Test
+    void devicesRemovedFromRegistryAreNotWritten() {
+        KnownDevices known = new KnownDevices(null, 30000);
+        known.replace(List.of("R-1", "R-2"));
+        TelemetryTable table = new TelemetryTable(known, 10);
+        FlakyJdbc jdbc = new FlakyJdbc();
+        TelemetryFlusher flusher = new TelemetryFlusher(table, known, jdbc, 500, 1000, "", 1000, 2000, RestClient.builder());
+
+        table.update("R-1", 1, 1, 50, 1);
+        table.update("R-2", 2, 2, 60, 1);
+        known.replace(List.of("R-1"));
+        flusher.flush();
+
+        assertEquals(1, jdbc.written.size());
+        assertEquals(List.of("R-1"), jdbc.written.get(0).stream().map(TelemetryTable.DeviceUpdate::deviceId).toList());
+    }
+}
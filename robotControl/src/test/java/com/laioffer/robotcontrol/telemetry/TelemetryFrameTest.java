@@ -0,0 +1,101 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryFrameTest {
+
+    private static TelemetryTable table(String... deviceIds) {
+        KnownDevices known = new KnownDevices(null, 30000);
+        known.replace(List.of(deviceIds));
+        return new TelemetryTable(known, 1000);
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        TelemetryTable table = table("R-1", "ROBOT-0123456789");
+        ByteBuffer buf = ByteBuffer.allocate(TelemetryFrame.SIZE * 2);
+        TelemetryFrame.write(buf, "R-1", 37.7749123, -122.4194456, 87, 1_700_000_000_123L);
+        // 正好 16 个字符的 id 没有结尾的 0
+        TelemetryFrame.write(buf, "ROBOT-0123456789", -33.8688, 151.2093, 0, 42L);
+        assertEquals(TelemetryFrame.SIZE * 2, buf.position());
+        buf.flip();
+
+        assertEquals(2, TelemetryFrame.ingestAll(buf, table));
+
+        List<TelemetryTable.DeviceUpdate> updates = table.drainDirty();
+        assertEquals(2, updates.size());
+        TelemetryTable.DeviceUpdate first = find(updates, "R-1");
+        assertEquals(37.7749123, first.lat(), 1e-7);
+        assertEquals(-122.4194456, first.lng(), 1e-7);
+        assertEquals(87, first.battery());
+        assertEquals(1_700_000_000_123L, first.timestamp());
+        TelemetryTable.DeviceUpdate second = find(updates, "ROBOT-0123456789");
+        assertEquals(-33.8688, second.lat(), 1e-7);
+        assertEquals(151.2093, second.lng(), 1e-7);
+        assertEquals(0, second.battery());
+        assertEquals(42L, second.timestamp());
+    }
+
+    @Test
+    void deviceIdKeyRoundTrip() {
+        for (String deviceId : new String[]{"a", "R-1", "12345678", "123456789", "ROBOT-0123456789"}) {
+            assertEquals(deviceId, TelemetryFrame.deviceId(TelemetryFrame.keyHigh(deviceId), TelemetryFrame.keyLow(deviceId)));
+        }
+        assertFalse(TelemetryFrame.isValidDeviceId(""));
+        assertFalse(TelemetryFrame.isValidDeviceId("ROBOT-01234567890"));
+        assertFalse(TelemetryFrame.isValidDeviceId("Ré"));
+        assertThrows(IllegalArgumentException.class,
+                () -> TelemetryFrame.write(ByteBuffer.allocate(TelemetryFrame.SIZE), "ROBOT-01234567890", 0, 0, 0, 0));
+    }
+
+    @Test
+    void partialTrailingFrameIsIgnored() {
+        TelemetryTable table = table("R-1", "R-2");
+        ByteBuffer buf = ByteBuffer.allocate(TelemetryFrame.SIZE * 2);
+        TelemetryFrame.write(buf, "R-1", 1, 2, 50, 1);
+        TelemetryFrame.write(buf, "R-2", 3, 4, 60, 1);
+        // 第二帧只到了一部分
+        buf.flip().limit(TelemetryFrame.SIZE * 2 - 1);
+
+        assertEquals(1, TelemetryFrame.ingestAll(buf, table));
+        List<TelemetryTable.DeviceUpdate> updates = table.drainDirty();
+        assertEquals(1, updates.size());
+        assertEquals("R-1", updates.get(0).deviceId());
+    }
+
+    @Test
+    void ingestAllStartsAtBufferPosition() {
+        TelemetryTable table = table("R-1");
+        ByteBuffer buf = ByteBuffer.allocate(3 + TelemetryFrame.SIZE);
+        buf.position(3);
+        TelemetryFrame.write(buf, "R-1", 1, 2, 50, 1);
+        buf.flip().position(3);
+
+        assertEquals(1, TelemetryFrame.ingestAll(buf, table));
+    }
+
+    @Test
+    void rejectsBadMagicVersionAndBattery() {
+        TelemetryTable table = table("R-1");
+        ByteBuffer buf = ByteBuffer.allocate(TelemetryFrame.SIZE * 3);
+        TelemetryFrame.write(buf, "R-1", 1, 2, 50, 1);
+        buf.putShort(0, (short) 0x1234);
+        TelemetryFrame.write(buf, "R-1", 1, 2, 50, 2);
+        buf.put(TelemetryFrame.SIZE + 2, (byte) 2);
+        TelemetryFrame.write(buf, "R-1", 1, 2, 101, 3);
+        buf.flip();
+
+        assertEquals(0, TelemetryFrame.ingestAll(buf, table));
+        assertTrue(table.drainDirty().isEmpty());
+    }
+
+    private static TelemetryTable.DeviceUpdate find(List<TelemetryTable.DeviceUpdate> updates, String deviceId) {
+        return updates.stream().filter(u -> u.deviceId().equals(deviceId)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,196 @@
+package com.laioffer.robotcontrol.telemetry;
+
+import com.laioffer.robotcontrol.device.KnownDevices;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryTableTest {
+
+    private static TelemetryTable table(int maxDevices, List<String> deviceIds) {
+        KnownDevices known = new KnownDevices(null, 30000);
+        known.replace(deviceIds);
+        return new TelemetryTable(known, maxDevices);
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("R-" + i);
+        }
+        return ids;
+    }
+
+    private static Map<String, TelemetryTable.DeviceUpdate> byId(List<TelemetryTable.DeviceUpdate> updates) {
+        Map<String, TelemetryTable.DeviceUpdate> map = new HashMap<>();
+        for (TelemetryTable.DeviceUpdate u : updates) {
+            assertNull(map.put(u.deviceId(), u), "duplicate " + u.deviceId());
+        }
+        return map;
+    }
+
+    @Test
+    void reportsBetweenDrainsCoalesceToTheNewest() {
+        TelemetryTable table = table(10, List.of("R-1"));
+        for (int t = 1; t <= 5; t++) {
+            assertTrue(table.update("R-1", t, -t, 50 + t, t));
+        }
+        List<TelemetryTable.DeviceUpdate> updates = table.drainDirty();
+        assertEquals(1, updates.size());
+        assertEquals(5, updates.get(0).lat());
+        assertEquals(-5, updates.get(0).lng());
+        assertEquals(55, updates.get(0).battery());
+        assertEquals(5, updates.get(0).timestamp());
+
+        // 取出即清除脏标记
+        assertTrue(table.drainDirty().isEmpty());
+    }
+
+    @Test
+    void outOfOrderReportDoesNotOverwriteNewer() {
+        TelemetryTable table = table(10, List.of("R-1"));
+        assertTrue(table.update("R-1", 10, 10, 90, 200));
+        // 旧数据被接受但不覆盖
+        assertTrue(table.update("R-1", 1, 1, 10, 100));
+        TelemetryTable.DeviceUpdate update = table.drainDirty().get(0);
+        assertEquals(10, update.lat());
+        assertEquals(200, update.timestamp());
+
+        // 落库之后再来的旧数据也不会把设备重新标脏
+        assertTrue(table.update("R-1", 1, 1, 10, 150));
+        assertTrue(table.drainDirty().isEmpty());
+    }
+
+    @Test
+    void markDirtyRetriesFailedWrites() {
+        TelemetryTable table = table(10, List.of("R-1", "R-2"));
+        table.update("R-1", 1, 1, 50, 1);
+        table.update("R-2", 2, 2, 60, 1);
+        List<TelemetryTable.DeviceUpdate> failed = table.drainDirty();
+        assertEquals(2, failed.size());
+
+        table.markDirty(failed);
+        Map<String, TelemetryTable.DeviceUpdate> retried = byId(table.drainDirty());
+        assertEquals(2, retried.size());
+        assertEquals(1, retried.get("R-1").lat());
+        assertEquals(2, retried.get("R-2").lat());
+    }
+
+    @Test
+    void retryAfterNewerReportWritesNewerValueOnce() {
+        TelemetryTable table = table(10, List.of("R-1"));
+        table.update("R-1", 1, 1, 50, 1);
+        List<TelemetryTable.DeviceUpdate> failed = table.drainDirty();
+        // 落库失败期间又有新上报，设备已经是脏的，重新标脏不能让它出现两次
+        table.update("R-1", 2, 2, 40, 2);
+        table.markDirty(failed);
+
+        List<TelemetryTable.DeviceUpdate> retried = table.drainDirty();
+        assertEquals(1, retried.size());
+        assertEquals(2, retried.get(0).lat());
+        assertEquals(2, retried.get(0).timestamp());
+    }
+
+    @Test
+    void rejectsUnknownDevicesAndInvalidValues() {
+        TelemetryTable table = table(10, List.of("R-1"));
+        assertFalse(table.update("R-unknown", 1, 1, 50, 1));
+        assertFalse(table.update("R-1", 91, 0, 50, 1));
+        assertFalse(table.update("R-1", 0, -181, 50, 1));
+        assertFalse(table.update("R-1", Double.NaN, 0, 50, 1));
+        assertFalse(table.update("R-1", 0, 0, 101, 1));
+        assertFalse(table.update("R-1", 0, 0, -1, 1));
+        assertFalse(table.update("", 0, 0, 50, 1));
+        assertEquals(0, table.deviceCount());
+        assertTrue(table.drainDirty().isEmpty());
+    }
+
+    @Test
+    void stopsAdmittingAtMaxDevices() {
+        TelemetryTable table = table(3, ids(5));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i < 3, table.update("R-" + i, 1, 1, 50, 1));
+        }
+        assertEquals(3, table.deviceCount());
+        // 已经在表里的设备照常更新
+        assertTrue(table.update("R-0", 2, 2, 50, 2));
+        assertEquals(3, table.drainDirty().size());
+    }
+
+    @Test
+    void manyDevicesAcrossStripesKeepTheirOwnValues() {
+        int devices = 5000;
+        TelemetryTable table = table(devices, ids(devices));
+        for (int round = 1; round <= 3; round++) {
+            for (int i = 0; i < devices; i++) {
+                assertTrue(table.update("R-" + i, i / 1000.0, round, i % 101, round));
+            }
+            Map<String, TelemetryTable.DeviceUpdate> drained = byId(table.drainDirty());
+            assertEquals(devices, drained.size());
+            for (int i = 0; i < devices; i++) {
+                TelemetryTable.DeviceUpdate u = drained.get("R-" + i);
+                assertEquals(i / 1000.0, u.lat());
+                assertEquals(round, u.lng());
+                assertEquals(i % 101, u.battery());
+            }
+        }
+        assertEquals(devices, table.deviceCount());
+    }
+
+    @Test
+    void concurrentReportsKeepTheNewestPerDevice() throws Exception {
+        int devices = 200;
+        int threads = 8;
+        int reports = 2000;
+        TelemetryTable table = table(devices, ids(devices));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        List<List<TelemetryTable.DeviceUpdate>> drains = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                // 每个线程用不同的时间戳交错上报，最终值取决于最大时间戳而不是到达顺序
+                for (int n = 0; n < reports; n++) {
+                    long timestamp = (long) n * threads + thread;
+                    table.update("R-" + (n % devices), timestamp / 1000.0, 0, 50, timestamp);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        while (!tasks.stream().allMatch(Future::isDone)) {
+            drains.add(table.drainDirty());
+        }
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        drains.add(table.drainDirty());
+
+        Map<String, Long> newest = new HashMap<>();
+        for (List<TelemetryTable.DeviceUpdate> drain : drains) {
+            byId(drain);
+            for (TelemetryTable.DeviceUpdate u : drain) {
+                assertEquals(u.timestamp() / 1000.0, u.lat());
+                newest.merge(u.deviceId(), u.timestamp(), Math::max);
+            }
+        }
+        assertEquals(devices, newest.size());
+        for (int d = 0; d < devices; d++) {
+            long lastN = reports - devices + d;
+            assertEquals(lastN * threads + threads - 1, newest.get("R-" + d));
+        }
+    }
+}
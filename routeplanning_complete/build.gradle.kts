@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.5.6"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.delivery"
@@ -22,12 +23,27 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+	testRuntimeOnly("com.h2database:h2")
 	implementation("org.springframework.boot:spring-boot-starter-web")
 	implementation ("org.springframework.boot:spring-boot-starter-data-jdbc")
 	implementation ("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("javax.persistence:javax.persistence-api:2.2")
+	implementation("org.springframework.boot:spring-boot-starter-cache")
+	implementation("com.github.ben-manes.caffeine:caffeine")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+// 把 OSM XML 导出文件转成本地路线引擎用的道路图：gradle buildRoadGraph -Posm=city.osm -Pout=city.rgrf
+tasks.register<JavaExec>("buildRoadGraph") {
+	group = "application"
+	description = "Builds a memory-mapped road graph file from an OSM XML extract"
+	classpath = sourceSets["main"].runtimeClasspath
+	mainClass = "com.delivery.routing.RoadGraphBuilder"
+	args(
+		providers.gradleProperty("osm").getOrElse("map.osm"),
+		providers.gradleProperty("out").getOrElse("roadgraph.rgrf")
+	)
+}
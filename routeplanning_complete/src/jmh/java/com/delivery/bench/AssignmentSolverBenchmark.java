@@ -0,0 +1,104 @@
+package com.delivery.bench;
+
+import com.delivery.dispatch.AssignmentSolver;
+import org.openjdk.jmh.annotations.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 批量派单：1k 订单 x 5k 设备的全局最小费用分配，对照组是按代价从小到大贪心去重
+// candidates 是每个订单保留的候选设备数，5000 即稠密矩阵
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class AssignmentSolverBenchmark {
+
+    // 订单和设备分布在约 20km x 20km 的范围内
+    private static final double SPAN_KM = 20;
+
+    @Param({"1000"})
+    public int orderCount;
+
+    @Param({"5000"})
+    public int deviceCount;
+
+    @Param({"16", "64", "5000"})
+    public int candidates;
+
+    private int[] rowStart;
+    private int[] colIndex;
+    private double[] cost;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        double[] deviceX = new double[deviceCount];
+        double[] deviceY = new double[deviceCount];
+        for (int d = 0; d < deviceCount; d++) {
+            deviceX[d] = random.nextDouble() * SPAN_KM;
+            deviceY[d] = random.nextDouble() * SPAN_KM;
+        }
+        int keep = Math.min(candidates, deviceCount);
+        rowStart = new int[orderCount + 1];
+        colIndex = new int[orderCount * keep];
+        cost = new double[orderCount * keep];
+        Integer[] order = new Integer[deviceCount];
+        double[] rowCost = new double[deviceCount];
+        for (int o = 0; o < orderCount; o++) {
+            double x = random.nextDouble() * SPAN_KM;
+            double y = random.nextDouble() * SPAN_KM;
+            double deliveryKm = 1 + random.nextDouble() * 8;
+            for (int d = 0; d < deviceCount; d++) {
+                double pickupKm = Math.hypot(deviceX[d] - x, deviceY[d] - y);
+                // 与 PathRecommendationService 相同的代价结构：按里程计费 + 时长折算
+                boolean drone = (d & 1) == 0;
+                double km = pickupKm + deliveryKm;
+                rowCost[d] = (drone ? 2.0 + km * 0.5 : 1.5 + km * 0.3) + 0.1 * km * (drone ? 2 : 6);
+                order[d] = d;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(rowCost[a], rowCost[b]));
+            rowStart[o] = o * keep;
+            for (int k = 0; k < keep; k++) {
+                colIndex[o * keep + k] = order[k];
+                cost[o * keep + k] = rowCost[order[k]];
+            }
+        }
+        rowStart[orderCount] = orderCount * keep;
+    }
+
+    @Benchmark
+    public int[] hungarian() {
+        return AssignmentSolver.solve(orderCount, deviceCount, rowStart, colIndex, cost);
+    }
+
+    @Benchmark
+    public int[] greedy() {
+        int edges = colIndex.length;
+        Integer[] byCost = new Integer[edges];
+        int[] rowOf = new int[edges];
+        for (int o = 0; o < orderCount; o++) {
+            for (int e = rowStart[o]; e < rowStart[o + 1]; e++) {
+                rowOf[e] = o;
+            }
+        }
+        for (int e = 0; e < edges; e++) {
+            byCost[e] = e;
+        }
+        Arrays.sort(byCost, (a, b) -> Double.compare(cost[a], cost[b]));
+        int[] assigned = new int[orderCount];
+        Arrays.fill(assigned, -1);
+        boolean[] taken = new boolean[deviceCount];
+        for (int e : byCost) {
+            int o = rowOf[e];
+            int d = colIndex[e];
+            if (assigned[o] < 0 && !taken[d]) {
+                assigned[o] = d;
+                taken[d] = true;
+            }
+        }
+        return assigned;
+    }
+}
@@ -0,0 +1,107 @@
+package com.delivery.bench;
+
+import com.delivery.service.DeviceLeaseManager;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 抢设备压测：多个线程（每个线程代表一个订单）随机抢同一批设备，抢到后登记为持有者，稍后释放
+// 登记时发现已有别的持有者就是一次重复派单；租约方式必须为 0，先查状态再改状态的写法作对照
+// 运行：gradle jmh -Pjmh.includes=DeviceLeaseBenchmark（设备越少竞争越激烈）
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class DeviceLeaseBenchmark {
+
+    private static final AtomicInteger HOLDERS = new AtomicInteger();
+
+    @Param({"8", "1024"})
+    public int deviceCount;
+
+    private String[] deviceIds;
+    private DeviceLeaseManager leaseManager;
+    private AtomicReferenceArray<String> owners;
+    private volatile String[] naiveStatus;
+
+    private final AtomicLong leaseClaims = new AtomicLong();
+    private final AtomicLong leaseDoubles = new AtomicLong();
+    private final AtomicLong naiveClaims = new AtomicLong();
+    private final AtomicLong naiveDoubles = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Claimant {
+        final String holder = "order-" + HOLDERS.incrementAndGet();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        deviceIds = new String[deviceCount];
+        naiveStatus = new String[deviceCount];
+        for (int i = 0; i < deviceCount; i++) {
+            deviceIds[i] = "D" + i;
+            naiveStatus[i] = "AVAILABLE";
+        }
+        // 只用内存里的软租约，不连数据库
+        leaseManager = new DeviceLeaseManager();
+        owners = new AtomicReferenceArray<>(deviceCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (leaseClaims.get() > 0) {
+            System.out.printf("%n[lease] claims %d, double assignments %d%n", leaseClaims.get(), leaseDoubles.get());
+        }
+        if (naiveClaims.get() > 0) {
+            System.out.printf("%n[check-then-set] claims %d, double assignments %d%n", naiveClaims.get(), naiveDoubles.get());
+        }
+        if (leaseDoubles.get() > 0) {
+            throw new IllegalStateException("lease manager handed the same device to two holders " + leaseDoubles.get() + " times");
+        }
+    }
+
+    @Benchmark
+    public boolean lease(Claimant claimant) {
+        int d = ThreadLocalRandom.current().nextInt(deviceCount);
+        if (leaseManager.tryLease(deviceIds[d], claimant.holder) == null) {
+            return false;
+        }
+        leaseClaims.incrementAndGet();
+        hold(d, claimant.holder, leaseDoubles);
+        leaseManager.release(deviceIds[d], claimant.holder);
+        return true;
+    }
+
+    @Benchmark
+    public boolean checkThenSet(Claimant claimant) {
+        int d = ThreadLocalRandom.current().nextInt(deviceCount);
+        String[] status = naiveStatus;
+        if (!"AVAILABLE".equals(status[d])) {
+            return false;
+        }
+        // 读到 AVAILABLE 和写 RESERVED 之间没有原子性，并发请求会同时通过上面的检查
+        Thread.yield();
+        status[d] = "RESERVED";
+        naiveClaims.incrementAndGet();
+        hold(d, claimant.holder, naiveDoubles);
+        status[d] = "AVAILABLE";
+        return true;
+    }
+
+    // 持有期间登记为设备的唯一持有者，释放前注销
+    private void hold(int d, String holder, AtomicLong doubles) {
+        if (!owners.compareAndSet(d, null, holder)) {
+            doubles.incrementAndGet();
+            return;
+        }
+        // 持有期间让出 CPU，让别的线程有机会在这段时间里来抢同一台设备
+        Thread.yield();
+        owners.compareAndSet(d, holder, null);
+    }
+}
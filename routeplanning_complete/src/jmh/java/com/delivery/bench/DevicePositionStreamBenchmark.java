@@ -0,0 +1,141 @@
+package com.delivery.bench;
+
+import com.delivery.dto.AvailableDevicesResponse;
+import com.delivery.dto.DeviceDto;
+import com.delivery.dto.Location;
+import com.delivery.entity.Device;
+import com.delivery.service.DevicePositionStream;
+import com.delivery.service.DeviceSpatialIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// 调度地图刷新一轮的服务端开销：推送增量（每个 tile 只序列化一次，订阅者共享）vs 每个客户端各轮询一次 /available
+// 2 万台设备分布在 1°x1° 范围内，每轮 5% 的设备移动；订阅者视野约 0.1°x0.1°
+// 结束时打印每轮平均发出的字节数
+// 运行：gradle jmh -Pjmh.includes=DevicePositionStreamBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DevicePositionStreamBenchmark {
+
+    private static final int DEVICES = 20_000;
+    private static final double ORIGIN_LAT = 37.3;
+    private static final double ORIGIN_LNG = -122.6;
+
+    @Param({"100", "1000"})
+    public int subscribers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random = new Random(7);
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private DeviceSpatialIndex index;
+    private DevicePositionStream stream;
+    private Device[] devices;
+    private double[][] viewports;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        index = new DeviceSpatialIndex(1.0);
+        devices = new Device[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            Device device = new Device();
+            device.setDeviceId("D" + i);
+            device.setType(i % 2 == 0 ? "DRONE" : "ROBOT");
+            device.setStationId("S" + (i % 50));
+            device.setLatitude(ORIGIN_LAT + random.nextDouble());
+            device.setLongitude(ORIGIN_LNG + random.nextDouble());
+            device.setBattery(100);
+            device.setMaxWeight(5);
+            device.setStatus("AVAILABLE");
+            devices[i] = device;
+            index.upsert(device);
+        }
+        // 按 Spring 的字段注入方式装配，发送在调用线程上同步执行，tile 边长用默认的 0.05°
+        stream = new DevicePositionStream();
+        inject(stream, "deviceSpatialIndex", index);
+        inject(stream, "routeExecutor", new ExecutorServiceAdapter(new SyncTaskExecutor()));
+        viewports = new double[subscribers][];
+        for (int s = 0; s < subscribers; s++) {
+            double lat = ORIGIN_LAT + random.nextDouble() * 0.9;
+            double lng = ORIGIN_LNG + random.nextDouble() * 0.9;
+            viewports[s] = new double[]{lat, lat + 0.1, lng, lng + 0.1};
+            stream.subscribe(lat, lat + 0.1, lng, lng + 0.1, new DevicePositionStream.Sink() {
+                @Override
+                public void send(String event, String data) {
+                    bytes.add(data.length());
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        }
+        // 第一轮发快照，不计入
+        stream.tick();
+        bytes.reset();
+    }
+
+    @Setup(Level.Invocation)
+    public void move() {
+        for (int i = 0; i < DEVICES / 20; i++) {
+            Device device = devices[random.nextInt(DEVICES)];
+            device.setLatitude(device.getLatitude() + (random.nextDouble() - 0.5) * 0.001);
+            device.setLongitude(device.getLongitude() + (random.nextDouble() - 0.5) * 0.001);
+            device.setBattery(Math.max(0, device.getBattery() - 1));
+            index.upsert(device);
+        }
+        rounds.increment();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%d subscribers: %d bytes per round%n", subscribers, bytes.sum() / Math.max(1, rounds.sum()));
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @Benchmark
+    public void pushDeltas() {
+        stream.tick();
+    }
+
+    @Benchmark
+    public void pollFullLists() throws Exception {
+        for (double[] v : viewports) {
+            AvailableDevicesResponse response = new AvailableDevicesResponse();
+            List<DeviceDto> dtos = new ArrayList<>();
+            for (Device device : index.findWithinBounds(v[0], v[1], v[2], v[3])) {
+                DeviceDto dto = new DeviceDto();
+                dto.setDeviceId(device.getDeviceId());
+                dto.setType(device.getType());
+                dto.setStationId(device.getStationId());
+                Location location = new Location();
+                location.setLat(device.getLatitude());
+                location.setLng(device.getLongitude());
+                dto.setLocation(location);
+                dto.setBattery(device.getBattery());
+                dto.setMaxWeight(device.getMaxWeight());
+                dto.setStatus(device.getStatus());
+                dtos.add(dto);
+            }
+            response.setDevices(dtos);
+            bytes.add(objectMapper.writeValueAsString(response).length());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.delivery.bench;
+
+import com.delivery.entity.Device;
+import com.delivery.service.DeviceSpatialIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 内存网格索引 vs 全表扫描逐行算球面距离（即原来 SQL 查询对每一行做的事情，不含网络和磁盘开销）
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class DeviceSpatialIndexBenchmark {
+
+    // 设备分布在以旧金山为中心约 100km x 100km 的范围内
+    private static final double CENTER_LAT = 37.77;
+    private static final double CENTER_LNG = -122.42;
+    private static final double SPAN_DEGREES = 0.9;
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int deviceCount;
+
+    @Param({"10"})
+    public double radiusKm;
+
+    private DeviceSpatialIndex index;
+    private double[] deviceLat;
+    private double[] deviceLng;
+    private String[] deviceStatus;
+    private double[] queryLat;
+    private double[] queryLng;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new DeviceSpatialIndex(1.0);
+        deviceLat = new double[deviceCount];
+        deviceLng = new double[deviceCount];
+        deviceStatus = new String[deviceCount];
+        for (int i = 0; i < deviceCount; i++) {
+            Device device = new Device();
+            device.setDeviceId("D" + i);
+            device.setType(i % 2 == 0 ? "DRONE" : "ROBOT");
+            device.setLatitude(CENTER_LAT + (random.nextDouble() - 0.5) * SPAN_DEGREES);
+            device.setLongitude(CENTER_LNG + (random.nextDouble() - 0.5) * SPAN_DEGREES);
+            device.setBattery(50 + random.nextInt(51));
+            device.setMaxWeight(5);
+            device.setStatus("AVAILABLE");
+            index.upsert(device);
+            deviceLat[i] = device.getLatitude();
+            deviceLng[i] = device.getLongitude();
+            deviceStatus[i] = device.getStatus();
+        }
+        queryLat = new double[QUERY_COUNT];
+        queryLng = new double[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queryLat[i] = CENTER_LAT + (random.nextDouble() - 0.5) * SPAN_DEGREES;
+            queryLng[i] = CENTER_LNG + (random.nextDouble() - 0.5) * SPAN_DEGREES;
+        }
+    }
+
+    @Benchmark
+    public List<Device> indexRadius() {
+        int q = nextQuery();
+        return index.findWithinRadius(queryLat[q], queryLng[q], radiusKm);
+    }
+
+    @Benchmark
+    public List<Device> indexNearest5() {
+        int q = nextQuery();
+        return index.findNearest(queryLat[q], queryLng[q], 5, radiusKm);
+    }
+
+    @Benchmark
+    public void fullScanRadius(Blackhole blackhole) {
+        int q = nextQuery();
+        int matched = 0;
+        for (int i = 0; i < deviceCount; i++) {
+            if ("AVAILABLE".equals(deviceStatus[i])
+                    && haversine(queryLat[q], queryLng[q], deviceLat[i], deviceLng[i]) <= radiusKm) {
+                matched++;
+            }
+        }
+        blackhole.consume(matched);
+    }
+
+    private int nextQuery() {
+        cursor = (cursor + 1) & (QUERY_COUNT - 1);
+        return cursor;
+    }
+
+    private static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
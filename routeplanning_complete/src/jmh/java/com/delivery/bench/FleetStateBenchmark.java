@@ -0,0 +1,116 @@
+package com.delivery.bench;
+
+import com.delivery.entity.Device;
+import com.delivery.service.FleetStateStore;
+import org.openjdk.jmh.annotations.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 规划线程读设备实时状态、遥测线程同时写：序列锁读 vs 每台设备一把锁
+// 每组 3 个读线程 + 1 个写线程，看读吞吐是否受写入影响
+// 运行：gradle jmh -Pjmh.includes=FleetStateBenchmark
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FleetStateBenchmark {
+
+    private static final int DEVICES = 10_000;
+
+    private FleetStateStore store;
+    private LockedState locked;
+    private Device[] devices;
+
+    @Setup
+    public void setUp() {
+        store = new FleetStateStore(DEVICES);
+        locked = new LockedState(DEVICES);
+        devices = new Device[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            Device device = new Device();
+            device.setDeviceId("D" + i);
+            device.setType("ROBOT");
+            device.setStatus("AVAILABLE");
+            devices[i] = device;
+            store.update(device.getDeviceId(), 37.7, -122.4, 100, 1);
+            locked.update(device.getDeviceId(), 37.7, -122.4, 100);
+        }
+    }
+
+    @Benchmark
+    @Group("seqlock")
+    @GroupThreads(3)
+    public Device seqlockRead() {
+        return store.overlay(devices[ThreadLocalRandom.current().nextInt(DEVICES)]);
+    }
+
+    @Benchmark
+    @Group("seqlock")
+    @GroupThreads(1)
+    public boolean seqlockWrite() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(DEVICES);
+        return store.update(devices[i].getDeviceId(), 37.7 + random.nextDouble(0.01), -122.4, 90, System.nanoTime());
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(3)
+    public Device lockedRead() {
+        return locked.overlay(devices[ThreadLocalRandom.current().nextInt(DEVICES)]);
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public void lockedWrite() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        locked.update(devices[random.nextInt(DEVICES)].getDeviceId(), 37.7 + random.nextDouble(0.01), -122.4, 90);
+    }
+
+    // 对照组：同样的下标映射和列式数组，读写都拿设备自己的锁
+    static final class LockedState {
+        private final Map<String, Integer> indexById = new ConcurrentHashMap<>();
+        private final Object[] locks;
+        private final double[] lat;
+        private final double[] lng;
+        private final int[] battery;
+
+        LockedState(int capacity) {
+            locks = new Object[capacity];
+            for (int i = 0; i < capacity; i++) {
+                locks[i] = new Object();
+            }
+            lat = new double[capacity];
+            lng = new double[capacity];
+            battery = new int[capacity];
+        }
+
+        void update(String deviceId, double newLat, double newLng, int newBattery) {
+            int i = indexById.computeIfAbsent(deviceId, id -> indexById.size());
+            synchronized (locks[i]) {
+                lat[i] = newLat;
+                lng[i] = newLng;
+                battery[i] = newBattery;
+            }
+        }
+
+        Device overlay(Device device) {
+            int i = indexById.get(device.getDeviceId());
+            Device live = new Device();
+            live.setDeviceId(device.getDeviceId());
+            live.setType(device.getType());
+            live.setStatus(device.getStatus());
+            synchronized (locks[i]) {
+                live.setLatitude(lat[i]);
+                live.setLongitude(lng[i]);
+                live.setBattery(battery[i]);
+            }
+            return live;
+        }
+    }
+}
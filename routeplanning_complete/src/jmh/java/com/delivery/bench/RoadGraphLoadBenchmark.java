@@ -0,0 +1,189 @@
+package com.delivery.bench;
+
+import com.delivery.routing.RoadGraph;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 路由引擎启动耗时：mmap 加载 vs 把同一个文件读成对象图（每个节点一个对象、每条边一个对象）
+// 每个 fork 是一个新 JVM，只测一次加载 + 第一次吸附查询；结束时打印进程 RSS 和堆占用
+// 运行：gradle jmh -Pjmh.includes=RoadGraphLoadBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 5, jvmArgs = {"-Xmx8g"})
+public class RoadGraphLoadBenchmark {
+
+    // 网格路网，节点间距约 100m
+    private static final double ORIGIN_LAT = 37.2;
+    private static final double ORIGIN_LNG = -122.9;
+    private static final double STEP_DEGREES = 0.0009;
+
+    @Param({"1000000", "4000000"})
+    public int nodeCount;
+
+    private Path graphFile;
+    private Object loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // 文件在多个 fork 之间复用，只在第一次生成
+        graphFile = Path.of(System.getProperty("java.io.tmpdir"), "roadgraph-bench-" + nodeCount + ".rgrf");
+        if (!Files.exists(graphFile)) {
+            gridGraph(nodeCount).write(graphFile);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.gc();
+        long heapMb = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+        System.out.printf("%n[%s] heap used %d MB, %s%n", loaded.getClass().getSimpleName(), heapMb, rss());
+    }
+
+    @Benchmark
+    public Object mmapLoad() throws IOException {
+        RoadGraph graph = RoadGraph.load(graphFile);
+        graph.nearestNode(ORIGIN_LAT + 0.1, ORIGIN_LNG + 0.1, 500);
+        loaded = graph;
+        return graph;
+    }
+
+    @Benchmark
+    public Object objectGraphLoad() throws IOException {
+        ObjectGraph graph = ObjectGraph.load(graphFile);
+        graph.nearestNode(ORIGIN_LAT + 0.1, ORIGIN_LNG + 0.1);
+        loaded = graph;
+        return graph;
+    }
+
+    private static RoadGraph gridGraph(int nodeCount) {
+        int side = (int) Math.sqrt(nodeCount);
+        int n = side * side;
+        int[] latE7 = new int[n];
+        int[] lngE7 = new int[n];
+        int[] offsets = new int[n + 1];
+        List<int[]> adjacency = new ArrayList<>(n);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int node = r * side + c;
+                latE7[node] = (int) Math.round((ORIGIN_LAT + r * STEP_DEGREES) * 1e7);
+                lngE7[node] = (int) Math.round((ORIGIN_LNG + c * STEP_DEGREES) * 1e7);
+                int[] next = new int[4];
+                int degree = 0;
+                if (r > 0) next[degree++] = node - side;
+                if (r < side - 1) next[degree++] = node + side;
+                if (c > 0) next[degree++] = node - 1;
+                if (c < side - 1) next[degree++] = node + 1;
+                adjacency.add(Arrays.copyOf(next, degree));
+                offsets[node + 1] = offsets[node] + degree;
+            }
+        }
+        int[] targets = new int[offsets[n]];
+        float[] lengths = new float[offsets[n]];
+        for (int node = 0; node < n; node++) {
+            int[] next = adjacency.get(node);
+            for (int i = 0; i < next.length; i++) {
+                targets[offsets[node] + i] = next[i];
+                lengths[offsets[node] + i] = 100f;
+            }
+        }
+        return RoadGraph.fromArrays(latE7, lngE7, offsets, targets, lengths);
+    }
+
+    private static String rss() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS")) {
+                    return line.replaceAll("\\s+", " ");
+                }
+            }
+        } catch (IOException e) {
+            // 非 Linux 没有 /proc
+        }
+        return "VmRSS n/a";
+    }
+
+    // 对照组：常见的对象图加载方式，读文件后逐个建节点和边对象
+    static final class ObjectGraph {
+
+        static final class Node {
+            final double lat;
+            final double lng;
+            final List<Edge> edges = new ArrayList<>(4);
+
+            Node(double lat, double lng) {
+                this.lat = lat;
+                this.lng = lng;
+            }
+        }
+
+        record Edge(Node target, float length) {}
+
+        private final List<Node> nodes;
+
+        private ObjectGraph(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        static ObjectGraph load(Path path) throws IOException {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // 读满为止
+                }
+            }
+            buffer.flip();
+            int n = buffer.getInt(8);
+            int m = buffer.getInt(12);
+            int latBase = 32;
+            int lngBase = align8(latBase + n * 4);
+            int offsetBase = align8(lngBase + n * 4);
+            int targetBase = align8(offsetBase + (n + 1) * 4);
+            int lengthBase = align8(targetBase + m * 4);
+
+            List<Node> nodes = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                nodes.add(new Node(buffer.getInt(latBase + i * 4) / 1e7, buffer.getInt(lngBase + i * 4) / 1e7));
+            }
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                int end = buffer.getInt(offsetBase + (i + 1) * 4);
+                for (int e = buffer.getInt(offsetBase + i * 4); e < end; e++) {
+                    node.edges.add(new Edge(nodes.get(buffer.getInt(targetBase + e * 4)), buffer.getFloat(lengthBase + e * 4)));
+                }
+            }
+            return new ObjectGraph(nodes);
+        }
+
+        Node nearestNode(double lat, double lng) {
+            Node best = null;
+            double bestScore = Double.MAX_VALUE;
+            for (Node node : nodes) {
+                double score = (node.lat - lat) * (node.lat - lat) + (node.lng - lng) * (node.lng - lng);
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = node;
+                }
+            }
+            return best;
+        }
+
+        private static int align8(int value) {
+            return (value + 7) & ~7;
+        }
+    }
+}
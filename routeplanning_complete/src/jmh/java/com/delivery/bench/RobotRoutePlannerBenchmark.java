@@ -0,0 +1,82 @@
+package com.delivery.bench;
+
+import com.delivery.dispatch.RobotRoutePlanner;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// 晚高峰一波订单：stationCount 个站点平均分摊 orderCount 个订单，每站 10 台机器人，各站点并行规划
+// timeBudgetMs = 0 时只有插入法构造，不做局部搜索
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class RobotRoutePlannerBenchmark {
+
+    private static final double STATION_LAT = 37.77;
+    private static final double STATION_LNG = -122.42;
+    // 取送点分布在站点周围约 3km 范围内
+    private static final double SPAN_DEGREES = 0.06;
+
+    @Param({"2000"})
+    public int orderCount;
+
+    @Param({"20"})
+    public int stationCount;
+
+    @Param({"0", "2000"})
+    public long timeBudgetMs;
+
+    private List<List<RobotRoutePlanner.Job>> jobsByStation;
+    private List<RobotRoutePlanner.Vehicle> vehicles;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        jobsByStation = new ArrayList<>();
+        for (int s = 0; s < stationCount; s++) {
+            List<RobotRoutePlanner.Job> jobs = new ArrayList<>();
+            for (int j = 0; j < orderCount / stationCount; j++) {
+                jobs.add(new RobotRoutePlanner.Job(
+                        STATION_LAT + (random.nextDouble() - 0.5) * SPAN_DEGREES,
+                        STATION_LNG + (random.nextDouble() - 0.5) * SPAN_DEGREES,
+                        STATION_LAT + (random.nextDouble() - 0.5) * SPAN_DEGREES,
+                        STATION_LNG + (random.nextDouble() - 0.5) * SPAN_DEGREES,
+                        0.5 + random.nextDouble() * 4));
+            }
+            jobsByStation.add(jobs);
+        }
+        vehicles = new ArrayList<>();
+        for (int v = 0; v < 10; v++) {
+            vehicles.add(new RobotRoutePlanner.Vehicle(10, 30));
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public List<RobotRoutePlanner.Plan> wave() {
+        List<CompletableFuture<RobotRoutePlanner.Plan>> futures = new ArrayList<>();
+        for (List<RobotRoutePlanner.Job> jobs : jobsByStation) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> RobotRoutePlanner.plan(STATION_LAT, STATION_LNG, jobs, vehicles, timeBudgetMs), executor));
+        }
+        List<RobotRoutePlanner.Plan> plans = new ArrayList<>();
+        for (CompletableFuture<RobotRoutePlanner.Plan> future : futures) {
+            plans.add(future.join());
+        }
+        return plans;
+    }
+}
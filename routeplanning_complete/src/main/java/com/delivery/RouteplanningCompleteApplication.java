@@ -3,9 +3,13 @@ package com.delivery;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @SpringBootApplication
+@EnableScheduling
 public class RouteplanningCompleteApplication {
 
 	public static void main(String[] args) {
@@ -16,4 +20,10 @@ public class RouteplanningCompleteApplication {
 		return new RestTemplate();
 	}
 
+	// 外部路线查询都是阻塞 IO，用虚拟线程并发执行
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService routeExecutor() {
+		return Executors.newVirtualThreadPerTaskExecutor();
+	}
+
 }
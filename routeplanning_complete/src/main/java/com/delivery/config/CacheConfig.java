@@ -0,0 +1,63 @@
+package com.delivery.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Value("${cache.geocoding.max-weight-bytes:16777216}")
+    private long geocodingMaxWeightBytes;
+
+    @Value("${cache.geocoding.expire-after-access-hours:24}")
+    private long geocodingExpireAfterAccessHours;
+
+    @Value("${cache.geocoding.expire-after-write-hours:168}")
+    private long geocodingExpireAfterWriteHours;
+
+    @Value("${route.cache.max-size:50000}")
+    private long routeMaxSize;
+
+    @Value("${route.cache.ttl-minutes:60}")
+    private long routeTtlMinutes;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // 只允许下面注册的缓存，避免拼错名字时悄悄建出一个无界缓存
+        cacheManager.setCacheNames(List.of());
+        // 外部接口失败时返回 null，不缓存失败结果
+        cacheManager.setAllowNullValues(false);
+
+        // 地址解析缓存：地址长短不一，按估算字节数限制总量；写入后最多保留一段时间，过期后由下一次请求重新解析
+        // 不能注册成 LoadingCache：Spring 未命中时会先调 loader，loader 返回 null 后再调一次方法本身，
+        // 解析不出来的地址每次未命中要花两次付费调用；方法体是唯一的加载路径
+        cacheManager.registerCustomCache("geocoding",
+                Caffeine.newBuilder()
+                        .maximumWeight(geocodingMaxWeightBytes)
+                        .weigher((Object address, Object location) -> 96 + address.toString().length() * 2)
+                        .expireAfterAccess(Duration.ofHours(geocodingExpireAfterAccessHours))
+                        .expireAfterWrite(Duration.ofHours(geocodingExpireAfterWriteHours))
+                        .recordStats()
+                        .build());
+
+        // 路线缓存：按条数限制，写入后固定时间过期（路况会变，不做按访问续期）
+        cacheManager.registerCustomCache("routes",
+                Caffeine.newBuilder()
+                        .maximumSize(routeMaxSize)
+                        .expireAfterWrite(Duration.ofMinutes(routeTtlMinutes))
+                        .recordStats()
+                        .build());
+
+        return cacheManager;
+    }
+}
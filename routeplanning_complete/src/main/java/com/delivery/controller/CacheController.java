@@ -0,0 +1,28 @@
+package com.delivery.controller;
+
+import com.delivery.dto.CacheStatsDto;
+import com.delivery.service.CacheStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    @GetMapping("/stats")
+    public List<CacheStatsDto> getAllStats() {
+        return cacheStatsService.getAllStats();
+    }
+
+    @GetMapping("/stats/{name}")
+    public ResponseEntity<CacheStatsDto> getStats(@PathVariable String name) {
+        CacheStatsDto dto = cacheStatsService.getStats(name);
+        return dto == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(dto);
+    }
+}
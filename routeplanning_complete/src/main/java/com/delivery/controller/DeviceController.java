@@ -1,9 +1,17 @@
 package com.delivery.controller;
 
 import com.delivery.dto.AvailableDevicesResponse;
+import com.delivery.dto.DeviceTelemetry;
+import com.delivery.service.DevicePositionStream;
 import com.delivery.service.DeviceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/devices")
@@ -13,6 +21,16 @@ public class DeviceController {
     @Autowired
     private DeviceService deviceService;
 
+    // 坐标或半径不合法
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @Autowired
+    private DevicePositionStream devicePositionStream;
+
     @GetMapping("/available")
     public AvailableDevicesResponse getAvailableDevices(
             @RequestParam double lat,
@@ -20,4 +38,58 @@ public class DeviceController {
             @RequestParam(defaultValue = "5") double radius) {
         return deviceService.getAvailableDevices(lat, lng, radius);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/nearest")
+    public AvailableDevicesResponse getNearestDevices(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(defaultValue = "10") double radius) {
+        return deviceService.getNearestDevices(lat, lng, k, radius);
+    }
+
+    // 视野内设备位置的推送流：先发一次 snapshot，之后只发有变化设备的 delta，替代轮询 /available
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam double minLat,
+            @RequestParam double maxLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLng) {
+        SseEmitter emitter = new SseEmitter(0L);
+        DevicePositionStream.Subscriber subscriber;
+        try {
+            subscriber = devicePositionStream.subscribe(minLat, maxLat, minLng, maxLng, new DevicePositionStream.Sink() {
+                @Override
+                public void send(String event, String data) throws Exception {
+                    emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void close() {
+                    emitter.complete();
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        emitter.onCompletion(() -> devicePositionStream.unsubscribe(subscriber));
+        emitter.onTimeout(() -> devicePositionStream.unsubscribe(subscriber));
+        emitter.onError(e -> devicePositionStream.unsubscribe(subscriber));
+        return emitter;
+    }
+
+    @PostMapping("/{deviceId}/reserve")
+    public Map<String, Boolean> reserve(@PathVariable String deviceId, @RequestParam String holder) {
+        return Map.of("reserved", deviceService.reserveDevice(deviceId, holder));
+    }
+
+    @PostMapping("/{deviceId}/release")
+    public Map<String, Boolean> release(@PathVariable String deviceId, @RequestParam String holder) {
+        return Map.of("released", deviceService.releaseDevice(deviceId, holder));
+    }
+
+    @PostMapping("/telemetry")
+    public Map<String, Integer> ingestTelemetry(@RequestBody List<DeviceTelemetry> updates) {
+        return Map.of("accepted", deviceService.ingestTelemetry(updates));
+    }
+}
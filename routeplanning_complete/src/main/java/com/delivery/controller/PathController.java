@@ -2,6 +2,8 @@ package com.delivery.controller;
 
 import com.delivery.dto.*;
 import com.delivery.service.PathRecommendationService;
+import com.delivery.service.CacheStatsService;
+import com.delivery.service.RobotRoutingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -14,6 +16,12 @@ public class PathController {
     @Autowired
     private PathRecommendationService pathService;
 
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    @Autowired
+    private RobotRoutingService robotRoutingService;
+
     @PostMapping("/recommend")
     public PathRecommendationResponse recommend(@RequestBody PathRecommendationRequest request) {
         return pathService.recommendPath(request);
@@ -23,4 +31,14 @@ public class PathController {
     public BatchPathRecommendationResponse recommendBatch(@RequestBody BatchPathRecommendationRequest request) {
         return pathService.recommendBatchPaths(request);
     }
+
+    @PostMapping("/robot-wave")
+    public RobotWavePlanResponse planRobotWave(@RequestBody BatchPathRecommendationRequest request) {
+        return robotRoutingService.planWave(request);
+    }
+
+    @GetMapping("/route-cache/stats")
+    public CacheStatsDto routeCacheStats() {
+        return cacheStatsService.getStats("routes");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.delivery.dispatch;
+
+import java.util.Arrays;
+
+// 订单 -> 设备的最小费用分配（匈牙利算法的最短增广路版本，Dijkstra + 势能）
+// 代价矩阵是稀疏的：每个订单只列出可行的候选设备，按 CSR 存放；不在候选里的组合视为不可分配
+// 每个订单最多分到一台设备，每台设备最多接一个订单；设备不够时先保证分配的订单数最多，再让总代价最小
+public final class AssignmentSolver {
+
+    private AssignmentSolver() {}
+
+    // rowStart 长度为 rows + 1，订单 r 的候选是 colIndex/cost[rowStart[r] .. rowStart[r+1])，代价不能为负
+    // 返回每个订单分到的设备下标，未分配为 -1
+    public static int[] solve(int rows, int cols, int[] rowStart, int[] colIndex, double[] cost) {
+        // 每个订单额外有一列只属于自己的"不分配"，代价比任意一组真实分配的总代价都大，
+        // 这样每个订单都一定能增广，逐个订单求最短增广路就是精确解
+        double maxCost = 0;
+        for (int e = 0; e < rowStart[rows]; e++) {
+            maxCost = Math.max(maxCost, cost[e]);
+        }
+        double unassignedCost = (maxCost + 1) * (rows + 1);
+        int totalCols = cols + rows;
+
+        double[] rowPotential = new double[rows];
+        double[] colPotential = new double[totalCols];
+        int[] rowMatch = new int[rows];
+        int[] colMatch = new int[totalCols];
+        Arrays.fill(rowMatch, -1);
+        Arrays.fill(colMatch, -1);
+
+        // Dijkstra 工作区，用 stamp 区分每个订单的搜索，避免每次清零
+        double[] colDist = new double[totalCols];
+        int[] colPrevRow = new int[totalCols];
+        int[] colSeen = new int[totalCols];
+        int[] colDone = new int[totalCols];
+        int[] doneCols = new int[totalCols];
+        Heap heap = new Heap();
+
+        for (int root = 0; root < rows; root++) {
+            int stamp = root + 1;
+            int doneCount = 0;
+            heap.clear();
+            relaxRow(root, 0, cols, unassignedCost, rowPotential, colPotential, rowStart, colIndex, cost,
+                    colDist, colPrevRow, colSeen, colDone, stamp, heap);
+
+            // 最近的空闲列（真实设备或某个订单的"不分配"列）
+            int freeCol = -1;
+            double pathDist = 0;
+            while (heap.size > 0) {
+                double d = heap.topKey();
+                int col = heap.topValue();
+                heap.pop();
+                if (colDone[col] == stamp || d > colDist[col]) {
+                    continue;
+                }
+                colDone[col] = stamp;
+                doneCols[doneCount++] = col;
+                if (colMatch[col] < 0) {
+                    freeCol = col;
+                    pathDist = d;
+                    break;
+                }
+                relaxRow(colMatch[col], d, cols, unassignedCost, rowPotential, colPotential, rowStart, colIndex, cost,
+                        colDist, colPrevRow, colSeen, colDone, stamp, heap);
+            }
+
+            // 更新势能，保证所有边的约化代价仍然非负、匹配边为 0
+            rowPotential[root] += pathDist;
+            for (int i = 0; i < doneCount; i++) {
+                int col = doneCols[i];
+                if (col == freeCol) {
+                    continue;
+                }
+                double delta = pathDist - colDist[col];
+                colPotential[col] -= delta;
+                rowPotential[colMatch[col]] += delta;
+            }
+
+            // 沿前驱翻转增广路
+            int col = freeCol;
+            while (col >= 0) {
+                int row = colPrevRow[col];
+                int previous = rowMatch[row];
+                rowMatch[row] = col;
+                colMatch[col] = row;
+                col = previous;
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            if (rowMatch[row] >= cols) {
+                rowMatch[row] = -1;
+            }
+        }
+        return rowMatch;
+    }
+
+    private static void relaxRow(int row, double base, int cols, double unassignedCost,
+                                 double[] rowPotential, double[] colPotential, int[] rowStart, int[] colIndex, double[] cost,
+                                 double[] colDist, int[] colPrevRow, int[] colSeen, int[] colDone, int stamp, Heap heap) {
+        for (int e = rowStart[row], end = rowStart[row + 1]; e < end; e++) {
+            relax(row, colIndex[e], base + cost[e] - rowPotential[row] - colPotential[colIndex[e]],
+                    colDist, colPrevRow, colSeen, colDone, stamp, heap);
+        }
+        int unassigned = cols + row;
+        relax(row, unassigned, base + unassignedCost - rowPotential[row] - colPotential[unassigned],
+                colDist, colPrevRow, colSeen, colDone, stamp, heap);
+    }
+
+    private static void relax(int row, int col, double d, double[] colDist, int[] colPrevRow,
+                              int[] colSeen, int[] colDone, int stamp, Heap heap) {
+        if (colDone[col] == stamp) {
+            return;
+        }
+        if (colSeen[col] != stamp || d < colDist[col]) {
+            colSeen[col] = stamp;
+            colDist[col] = d;
+            colPrevRow[col] = row;
+            heap.push(d, col);
+        }
+    }
+
+    // 二叉堆（允许重复入堆，出堆时跳过过期项）
+    private static final class Heap {
+        private double[] keys = new double[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        double topKey() {
+            return keys[0];
+        }
+
+        int topValue() {
+            return values[0];
+        }
+
+        void push(double key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (keys[up] <= key) {
+                    break;
+                }
+                keys[i] = keys[up];
+                values[i] = values[up];
+                i = up;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void pop() {
+            double key = keys[--size];
+            int value = values[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.delivery.dispatch;
+
+import com.delivery.routing.GeoUtils;
+import java.util.Arrays;
+import java.util.List;
+
+// 单个站点的机器人多点路线规划（带取送货约束的 VRP）：
+// 每个订单是一对 取件点 -> 送达点，机器人从站点出发、最后回到站点，途中可以同时装多个包裹
+// 约束：任意时刻在车上的总重量不超过载重，整条路线的里程不超过电量允许的里程
+// 做法：先按最便宜插入法构造初始解，再在时间预算内做局部搜索（订单重定位 + 路线内 2-opt），只接受变短的改动
+public final class RobotRoutePlanner {
+
+    // 点编号：0 是站点，订单 j 的取件点是 2j+1，送达点是 2j+2
+    private static final int DEPOT = 0;
+    // 点数不超过这个值时预先算好距离矩阵（4001 个点约 64MB），再大就现算
+    private static final int MAX_MATRIX_POINTS = 4001;
+    private static final double IMPROVEMENT_EPSILON = 1e-9;
+
+    public record Job(double pickupLat, double pickupLng, double dropLat, double dropLng, double weight) {}
+
+    public record Vehicle(double capacity, double maxDistanceKm) {}
+
+    // stops[v] 是第 v 台车的停靠序列（不含首尾的站点），元素为 job+1 表示取件，-(job+1) 表示送达
+    public record Plan(int[][] stops, double[] distanceKm, int[] unassigned) {}
+
+    private final int jobCount;
+    private final double[] weights;
+    private final Vehicle[] vehicles;
+    private final double[] lat;
+    private final double[] lng;
+    private final float[] matrix;
+    private final Tour[] tours;
+    // 订单所在的路线，未分配为 -1
+    private final int[] tourOf;
+
+    private RobotRoutePlanner(double depotLat, double depotLng, List<Job> jobs, List<Vehicle> vehicles) {
+        this.jobCount = jobs.size();
+        this.weights = new double[jobCount];
+        this.vehicles = vehicles.toArray(new Vehicle[0]);
+        int points = 2 * jobCount + 1;
+        this.lat = new double[points];
+        this.lng = new double[points];
+        lat[DEPOT] = depotLat;
+        lng[DEPOT] = depotLng;
+        for (int j = 0; j < jobCount; j++) {
+            Job job = jobs.get(j);
+            weights[j] = job.weight();
+            lat[pickup(j)] = job.pickupLat();
+            lng[pickup(j)] = job.pickupLng();
+            lat[drop(j)] = job.dropLat();
+            lng[drop(j)] = job.dropLng();
+        }
+        if (points <= MAX_MATRIX_POINTS) {
+            matrix = new float[points * points];
+            for (int a = 0; a < points; a++) {
+                for (int b = a + 1; b < points; b++) {
+                    float d = (float) GeoUtils.haversineKm(lat[a], lng[a], lat[b], lng[b]);
+                    matrix[a * points + b] = d;
+                    matrix[b * points + a] = d;
+                }
+            }
+        } else {
+            matrix = null;
+        }
+        this.tours = new Tour[this.vehicles.length];
+        for (int v = 0; v < tours.length; v++) {
+            tours[v] = new Tour();
+        }
+        this.tourOf = new int[jobCount];
+        Arrays.fill(tourOf, -1);
+    }
+
+    public static Plan plan(double depotLat, double depotLng, List<Job> jobs, List<Vehicle> vehicles, long timeBudgetMs) {
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000L;
+        RobotRoutePlanner planner = new RobotRoutePlanner(depotLat, depotLng, jobs, vehicles);
+        planner.construct();
+        planner.improve(deadline);
+        return planner.toPlan();
+    }
+
+    // 离站点越远的订单越难安排，先插
+    private void construct() {
+        Integer[] order = new Integer[jobCount];
+        double[] span = new double[jobCount];
+        for (int j = 0; j < jobCount; j++) {
+            order[j] = j;
+            span[j] = dist(DEPOT, pickup(j)) + dist(pickup(j), drop(j)) + dist(drop(j), DEPOT);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(span[b], span[a]));
+        for (int j : order) {
+            Insertion best = bestInsertion(j);
+            if (best != null) {
+                apply(j, best);
+            }
+        }
+    }
+
+    private void improve(long deadline) {
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = false;
+            for (int j = 0; j < jobCount && System.nanoTime() < deadline; j++) {
+                improved |= tourOf[j] < 0 ? retryUnassigned(j) : relocate(j);
+            }
+            for (int v = 0; v < tours.length && System.nanoTime() < deadline; v++) {
+                improved |= twoOpt(v, deadline);
+            }
+        }
+    }
+
+    private boolean retryUnassigned(int job) {
+        Insertion best = bestInsertion(job);
+        if (best == null) {
+            return false;
+        }
+        apply(job, best);
+        return true;
+    }
+
+    // 订单重定位（or-opt 的取送货版本）：把订单从当前路线拿出来，重新插到任意路线的最优位置
+    private boolean relocate(int job) {
+        int v = tourOf[job];
+        Tour tour = tours[v];
+        int[] saved = Arrays.copyOf(tour.points, tour.size);
+        double savedLength = tour.length;
+        tour.remove(pickup(job), drop(job));
+        tour.length = length(tour);
+        double removedGain = savedLength - tour.length;
+        tourOf[job] = -1;
+
+        Insertion best = bestInsertion(job);
+        if (best != null && best.delta < removedGain - IMPROVEMENT_EPSILON) {
+            apply(job, best);
+            return true;
+        }
+        // 没有更好的位置，恢复原样
+        tour.points = saved;
+        tour.size = saved.length;
+        tour.length = savedLength;
+        tourOf[job] = v;
+        return false;
+    }
+
+    // 路线内 2-opt：翻转一段停靠点；同一个订单的取件和送达都在段内时翻转会让送达排在取件前，跳过
+    private boolean twoOpt(int v, long deadline) {
+        Tour tour = tours[v];
+        boolean improved = false;
+        for (int i = 0; i < tour.size - 1 && System.nanoTime() < deadline; i++) {
+            for (int k = i + 1; k < tour.size; k++) {
+                int before = i == 0 ? DEPOT : tour.points[i - 1];
+                int after = k == tour.size - 1 ? DEPOT : tour.points[k + 1];
+                double delta = dist(before, tour.points[k]) + dist(tour.points[i], after)
+                        - dist(before, tour.points[i]) - dist(tour.points[k], after);
+                if (delta >= -IMPROVEMENT_EPSILON || containsPair(tour, i, k)) {
+                    continue;
+                }
+                reverse(tour.points, i, k);
+                if (loadFeasible(tour, v)) {
+                    tour.length += delta;
+                    improved = true;
+                } else {
+                    reverse(tour.points, i, k);
+                }
+            }
+        }
+        return improved;
+    }
+
+    private boolean containsPair(Tour tour, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            int point = tour.points[i];
+            if (isDrop(point)) {
+                int pickup = point - 1;
+                for (int k = from; k < i; k++) {
+                    if (tour.points[k] == pickup) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean loadFeasible(Tour tour, int v) {
+        double load = 0;
+        for (int i = 0; i < tour.size; i++) {
+            int point = tour.points[i];
+            load += isDrop(point) ? -weights[jobOf(point)] : weights[jobOf(point)];
+            if (load > vehicles[v].capacity() + IMPROVEMENT_EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 在所有路线里找插入代价最小的可行位置：取件插在 p 之前，送达插在 q 之前（q >= p）
+    private Insertion bestInsertion(int job) {
+        int pickup = pickup(job);
+        int drop = drop(job);
+        double weight = weights[job];
+        Insertion best = null;
+        for (int v = 0; v < tours.length; v++) {
+            if (weight > vehicles[v].capacity()) {
+                continue;
+            }
+            Tour tour = tours[v];
+            int n = tour.size;
+            double[] load = tour.loads(weights);
+            double budget = vehicles[v].maxDistanceKm() - tour.length;
+            for (int p = 0; p <= n; p++) {
+                int prevP = p == 0 ? DEPOT : tour.points[p - 1];
+                int nextP = p == n ? DEPOT : tour.points[p];
+                double pickupDelta = dist(prevP, pickup) + dist(pickup, nextP) - dist(prevP, nextP);
+                // 送达紧跟在取件后面
+                double adjacent = dist(prevP, pickup) + dist(pickup, drop) + dist(drop, nextP) - dist(prevP, nextP);
+                double maxLoad = load[p];
+                if (maxLoad + weight > vehicles[v].capacity()) {
+                    continue;
+                }
+                if (adjacent <= budget && (best == null || adjacent < best.delta)) {
+                    best = new Insertion(v, p, p, adjacent);
+                }
+                for (int q = p + 1; q <= n; q++) {
+                    // 包裹在车上的这一段，每一步的载重都要加上它
+                    maxLoad = Math.max(maxLoad, load[q]);
+                    if (maxLoad + weight > vehicles[v].capacity()) {
+                        break;
+                    }
+                    int prevQ = tour.points[q - 1];
+                    int nextQ = q == n ? DEPOT : tour.points[q];
+                    double delta = pickupDelta + dist(prevQ, drop) + dist(drop, nextQ) - dist(prevQ, nextQ);
+                    if (delta <= budget && (best == null || delta < best.delta)) {
+                        best = new Insertion(v, p, q, delta);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private void apply(int job, Insertion insertion) {
+        Tour tour = tours[insertion.tour];
+        tour.insert(pickup(job), drop(job), insertion.pickupAt, insertion.dropAt);
+        tour.length += insertion.delta;
+        tourOf[job] = insertion.tour;
+    }
+
+    private double length(Tour tour) {
+        double total = 0;
+        int previous = DEPOT;
+        for (int i = 0; i < tour.size; i++) {
+            total += dist(previous, tour.points[i]);
+            previous = tour.points[i];
+        }
+        return total + dist(previous, DEPOT);
+    }
+
+    private Plan toPlan() {
+        int[][] stops = new int[tours.length][];
+        double[] distance = new double[tours.length];
+        for (int v = 0; v < tours.length; v++) {
+            Tour tour = tours[v];
+            stops[v] = new int[tour.size];
+            for (int i = 0; i < tour.size; i++) {
+                int point = tour.points[i];
+                stops[v][i] = isDrop(point) ? -(jobOf(point) + 1) : jobOf(point) + 1;
+            }
+            distance[v] = tour.size == 0 ? 0 : length(tour);
+        }
+        int[] unassigned = new int[jobCount];
+        int count = 0;
+        for (int j = 0; j < jobCount; j++) {
+            if (tourOf[j] < 0) {
+                unassigned[count++] = j;
+            }
+        }
+        return new Plan(stops, distance, Arrays.copyOf(unassigned, count));
+    }
+
+    private double dist(int a, int b) {
+        if (matrix != null) {
+            return matrix[a * lat.length + b];
+        }
+        return GeoUtils.haversineKm(lat[a], lng[a], lat[b], lng[b]);
+    }
+
+    private static void reverse(int[] points, int from, int to) {
+        while (from < to) {
+            int tmp = points[from];
+            points[from++] = points[to];
+            points[to--] = tmp;
+        }
+    }
+
+    private static int pickup(int job) {
+        return 2 * job + 1;
+    }
+
+    private static int drop(int job) {
+        return 2 * job + 2;
+    }
+
+    private static boolean isDrop(int point) {
+        return (point & 1) == 0;
+    }
+
+    private static int jobOf(int point) {
+        return (point - 1) >> 1;
+    }
+
+    private record Insertion(int tour, int pickupAt, int dropAt, double delta) {}
+
+    // 一台车的停靠序列（不含首尾站点）
+    private static final class Tour {
+        int[] points = new int[16];
+        int size;
+        double length;
+
+        // loads[k] 是经过前 k 个停靠点之后车上的重量
+        double[] loads(double[] weights) {
+            double[] loads = new double[size + 1];
+            for (int i = 0; i < size; i++) {
+                int point = points[i];
+                double weight = weights[jobOf(point)];
+                loads[i + 1] = loads[i] + (isDrop(point) ? -weight : weight);
+            }
+            return loads;
+        }
+
+        // pickupAt / dropAt 都是插入前的下标，dropAt >= pickupAt
+        void insert(int pickup, int drop, int pickupAt, int dropAt) {
+            if (size + 2 > points.length) {
+                points = Arrays.copyOf(points, points.length * 2);
+            }
+            int[] result = points;
+            System.arraycopy(result, dropAt, result, dropAt + 2, size - dropAt);
+            result[dropAt + 1] = drop;
+            System.arraycopy(result, pickupAt, result, pickupAt + 1, dropAt - pickupAt);
+            result[pickupAt] = pickup;
+            size += 2;
+        }
+
+        void remove(int pickup, int drop) {
+            int write = 0;
+            for (int i = 0; i < size; i++) {
+                if (points[i] != pickup && points[i] != drop) {
+                    points[write++] = points[i];
+                }
+            }
+            size = write;
+        }
+    }
+}
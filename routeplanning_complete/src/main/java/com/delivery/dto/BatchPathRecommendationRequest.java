@@ -4,7 +4,11 @@ import java.util.List;
 
 public class BatchPathRecommendationRequest {
     private List<OrderRequest> orders;
+    // true 时整批订单做全局设备分配，每个订单只返回一条 ASSIGNED 推荐
+    private boolean globalAssignment;
 
     public List<OrderRequest> getOrders() { return orders; }
     public void setOrders(List<OrderRequest> orders) { this.orders = orders; }
+    public boolean isGlobalAssignment() { return globalAssignment; }
+    public void setGlobalAssignment(boolean globalAssignment) { this.globalAssignment = globalAssignment; }
 }
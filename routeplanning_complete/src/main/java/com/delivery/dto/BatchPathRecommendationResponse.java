@@ -4,7 +4,13 @@ import java.util.List;
 
 public class BatchPathRecommendationResponse {
     private List<PathRecommendationResponse> results;
+    private List<OrderTiming> timings;
+    private long totalElapsedMs;
 
     public List<PathRecommendationResponse> getResults() { return results; }
     public void setResults(List<PathRecommendationResponse> results) { this.results = results; }
+    public List<OrderTiming> getTimings() { return timings; }
+    public void setTimings(List<OrderTiming> timings) { this.timings = timings; }
+    public long getTotalElapsedMs() { return totalElapsedMs; }
+    public void setTotalElapsedMs(long totalElapsedMs) { this.totalElapsedMs = totalElapsedMs; }
 }
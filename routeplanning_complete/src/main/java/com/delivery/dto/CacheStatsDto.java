@@ -0,0 +1,35 @@
+package com.delivery.dto;
+
+public class CacheStatsDto {
+    private String name;
+    private long size;
+    private long maximumSize;
+    private Long weightedSize;
+    private long hitCount;
+    private long missCount;
+    private double hitRatio;
+    private long evictionCount;
+    private long loadFailureCount;
+    private double averageLoadPenaltyMs;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+    public long getMaximumSize() { return maximumSize; }
+    public void setMaximumSize(long maximumSize) { this.maximumSize = maximumSize; }
+    public Long getWeightedSize() { return weightedSize; }
+    public void setWeightedSize(Long weightedSize) { this.weightedSize = weightedSize; }
+    public long getHitCount() { return hitCount; }
+    public void setHitCount(long hitCount) { this.hitCount = hitCount; }
+    public long getMissCount() { return missCount; }
+    public void setMissCount(long missCount) { this.missCount = missCount; }
+    public double getHitRatio() { return hitRatio; }
+    public void setHitRatio(double hitRatio) { this.hitRatio = hitRatio; }
+    public long getEvictionCount() { return evictionCount; }
+    public void setEvictionCount(long evictionCount) { this.evictionCount = evictionCount; }
+    public long getLoadFailureCount() { return loadFailureCount; }
+    public void setLoadFailureCount(long loadFailureCount) { this.loadFailureCount = loadFailureCount; }
+    public double getAverageLoadPenaltyMs() { return averageLoadPenaltyMs; }
+    public void setAverageLoadPenaltyMs(double averageLoadPenaltyMs) { this.averageLoadPenaltyMs = averageLoadPenaltyMs; }
+}
@@ -0,0 +1,21 @@
+package com.delivery.dto;
+
+// robotControl 推送的单台设备遥测（已按设备合并）
+public class DeviceTelemetry {
+    private String deviceId;
+    private double lat;
+    private double lng;
+    private int battery;
+    private long timestamp;
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+    public double getLat() { return lat; }
+    public void setLat(double lat) { this.lat = lat; }
+    public double getLng() { return lng; }
+    public void setLng(double lng) { this.lng = lng; }
+    public int getBattery() { return battery; }
+    public void setBattery(int battery) { this.battery = battery; }
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+}
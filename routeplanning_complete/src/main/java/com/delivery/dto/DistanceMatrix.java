@@ -0,0 +1,21 @@
+package com.delivery.dto;
+
+// 多对多距离矩阵，下标为 [起点][终点]；查不到的元素距离为 NaN、时长为 -1
+public class DistanceMatrix {
+    // 米
+    private double[][] distances;
+    // 秒
+    private int[][] durations;
+
+    public DistanceMatrix() {}
+
+    public DistanceMatrix(double[][] distances, int[][] durations) {
+        this.distances = distances;
+        this.durations = durations;
+    }
+
+    public double[][] getDistances() { return distances; }
+    public void setDistances(double[][] distances) { this.distances = distances; }
+    public int[][] getDurations() { return durations; }
+    public void setDurations(int[][] durations) { this.durations = durations; }
+}
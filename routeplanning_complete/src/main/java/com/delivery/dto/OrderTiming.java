@@ -0,0 +1,14 @@
+package com.delivery.dto;
+
+public class OrderTiming {
+    private String orderId;
+    private long elapsedMs;
+    private String status;
+
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -10,6 +10,8 @@ public class PathRecommendationRequest {
     private Location destination;
     private double packageWeight;
     private LocalDateTime deliveryTimeRequirement;
+    // 为推荐出的设备占软租约（以 orderId 作为持有方），确认下单前不会再推荐给别的订单
+    private boolean holdDevices;
 
     // Getters and setters
     public String getOrderId() { return orderId; }
@@ -22,4 +24,6 @@ public class PathRecommendationRequest {
     public void setPackageWeight(double packageWeight) { this.packageWeight = packageWeight; }
     public LocalDateTime getDeliveryTimeRequirement() { return deliveryTimeRequirement; }
     public void setDeliveryTimeRequirement(LocalDateTime deliveryTimeRequirement) { this.deliveryTimeRequirement = deliveryTimeRequirement; }
+    public boolean isHoldDevices() { return holdDevices; }
+    public void setHoldDevices(boolean holdDevices) { this.holdDevices = holdDevices; }
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ public class Recommendation {
     private String deviceId;
     private Route route;
     private Score score;
+    // 软租约到期时间（毫秒时间戳），没有占租约时为空
+    private Long leaseExpiresAt;
 
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
@@ -17,5 +19,7 @@ public class Recommendation {
     public void setRoute(Route route) { this.route = route; }
     public Score getScore() { return score; }
     public void setScore(Score score) { this.score = score; }
+    public Long getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(Long leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
 }
 
@@ -0,0 +1,20 @@
+package com.delivery.dto;
+
+import java.util.List;
+
+// 一台机器人的多点路线：route.waypoints 从站点出发、按停靠顺序经过各取送点、最后回到站点
+public class RobotRoutePlan {
+    private String deviceId;
+    private String stationId;
+    private List<RouteStop> stops;
+    private Route route;
+
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+    public String getStationId() { return stationId; }
+    public void setStationId(String stationId) { this.stationId = stationId; }
+    public List<RouteStop> getStops() { return stops; }
+    public void setStops(List<RouteStop> stops) { this.stops = stops; }
+    public Route getRoute() { return route; }
+    public void setRoute(Route route) { this.route = route; }
+}
@@ -0,0 +1,16 @@
+package com.delivery.dto;
+
+import java.util.List;
+
+public class RobotWavePlanResponse {
+    private List<RobotRoutePlan> routes;
+    private List<String> unassignedOrderIds;
+    private long totalElapsedMs;
+
+    public List<RobotRoutePlan> getRoutes() { return routes; }
+    public void setRoutes(List<RobotRoutePlan> routes) { this.routes = routes; }
+    public List<String> getUnassignedOrderIds() { return unassignedOrderIds; }
+    public void setUnassignedOrderIds(List<String> unassignedOrderIds) { this.unassignedOrderIds = unassignedOrderIds; }
+    public long getTotalElapsedMs() { return totalElapsedMs; }
+    public void setTotalElapsedMs(long totalElapsedMs) { this.totalElapsedMs = totalElapsedMs; }
+}
@@ -0,0 +1,15 @@
+package com.delivery.dto;
+
+public class RouteStop {
+    private String orderId;
+    // PICKUP / DROPOFF
+    private String type;
+    private Location location;
+
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Location getLocation() { return location; }
+    public void setLocation(Location location) { this.location = location; }
+}
@@ -1,10 +1,11 @@
 package com.delivery.entity;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 // Device.java
 @Entity
-@Table(name = "devices")
+@Table(name = "devices", indexes = @Index(name = "idx_devices_updated_at", columnList = "updatedAt"))
 public class Device {
     @Id
     private String deviceId;
@@ -15,6 +16,12 @@ public class Device {
     private int battery;
     private double maxWeight;
     private String status;
+    // RESERVED 状态的到期时间，过期后由 DeviceLeaseManager 放回 AVAILABLE
+    private LocalDateTime reservedUntil;
+    // RESERVED 状态的持有方，释放时必须对得上
+    private String reservedBy;
+    // 状态最后一次变化的时间，DeviceSpatialIndex 按它做增量对账
+    private LocalDateTime updatedAt;
 
     public String getDeviceId() { return deviceId; }
     public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
@@ -32,4 +39,10 @@ public class Device {
     public void setMaxWeight(double maxWeight) { this.maxWeight = maxWeight; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+    public LocalDateTime getReservedUntil() { return reservedUntil; }
+    public void setReservedUntil(LocalDateTime reservedUntil) { this.reservedUntil = reservedUntil; }
+    public String getReservedBy() { return reservedBy; }
+    public void setReservedBy(String reservedBy) { this.reservedBy = reservedBy; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
\ No newline at end of file
@@ -2,19 +2,70 @@ package com.delivery.repository;
 
 import com.delivery.entity.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, String> {
 
+    // PostgreSQL 没有 ST_Distance_Sphere，改成包围盒预过滤 + Haversine；正常路径走 DeviceSpatialIndex
     @Query(value = "SELECT * FROM devices d WHERE " +
             "d.status = 'AVAILABLE' AND " +
-            "ST_Distance_Sphere(point(d.longitude, d.latitude), point(:lng, :lat)) <= :radius * 1000",
+            "d.latitude BETWEEN :lat - :radius / 111.32 AND :lat + :radius / 111.32 AND " +
+            "6371 * 2 * asin(sqrt(power(sin(radians(d.latitude - :lat) / 2), 2) + " +
+            "cos(radians(:lat)) * cos(radians(d.latitude)) * power(sin(radians(d.longitude - :lng) / 2), 2))) <= :radius",
             nativeQuery = true)
     List<Device> findAvailableDevicesNearLocation(@Param("lat") double lat,
                                                   @Param("lng") double lng,
                                                   @Param("radius") double radius);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT * FROM devices d WHERE d.status = 'AVAILABLE' AND " +
+            "d.latitude BETWEEN :minLat AND :maxLat AND d.longitude BETWEEN :minLng AND :maxLng",
+            nativeQuery = true)
+    List<Device> findAvailableDevicesInBounds(@Param("minLat") double minLat,
+                                              @Param("maxLat") double maxLat,
+                                              @Param("minLng") double minLng,
+                                              @Param("maxLng") double maxLng);
+
+    List<Device> findByStatus(String status);
+
+    // DeviceSpatialIndex 增量对账用，updated_at 上需要索引
+    List<Device> findByUpdatedAtAfter(LocalDateTime since);
+
+    @Query("SELECT MAX(d.updatedAt) FROM Device d")
+    LocalDateTime findMaxUpdatedAt();
+
+    // 预留设备：只有仍是 AVAILABLE（或已被同一持有方预留，视为续期）时才改成 RESERVED，返回 0 说明被别人抢先了
+    // 到期时间按应用时钟算，各实例之间秒级的时钟偏差相对预留时长可以忽略
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE devices SET status = 'RESERVED', reserved_by = :holder, reserved_until = :until, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE device_id = :deviceId AND (status = 'AVAILABLE' OR (status = 'RESERVED' AND reserved_by = :holder))",
+            nativeQuery = true)
+    int reserveIfAvailable(@Param("deviceId") String deviceId, @Param("holder") String holder,
+                           @Param("until") LocalDateTime until);
+
+    // 只有预留它的持有方才能释放
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE devices SET status = 'AVAILABLE', reserved_by = NULL, reserved_until = NULL, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE device_id = :deviceId AND status = 'RESERVED' AND reserved_by = :holder",
+            nativeQuery = true)
+    int releaseReservation(@Param("deviceId") String deviceId, @Param("holder") String holder);
+
+    // 持有方没确认也没释放的预留，到期后统一放回
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE devices SET status = 'AVAILABLE', reserved_by = NULL, reserved_until = NULL, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE status = 'RESERVED' AND reserved_until < :now",
+            nativeQuery = true)
+    int releaseExpiredReservations(@Param("now") LocalDateTime now);
+}
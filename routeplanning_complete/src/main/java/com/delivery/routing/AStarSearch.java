@@ -0,0 +1,139 @@
+package com.delivery.routing;
+
+import java.util.Arrays;
+
+// A* 最短路：启发函数为到终点的球面距离（不会高估，结果是最优解）
+// 工作区数组按节点数一次性分配，用 stamp 区分本次查询，避免每次查询清零；实例不是线程安全的，由调用方池化复用
+final class AStarSearch {
+
+    private final RoadGraph graph;
+    private final double[] distance;
+    private final int[] parent;
+    private final int[] seenStamp;
+    private final int[] closedStamp;
+    private int stamp;
+
+    // 二叉堆（允许同一节点重复入堆，出堆时跳过过期项）
+    private double[] heapKeys = new double[1024];
+    private int[] heapNodes = new int[1024];
+    private int heapSize;
+
+    private double lastDistanceMeters;
+
+    AStarSearch(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.distance = new double[n];
+        this.parent = new int[n];
+        this.seenStamp = new int[n];
+        this.closedStamp = new int[n];
+    }
+
+    // 返回从 source 到 target 的节点序列，不连通时返回 null
+    int[] findPath(int source, int target) {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            stamp = 1;
+        }
+        heapSize = 0;
+        double targetLat = graph.lat(target);
+        double targetLng = graph.lng(target);
+
+        distance[source] = 0;
+        parent[source] = -1;
+        seenStamp[source] = stamp;
+        push(heuristic(source, targetLat, targetLng), source);
+
+        while (heapSize > 0) {
+            int node = heapNodes[0];
+            pop();
+            if (closedStamp[node] == stamp) {
+                continue;
+            }
+            closedStamp[node] = stamp;
+            if (node == target) {
+                lastDistanceMeters = distance[target];
+                return buildPath(target);
+            }
+            double base = distance[node];
+            for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                int next = graph.edgeTarget(e);
+                if (closedStamp[next] == stamp) {
+                    continue;
+                }
+                double candidate = base + graph.edgeLength(e);
+                if (seenStamp[next] != stamp || candidate < distance[next]) {
+                    seenStamp[next] = stamp;
+                    distance[next] = candidate;
+                    parent[next] = node;
+                    push(candidate + heuristic(next, targetLat, targetLng), next);
+                }
+            }
+        }
+        return null;
+    }
+
+    // 最近一次 findPath 找到的路径长度（米）
+    double lastDistanceMeters() {
+        return lastDistanceMeters;
+    }
+
+    private double heuristic(int node, double targetLat, double targetLng) {
+        return GeoUtils.haversineKm(graph.lat(node), graph.lng(node), targetLat, targetLng) * 1000;
+    }
+
+    private int[] buildPath(int target) {
+        int length = 0;
+        for (int n = target; n != -1; n = parent[n]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int n = target, i = length - 1; n != -1; n = parent[n], i--) {
+            path[i] = n;
+        }
+        return path;
+    }
+
+    private void push(double key, int node) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKeys[up] <= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[up];
+            heapNodes[i] = heapNodes[up];
+            i = up;
+        }
+        heapKeys[i] = key;
+        heapNodes[i] = node;
+    }
+
+    private void pop() {
+        double key = heapKeys[--heapSize];
+        int node = heapNodes[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (key <= heapKeys[child]) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapNodes[i] = heapNodes[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapNodes[i] = node;
+    }
+}
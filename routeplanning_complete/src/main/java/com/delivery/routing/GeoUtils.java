@@ -0,0 +1,54 @@
+package com.delivery.routing;
+
+import com.delivery.dto.Location;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    private GeoUtils() {
+    }
+
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    // 坐标存在、有限且在经纬度范围内
+    public static boolean isValid(Location location) {
+        return location != null && Math.abs(location.getLat()) <= 90 && Math.abs(location.getLng()) <= 180;
+    }
+
+    public static double haversineKm(Location origin, Location destination) {
+        return haversineKm(origin.getLat(), origin.getLng(), destination.getLat(), destination.getLng());
+    }
+
+    // 无人机直线飞行：距离按直线 1.2 倍计，每公里 2 分钟，航点为起终点之间的等分点
+    public static RouteResult droneRoute(Location origin, Location destination) {
+        double directDistance = haversineKm(origin, destination);
+        RouteResult route = new RouteResult();
+        route.setDistance(directDistance * 1.2);
+        route.setDuration((int) (directDistance * 2));
+        route.setWaypoints(droneWaypoints(origin, destination));
+        return route;
+    }
+
+    private static List<Location> droneWaypoints(Location origin, Location destination) {
+        List<Location> waypoints = new ArrayList<>();
+        int numPoints = 5;
+        for (int i = 1; i <= numPoints; i++) {
+            double ratio = (double) i / (numPoints + 1);
+            Location waypoint = new Location();
+            waypoint.setLat(origin.getLat() + (destination.getLat() - origin.getLat()) * ratio);
+            waypoint.setLng(origin.getLng() + (destination.getLng() - origin.getLng()) * ratio);
+            waypoints.add(waypoint);
+        }
+        return waypoints;
+    }
+}
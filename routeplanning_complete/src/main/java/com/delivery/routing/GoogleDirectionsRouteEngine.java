@@ -0,0 +1,75 @@
+package com.delivery.routing;
+
+import com.delivery.dto.Location;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+// 调用 Google Directions API 的路线引擎（默认实现）
+@Component
+@ConditionalOnProperty(name = "routing.engine", havingValue = "google", matchIfMissing = true)
+public class GoogleDirectionsRouteEngine implements RouteEngine {
+
+    private static final String DIRECTIONS_API_URL = "https://maps.googleapis.com/maps/api/directions/json";
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${google.maps.api.key}")
+    private String googleMapsApiKey;
+
+    @Override
+    public RouteResult route(Location origin, Location destination, String deviceType) {
+        try {
+            String mode = "DRONE".equals(deviceType) ? "walking" : "driving";
+            String avoid = "ROBOT".equals(deviceType) ? "highways" : "";
+
+            String url = String.format("%s?origin=%f,%f&destination=%f,%f&mode=%s&avoid=%s&key=%s",
+                    DIRECTIONS_API_URL,
+                    origin.getLat(), origin.getLng(),
+                    destination.getLat(), destination.getLng(),
+                    mode, avoid, googleMapsApiKey);
+
+            String response = restTemplate.getForObject(url, String.class);
+            JsonNode root = objectMapper.readTree(response);
+
+            if ("OK".equals(root.get("status").asText())) {
+                // 对于无人机，使用直线距离的1.2倍作为飞行距离
+                if ("DRONE".equals(deviceType)) {
+                    return GeoUtils.droneRoute(origin, destination);
+                }
+
+                JsonNode route = root.get("routes").get(0);
+                JsonNode leg = route.get("legs").get(0);
+
+                RouteResult result = new RouteResult();
+                result.setDistance(leg.get("distance").get("value").asDouble() / 1000.0);
+                result.setDuration(leg.get("duration").get("value").asInt() / 60);
+
+                // 提取航点
+                List<Location> waypoints = new ArrayList<>();
+                JsonNode steps = leg.get("steps");
+                for (JsonNode step : steps) {
+                    Location loc = new Location();
+                    loc.setLat(step.get("end_location").get("lat").asDouble());
+                    loc.setLng(step.get("end_location").get("lng").asDouble());
+                    waypoints.add(loc);
+                }
+                result.setWaypoints(waypoints);
+                return result;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.delivery.routing;
+
+import com.delivery.dto.Location;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// 本地路网路线引擎：从本地文件加载道路图，机器人路线用 A* 计算，不依赖外部接口
+@Component
+@ConditionalOnProperty(name = "routing.engine", havingValue = "local")
+public class LocalGraphRouteEngine implements RouteEngine {
+
+    @Value("${routing.local.graph-path}")
+    private String graphPath;
+
+    // 起终点离路网超过这个距离就认为查不到路线
+    @Value("${routing.local.max-snap-meters:500}")
+    private double maxSnapMeters;
+
+    @Value("${routing.local.robot-speed-kmh:10}")
+    private double robotSpeedKmh;
+
+    private RoadGraph graph;
+
+    // A* 工作区按节点数分配，池化复用；虚拟线程下不能用 ThreadLocal
+    // 同时进行的搜索数用信号量限制在池大小以内，工作区最多只会分配这么多个；
+    // 突发流量下排队等一会儿，等不到就返回 null，调用方按直线距离估算，不会每个请求各分配一份整图大小的数组
+    private final Queue<AStarSearch> searches = new ConcurrentLinkedQueue<>();
+    private Semaphore permits;
+
+    @Value("${routing.local.search-pool-size:0}")
+    private int searchPoolSize;
+
+    @Value("${routing.local.search-wait-ms:200}")
+    private long searchWaitMs;
+
+    @PostConstruct
+    public void init() {
+        try {
+            graph = RoadGraph.load(Path.of(graphPath));
+        } catch (IOException e) {
+            throw new IllegalStateException("加载道路图失败: " + graphPath, e);
+        }
+        permits = new Semaphore(searchPoolSize > 0 ? searchPoolSize : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public RouteResult route(Location origin, Location destination, String deviceType) {
+        // 无人机直线飞行，不需要路网
+        if ("DRONE".equals(deviceType)) {
+            return GeoUtils.droneRoute(origin, destination);
+        }
+
+        int source = graph.nearestNode(origin.getLat(), origin.getLng(), maxSnapMeters);
+        int target = graph.nearestNode(destination.getLat(), destination.getLng(), maxSnapMeters);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+
+        try {
+            if (!permits.tryAcquire(searchWaitMs, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        AStarSearch search = searches.poll();
+        try {
+            if (search == null) {
+                search = new AStarSearch(graph);
+            }
+            int[] path = search.findPath(source, target);
+            if (path == null) {
+                return null;
+            }
+            double distanceKm = search.lastDistanceMeters() / 1000.0;
+
+            List<Location> waypoints = new ArrayList<>(path.length);
+            for (int node : path) {
+                Location loc = new Location();
+                loc.setLat(graph.lat(node));
+                loc.setLng(graph.lng(node));
+                waypoints.add(loc);
+            }
+
+            RouteResult result = new RouteResult();
+            result.setDistance(distanceKm);
+            result.setDuration((int) (distanceKm / robotSpeedKmh * 60));
+            result.setWaypoints(waypoints);
+            return result;
+        } finally {
+            if (search != null) {
+                searches.offer(search);
+            }
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.delivery.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// 道路图：节点坐标 + 邻接表，按 CSR 格式存成基本类型数组
+// 从文件加载时直接 mmap 各个数据段，不做任何反序列化，启动耗时与图的大小无关，页面按需由操作系统加载
+//
+// 文件格式（小端，每段按 8 字节对齐）：
+//   header: int magic = 'RGRF', int version = 2, int nodeCount, int edgeCount, int cellCount, int[3] 保留
+//   int[nodeCount]       节点纬度 * 1e7
+//   int[nodeCount]       节点经度 * 1e7
+//   int[nodeCount + 1]   每个节点出边在 edgeTargets 中的起始下标
+//   int[edgeCount]       出边终点
+//   float[edgeCount]     边长（米）
+//   long[cellCount]      节点吸附网格的格子 key（升序）
+//   int[cellCount + 1]   每个格子的节点在 cellNodes 中的起始下标
+//   int[nodeCount]       按格子排好序的节点
+public class RoadGraph {
+
+    public static final int MAGIC = 0x52475246;
+    public static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+
+    // 节点吸附用的网格，约 500m 一格
+    private static final double SNAP_CELL_DEGREES = 0.005;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final IntBuffer latE7;
+    private final IntBuffer lngE7;
+    private final IntBuffer edgeOffsets;
+    private final IntBuffer edgeTargets;
+    private final FloatBuffer edgeLengths;
+    private final LongBuffer cellKeys;
+    private final IntBuffer cellStarts;
+    private final IntBuffer cellNodes;
+
+    private RoadGraph(int nodeCount, int edgeCount,
+                      IntBuffer latE7, IntBuffer lngE7, IntBuffer edgeOffsets, IntBuffer edgeTargets,
+                      FloatBuffer edgeLengths, LongBuffer cellKeys, IntBuffer cellStarts, IntBuffer cellNodes) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.latE7 = latE7;
+        this.lngE7 = lngE7;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeLengths = edgeLengths;
+        this.cellKeys = cellKeys;
+        this.cellStarts = cellStarts;
+        this.cellNodes = cellNodes;
+    }
+
+    // 由内存数组构建（建图工具和测试用），同时生成节点吸附网格
+    public static RoadGraph fromArrays(int[] latE7, int[] lngE7, int[] edgeOffsets, int[] edgeTargets, float[] edgeLengths) {
+        int nodeCount = latE7.length;
+        long[] keyed = new long[nodeCount];
+        Integer[] order = new Integer[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            keyed[i] = cellKey(latE7[i] / 1e7, lngE7[i] / 1e7);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keyed[a], keyed[b]));
+        long[] keys = new long[nodeCount];
+        int[] starts = new int[nodeCount + 1];
+        int[] nodes = new int[nodeCount];
+        int cells = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = order[i];
+            if (i == 0 || keyed[order[i]] != keyed[order[i - 1]]) {
+                keys[cells] = keyed[order[i]];
+                starts[cells] = i;
+                cells++;
+            }
+        }
+        starts[cells] = nodeCount;
+        return new RoadGraph(nodeCount, edgeTargets.length,
+                IntBuffer.wrap(latE7), IntBuffer.wrap(lngE7), IntBuffer.wrap(edgeOffsets), IntBuffer.wrap(edgeTargets),
+                FloatBuffer.wrap(edgeLengths), LongBuffer.wrap(Arrays.copyOf(keys, cells)),
+                IntBuffer.wrap(Arrays.copyOf(starts, cells + 1)), IntBuffer.wrap(nodes));
+    }
+
+    public static RoadGraph load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("不是道路图文件: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("不是道路图文件: " + path);
+            }
+            int version = header.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("不支持的道路图版本: " + version);
+            }
+            int nodes = header.getInt(8);
+            int edges = header.getInt(12);
+            int cells = header.getInt(16);
+            long[] offsets = sectionOffsets(nodes, edges, cells);
+            if (channel.size() < offsets[offsets.length - 1]) {
+                throw new IOException("道路图文件不完整: " + path);
+            }
+            // 映射在 channel 关闭后依然有效
+            return new RoadGraph(nodes, edges,
+                    map(channel, offsets, 0).asIntBuffer(),
+                    map(channel, offsets, 1).asIntBuffer(),
+                    map(channel, offsets, 2).asIntBuffer(),
+                    map(channel, offsets, 3).asIntBuffer(),
+                    map(channel, offsets, 4).asFloatBuffer(),
+                    map(channel, offsets, 5).asLongBuffer(),
+                    map(channel, offsets, 6).asIntBuffer(),
+                    map(channel, offsets, 7).asIntBuffer());
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        int cells = cellKeys.limit();
+        long[] offsets = sectionOffsets(nodeCount, edgeCount, cells);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(edgeCount).putInt(cells).flip();
+            writeFully(channel, header, 0);
+
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            writeInts(channel, chunk, latE7, offsets[0]);
+            writeInts(channel, chunk, lngE7, offsets[1]);
+            writeInts(channel, chunk, edgeOffsets, offsets[2]);
+            writeInts(channel, chunk, edgeTargets, offsets[3]);
+            long position = offsets[4];
+            for (int i = 0; i < edgeCount; i++) {
+                if (chunk.remaining() < Float.BYTES) {
+                    position = flush(channel, chunk, position);
+                }
+                chunk.putFloat(edgeLengths.get(i));
+            }
+            flush(channel, chunk, position);
+            position = offsets[5];
+            for (int i = 0; i < cells; i++) {
+                if (chunk.remaining() < Long.BYTES) {
+                    position = flush(channel, chunk, position);
+                }
+                chunk.putLong(cellKeys.get(i));
+            }
+            flush(channel, chunk, position);
+            writeInts(channel, chunk, cellStarts, offsets[6]);
+            writeInts(channel, chunk, cellNodes, offsets[7]);
+            // 补齐最后一段的对齐，保证文件长度等于 sectionOffsets 算出的总长
+            long end = offsets[offsets.length - 1];
+            if (channel.size() < end) {
+                writeFully(channel, ByteBuffer.allocate((int) (end - channel.size())), channel.size());
+            }
+        }
+    }
+
+    // 每段的起始偏移，最后一个元素是文件总长
+    private static long[] sectionOffsets(int nodes, int edges, int cells) {
+        long[] sizes = {
+                (long) nodes * Integer.BYTES,
+                (long) nodes * Integer.BYTES,
+                (long) (nodes + 1) * Integer.BYTES,
+                (long) edges * Integer.BYTES,
+                (long) edges * Float.BYTES,
+                (long) cells * Long.BYTES,
+                (long) (cells + 1) * Integer.BYTES,
+                (long) nodes * Integer.BYTES
+        };
+        long[] offsets = new long[sizes.length + 1];
+        long position = HEADER_BYTES;
+        for (int i = 0; i < sizes.length; i++) {
+            offsets[i] = position;
+            position = align8(position + sizes[i]);
+        }
+        offsets[sizes.length] = position;
+        return offsets;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long[] offsets, int section) throws IOException {
+        long start = offsets[section];
+        long size = offsets[section + 1] - start;
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer chunk, IntBuffer values, long position) throws IOException {
+        for (int i = 0, n = values.limit(); i < n; i++) {
+            if (chunk.remaining() < Integer.BYTES) {
+                position = flush(channel, chunk, position);
+            }
+            chunk.putInt(values.get(i));
+        }
+        flush(channel, chunk, position);
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer chunk, long position) throws IOException {
+        chunk.flip();
+        long written = writeFully(channel, chunk, position);
+        chunk.clear();
+        return position + written;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static long align8(long value) {
+        return (value + 7) & ~7L;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public double lat(int node) {
+        return latE7.get(node) / 1e7;
+    }
+
+    public double lng(int node) {
+        return lngE7.get(node) / 1e7;
+    }
+
+    public int firstEdge(int node) {
+        return edgeOffsets.get(node);
+    }
+
+    public int endEdge(int node) {
+        return edgeOffsets.get(node + 1);
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets.get(edge);
+    }
+
+    public float edgeLength(int edge) {
+        return edgeLengths.get(edge);
+    }
+
+    // 找距离给定坐标最近的节点，超过 maxMeters 返回 -1
+    public int nearestNode(double lat, double lng, double maxMeters) {
+        int row = (int) Math.floor(lat / SNAP_CELL_DEGREES);
+        int col = (int) Math.floor(lng / SNAP_CELL_DEGREES);
+        double cellMeters = SNAP_CELL_DEGREES * 111_320 * Math.cos(Math.toRadians(Math.min(Math.abs(lat), 89.9)));
+        int maxRing = (int) Math.ceil(maxMeters / cellMeters) + 1;
+        int best = -1;
+        double bestMeters = maxMeters;
+        for (int d = 0; d <= maxRing; d++) {
+            for (int r = row - d; r <= row + d; r++) {
+                for (int c = col - d; c <= col + d; c++) {
+                    if (Math.abs(r - row) != d && Math.abs(c - col) != d) {
+                        continue;
+                    }
+                    int cell = findCell(key(r, c));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    for (int i = cellStarts.get(cell), end = cellStarts.get(cell + 1); i < end; i++) {
+                        int node = cellNodes.get(i);
+                        double meters = GeoUtils.haversineKm(lat, lng, lat(node), lng(node)) * 1000;
+                        if (meters <= bestMeters) {
+                            bestMeters = meters;
+                            best = node;
+                        }
+                    }
+                }
+            }
+            // 外圈的点离查询点至少 d 个格子宽
+            if (best >= 0 && bestMeters <= d * cellMeters) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    private int findCell(long key) {
+        int low = 0, high = cellKeys.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = cellKeys.get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static long cellKey(double lat, double lng) {
+        return key((int) Math.floor(lat / SNAP_CELL_DEGREES), (int) Math.floor(lng / SNAP_CELL_DEGREES));
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,218 @@
+package com.delivery.routing;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+// 建图工具：把 OSM XML 导出文件转成 RoadGraph 的 mmap 文件格式
+// 用法：gradle buildRoadGraph -Posm=city.osm -Pout=city.rgrf
+// 机器人走人行道，所有道路都按双向处理；机器人不能上的高速路直接丢掉
+public class RoadGraphBuilder {
+
+    private static final Set<String> EXCLUDED_HIGHWAYS = Set.of(
+            "motorway", "motorway_link", "trunk", "trunk_link", "construction", "proposed");
+
+    // 全部节点（OSM id 通常已排好序，没有排序的话读完再排）
+    private long[] nodeIds = new long[1 << 16];
+    private int[] nodeLatE7 = new int[1 << 16];
+    private int[] nodeLngE7 = new int[1 << 16];
+    private int nodes;
+
+    // 道路上相邻两点组成的无向边，存 OSM id
+    private long[] edgeFrom = new long[1 << 16];
+    private long[] edgeTo = new long[1 << 16];
+    private int edges;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("用法: RoadGraphBuilder <input.osm> <output.rgrf>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        RoadGraph graph = new RoadGraphBuilder().build(Path.of(args[0]));
+        graph.write(Path.of(args[1]));
+        System.out.printf("节点 %d，边 %d，耗时 %d ms%n",
+                graph.nodeCount(), graph.edgeCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public RoadGraph build(Path osmFile) throws IOException, XMLStreamException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(osmFile), 1 << 16)) {
+            parse(in);
+        }
+        return toGraph();
+    }
+
+    private void parse(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+
+        long[] wayRefs = new long[256];
+        int wayLength = 0;
+        boolean inWay = false;
+        String highway = null;
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "node" -> addNode(Long.parseLong(reader.getAttributeValue(null, "id")),
+                                Double.parseDouble(reader.getAttributeValue(null, "lat")),
+                                Double.parseDouble(reader.getAttributeValue(null, "lon")));
+                        case "way" -> {
+                            inWay = true;
+                            wayLength = 0;
+                            highway = null;
+                        }
+                        case "nd" -> {
+                            if (inWay) {
+                                if (wayLength == wayRefs.length) {
+                                    wayRefs = Arrays.copyOf(wayRefs, wayLength * 2);
+                                }
+                                wayRefs[wayLength++] = Long.parseLong(reader.getAttributeValue(null, "ref"));
+                            }
+                        }
+                        case "tag" -> {
+                            if (inWay && "highway".equals(reader.getAttributeValue(null, "k"))) {
+                                highway = reader.getAttributeValue(null, "v");
+                            }
+                        }
+                        default -> { }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(reader.getLocalName())) {
+                    if (highway != null && !EXCLUDED_HIGHWAYS.contains(highway)) {
+                        for (int i = 1; i < wayLength; i++) {
+                            addEdge(wayRefs[i - 1], wayRefs[i]);
+                        }
+                    }
+                    inWay = false;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void addNode(long id, double lat, double lng) {
+        if (nodes == nodeIds.length) {
+            nodeIds = Arrays.copyOf(nodeIds, nodes * 2);
+            nodeLatE7 = Arrays.copyOf(nodeLatE7, nodes * 2);
+            nodeLngE7 = Arrays.copyOf(nodeLngE7, nodes * 2);
+        }
+        nodeIds[nodes] = id;
+        nodeLatE7[nodes] = (int) Math.round(lat * 1e7);
+        nodeLngE7[nodes] = (int) Math.round(lng * 1e7);
+        nodes++;
+    }
+
+    private void addEdge(long from, long to) {
+        if (from == to) {
+            return;
+        }
+        if (edges == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, edges * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+        }
+        edgeFrom[edges] = from;
+        edgeTo[edges] = to;
+        edges++;
+    }
+
+    private RoadGraph toGraph() {
+        sortNodesIfNeeded();
+
+        // 只保留道路用到的节点，重新编号成 0..n-1
+        int[] denseIndex = new int[nodes];
+        Arrays.fill(denseIndex, -1);
+        int[] fromIndex = new int[edges];
+        int[] toIndex = new int[edges];
+        int kept = 0;
+        for (int e = 0; e < edges; e++) {
+            int a = Arrays.binarySearch(nodeIds, 0, nodes, edgeFrom[e]);
+            int b = Arrays.binarySearch(nodeIds, 0, nodes, edgeTo[e]);
+            // 导出范围边缘的道路会引用范围外的节点
+            if (a < 0 || b < 0) {
+                fromIndex[e] = -1;
+                continue;
+            }
+            if (denseIndex[a] < 0) {
+                denseIndex[a] = kept++;
+            }
+            if (denseIndex[b] < 0) {
+                denseIndex[b] = kept++;
+            }
+            fromIndex[e] = denseIndex[a];
+            toIndex[e] = denseIndex[b];
+        }
+
+        int[] latE7 = new int[kept];
+        int[] lngE7 = new int[kept];
+        for (int i = 0; i < nodes; i++) {
+            if (denseIndex[i] >= 0) {
+                latE7[denseIndex[i]] = nodeLatE7[i];
+                lngE7[denseIndex[i]] = nodeLngE7[i];
+            }
+        }
+
+        // 每条无向边展开成两条有向边，按起点计数后填 CSR
+        int[] offsets = new int[kept + 1];
+        for (int e = 0; e < edges; e++) {
+            if (fromIndex[e] >= 0) {
+                offsets[fromIndex[e] + 1]++;
+                offsets[toIndex[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < kept; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] cursor = Arrays.copyOf(offsets, kept);
+        int[] targets = new int[offsets[kept]];
+        float[] lengths = new float[offsets[kept]];
+        for (int e = 0; e < edges; e++) {
+            int a = fromIndex[e];
+            if (a < 0) {
+                continue;
+            }
+            int b = toIndex[e];
+            float meters = (float) (GeoUtils.haversineKm(latE7[a] / 1e7, lngE7[a] / 1e7, latE7[b] / 1e7, lngE7[b] / 1e7) * 1000);
+            targets[cursor[a]] = b;
+            lengths[cursor[a]++] = meters;
+            targets[cursor[b]] = a;
+            lengths[cursor[b]++] = meters;
+        }
+        return RoadGraph.fromArrays(latE7, lngE7, offsets, targets, lengths);
+    }
+
+    private void sortNodesIfNeeded() {
+        for (int i = 1; i < nodes; i++) {
+            if (nodeIds[i] < nodeIds[i - 1]) {
+                Integer[] order = new Integer[nodes];
+                for (int j = 0; j < nodes; j++) {
+                    order[j] = j;
+                }
+                Arrays.sort(order, (a, b) -> Long.compare(nodeIds[a], nodeIds[b]));
+                long[] ids = new long[nodes];
+                int[] lats = new int[nodes];
+                int[] lngs = new int[nodes];
+                for (int j = 0; j < nodes; j++) {
+                    ids[j] = nodeIds[order[j]];
+                    lats[j] = nodeLatE7[order[j]];
+                    lngs[j] = nodeLngE7[order[j]];
+                }
+                nodeIds = ids;
+                nodeLatE7 = lats;
+                nodeLngE7 = lngs;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.delivery.routing;
+
+import com.delivery.dto.Location;
+
+// 路线引擎：通过 routing.engine 选择实现（google / local）
+public interface RouteEngine {
+
+    // 查不到路线时返回 null，由调用方走直线距离估算
+    RouteResult route(Location origin, Location destination, String deviceType);
+}
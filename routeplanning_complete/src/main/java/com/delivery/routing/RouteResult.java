@@ -0,0 +1,18 @@
+package com.delivery.routing;
+
+import com.delivery.dto.Location;
+import java.util.List;
+
+// 路线引擎返回的路径数据：距离（公里）、时长（分钟）、航点
+public class RouteResult {
+    private double distance;
+    private int duration;
+    private List<Location> waypoints;
+
+    public double getDistance() { return distance; }
+    public void setDistance(double distance) { this.distance = distance; }
+    public int getDuration() { return duration; }
+    public void setDuration(int duration) { this.duration = duration; }
+    public List<Location> getWaypoints() { return waypoints; }
+    public void setWaypoints(List<Location> waypoints) { this.waypoints = waypoints; }
+}
@@ -0,0 +1,55 @@
+package com.delivery.service;
+
+import com.delivery.dto.CacheStatsDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class CacheStatsService {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public List<CacheStatsDto> getAllStats() {
+        List<CacheStatsDto> result = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            CacheStatsDto dto = getStats(name);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    public CacheStatsDto getStats(String name) {
+        if (!(cacheManager.getCache(name) instanceof CaffeineCache caffeineCache)) {
+            return null;
+        }
+        Cache<Object, Object> cache = caffeineCache.getNativeCache();
+        CacheStats stats = cache.stats();
+        Optional<Policy.Eviction<Object, Object>> eviction = cache.policy().eviction();
+
+        CacheStatsDto dto = new CacheStatsDto();
+        dto.setName(name);
+        dto.setSize(cache.estimatedSize());
+        dto.setMaximumSize(eviction.map(Policy.Eviction::getMaximum).orElse(-1L));
+        if (eviction.isPresent() && eviction.get().isWeighted()) {
+            dto.setWeightedSize(eviction.get().weightedSize().orElse(0L));
+        }
+        dto.setHitCount(stats.hitCount());
+        dto.setMissCount(stats.missCount());
+        dto.setHitRatio(stats.hitRate());
+        dto.setEvictionCount(stats.evictionCount());
+        dto.setLoadFailureCount(stats.loadFailureCount());
+        dto.setAverageLoadPenaltyMs(stats.averageLoadPenalty() / 1_000_000.0);
+        return dto;
+    }
+}
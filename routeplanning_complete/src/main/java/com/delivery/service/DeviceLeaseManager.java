@@ -0,0 +1,126 @@
+package com.delivery.service;
+
+import com.delivery.repository.DeviceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 设备租约：推荐时先占一个短期软租约（只在本实例内存里），下单确认时再把数据库里的 status
+// 从 AVAILABLE 原子地改成 RESERVED 并记下持有方（硬预留），多实例之间靠这条条件更新互斥，释放时按持有方校验
+// 软租约用 putIfAbsent / replace 做 CAS，过期的租约可以被别人直接抢走，不需要等清理线程
+@Component
+public class DeviceLeaseManager {
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired(required = false)
+    private DeviceSpatialIndex deviceSpatialIndex;
+
+    // 推荐结果保留多久，客户端在这段时间内确认下单
+    @Value("${device.lease.soft-ttl-ms:30000}")
+    private long softTtlMs = 30000;
+
+    // 硬预留的有效期，到期没释放就自动放回
+    @Value("${device.lease.reservation-ttl-ms:600000}")
+    private long reservationTtlMs = 600000;
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    public record Lease(String deviceId, String holder, long expiresAt, boolean reserved) {
+        boolean expired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    public long getSoftTtlMs() {
+        return softTtlMs;
+    }
+
+    // 占用软租约；同一个持有方重复调用视为续期，被别人占着且未过期时返回 null
+    public Lease tryLease(String deviceId, String holder) {
+        return tryLease(deviceId, holder, softTtlMs);
+    }
+
+    public Lease tryLease(String deviceId, String holder, long ttlMs) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Lease current = leases.get(deviceId);
+            if (current != null && !current.holder().equals(holder) && !current.expired(now)) {
+                return null;
+            }
+            // 续期时保留已有的硬预留标记，软租约不能把硬预留降级
+            boolean reserved = current != null && current.holder().equals(holder) && current.reserved();
+            Lease lease = new Lease(deviceId, holder, now + ttlMs, reserved);
+            if (current == null ? leases.putIfAbsent(deviceId, lease) == null : leases.replace(deviceId, current, lease)) {
+                return lease;
+            }
+        }
+    }
+
+    // 设备是否被其他持有方占着，推荐时用来跳过这些设备
+    public boolean isLeasedByOther(String deviceId, String holder) {
+        Lease lease = leases.get(deviceId);
+        return lease != null && !lease.expired(System.currentTimeMillis())
+                && (holder == null || !lease.holder().equals(holder));
+    }
+
+    // 当前占着设备的持有方，没人占或已过期时返回 null
+    public String holderOf(String deviceId) {
+        Lease lease = leases.get(deviceId);
+        return lease == null || lease.expired(System.currentTimeMillis()) ? null : lease.holder();
+    }
+
+    public boolean hasActiveLeases() {
+        return !leases.isEmpty();
+    }
+
+    // 确认下单：持有软租约（或没人占）时把数据库状态翻成 RESERVED，失败说明被其他实例或调度抢走
+    // 已经预留过的持有方再调用是续期，同样要写库：只延长内存租约的话，库里的 reserved_until 到期后会被 sweep 放回
+    public boolean reserve(String deviceId, String holder) {
+        Lease lease = tryLease(deviceId, holder, reservationTtlMs);
+        if (lease == null) {
+            return false;
+        }
+        LocalDateTime until = LocalDateTime.now().plusNanos(reservationTtlMs * 1_000_000);
+        if (deviceRepository.reserveIfAvailable(deviceId, holder, until) == 0) {
+            leases.remove(deviceId, lease);
+            return false;
+        }
+        Lease reserved = new Lease(deviceId, holder, lease.expiresAt(), true);
+        if (!leases.replace(deviceId, lease, reserved)) {
+            // 只有持有方自己会改这条租约，走到这里说明同一持有方并发调用，以数据库为准
+            leases.put(deviceId, reserved);
+        }
+        if (deviceSpatialIndex != null) {
+            deviceSpatialIndex.remove(deviceId);
+        }
+        return true;
+    }
+
+    // 持有方主动释放；硬预留同时把数据库状态改回 AVAILABLE，下次索引同步时重新进入索引
+    public boolean release(String deviceId, String holder) {
+        Lease current = leases.get(deviceId);
+        if (current != null && current.holder().equals(holder) && leases.remove(deviceId, current) && !current.reserved()) {
+            return true; // 只有软租约，数据库里没有要放的
+        }
+        // 硬预留以数据库为准：内存里没有这条租约（实例重启过、在别的实例上预留的）也能按持有方释放
+        return deviceRepository.releaseReservation(deviceId, holder) > 0;
+    }
+
+    // 清理过期租约；数据库里过期的硬预留也在这里放回（其他实例留下的也一样）
+    @Scheduled(fixedDelayString = "${device.lease.sweep-interval-ms:5000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        leases.values().removeIf(lease -> lease.expired(now));
+        try {
+            deviceRepository.releaseExpiredReservations(LocalDateTime.now());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.delivery.service;
+
+import com.delivery.entity.Device;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 调度地图的设备位置推送：定时对比索引里的实时状态，只推送有变化的设备
+// 变化按粗网格（tile）分组，每个 tile 的增量每轮只序列化一次，覆盖它的所有订阅者共用同一段字符串
+// 消息格式：{"seq":N,"r":[id...],"u":[[id,纬度*1e5,经度*1e5,电量,类型首字母]...]}，先删后加，
+// 设备跨 tile 移动时旧 tile 发删除、新 tile 发更新，同时订阅两个 tile 的客户端按顺序应用后结果正确
+// 订阅者的发送在 routeExecutor 上串行执行；积压过多时丢弃增量，排空后补发一次完整快照
+@Component
+public class DevicePositionStream {
+
+    // 单个订阅者最多积压的消息数，超过后改为补发快照
+    private static final int MAX_PENDING = 32;
+    // 单个视野最多覆盖的 tile 数，避免一个订阅拉下整个车队
+    private static final int MAX_TILES = 400;
+    // 连续这么多轮没有变化时发一次 ping，断开的客户端靠发送失败才能发现
+    private static final int PING_EVERY_TICKS = 30;
+
+    public interface Sink {
+        void send(String event, String data) throws Exception;
+
+        void close();
+    }
+
+    @Autowired
+    private DeviceSpatialIndex deviceSpatialIndex;
+
+    @Autowired
+    private ExecutorService routeExecutor;
+
+    @Value("${device.stream.tile-degrees:0.05}")
+    private double tileDegrees = 0.05;
+
+    // 上一轮推送出去的状态，只在定时任务线程里读写
+    private final Map<String, State> published = new HashMap<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private long seq;
+
+    public Subscriber subscribe(double minLat, double maxLat, double minLng, double maxLng, Sink sink) {
+        if (!(Math.abs(minLat) <= 90) || !(Math.abs(maxLat) <= 90)
+                || !(Math.abs(minLng) <= 180) || !(Math.abs(maxLng) <= 180)) {
+            throw new IllegalArgumentException("viewport out of range");
+        }
+        int rowFrom = index(minLat), rowTo = index(maxLat);
+        int colFrom = index(minLng), colTo = index(maxLng);
+        if (rowTo < rowFrom || colTo < colFrom
+                || ((long) rowTo - rowFrom + 1) * ((long) colTo - colFrom + 1) > MAX_TILES) {
+            throw new IllegalArgumentException("viewport too large or empty");
+        }
+        Set<Long> tiles = new HashSet<>();
+        for (int r = rowFrom; r <= rowTo; r++) {
+            for (int c = colFrom; c <= colTo; c++) {
+                tiles.add(key(r, c));
+            }
+        }
+        // 第一条消息是快照，由下一轮定时任务发出，保证和之后的增量顺序一致
+        Subscriber subscriber = new Subscriber(tiles, sink);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${device.stream.interval-ms:500}")
+    public void tick() {
+        try {
+            publish(deviceSpatialIndex.findAll());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void publish(List<Device> devices) {
+        seq++;
+        Map<Long, TileDelta> deltas = new HashMap<>();
+        Set<String> seen = new HashSet<>(devices.size() * 2);
+        for (Device device : devices) {
+            State state = State.of(device, tileOf(device.getLatitude(), device.getLongitude()));
+            seen.add(state.deviceId());
+            State old = published.put(state.deviceId(), state);
+            if (old != null && old.equals(state)) {
+                continue;
+            }
+            deltas.computeIfAbsent(state.tile(), k -> new TileDelta()).updates.add(state);
+            if (old != null && old.tile() != state.tile()) {
+                deltas.computeIfAbsent(old.tile(), k -> new TileDelta()).removals.add(state.deviceId());
+            }
+        }
+        // 不在索引里了（被预留、下线）的设备
+        Iterator<State> it = published.values().iterator();
+        while (it.hasNext()) {
+            State state = it.next();
+            if (!seen.contains(state.deviceId())) {
+                deltas.computeIfAbsent(state.tile(), k -> new TileDelta()).removals.add(state.deviceId());
+                it.remove();
+            }
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        // 按需序列化：只有被订阅者覆盖到的 tile 才会生成字符串，且只生成一次
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.needsSnapshot) {
+                if (subscriber.queue.isEmpty()) {
+                    subscriber.needsSnapshot = false;
+                    offer(subscriber, "snapshot", snapshot(subscriber));
+                }
+                continue;
+            }
+            StringBuilder removals = new StringBuilder();
+            StringBuilder updates = new StringBuilder();
+            if (subscriber.tiles.size() < deltas.size()) {
+                for (Long tile : subscriber.tiles) {
+                    TileDelta delta = deltas.get(tile);
+                    if (delta != null) {
+                        delta.appendTo(removals, updates);
+                    }
+                }
+            } else {
+                for (Map.Entry<Long, TileDelta> entry : deltas.entrySet()) {
+                    if (subscriber.tiles.contains(entry.getKey())) {
+                        entry.getValue().appendTo(removals, updates);
+                    }
+                }
+            }
+            if (removals.length() > 0 || updates.length() > 0) {
+                offer(subscriber, "delta", "{\"seq\":" + seq + ",\"r\":[" + removals + "],\"u\":[" + updates + "]}");
+            } else if (seq - subscriber.lastOfferSeq >= PING_EVERY_TICKS) {
+                offer(subscriber, "ping", "{\"seq\":" + seq + "}");
+            }
+        }
+    }
+
+    private String snapshot(Subscriber subscriber) {
+        StringBuilder updates = new StringBuilder();
+        for (State state : published.values()) {
+            if (subscriber.tiles.contains(state.tile())) {
+                if (updates.length() > 0) {
+                    updates.append(',');
+                }
+                state.appendTo(updates);
+            }
+        }
+        return "{\"seq\":" + seq + ",\"u\":[" + updates + "]}";
+    }
+
+    private void offer(Subscriber subscriber, String event, String data) {
+        if (subscriber.queue.size() >= MAX_PENDING) {
+            subscriber.queue.clear();
+            subscriber.needsSnapshot = true;
+            return;
+        }
+        subscriber.lastOfferSeq = seq;
+        subscriber.queue.add(new String[]{event, data});
+        drainLater(subscriber);
+    }
+
+    private void drainLater(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            routeExecutor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            String[] message;
+            while ((message = subscriber.queue.poll()) != null) {
+                subscriber.sink.send(message[0], message[1]);
+            }
+        } catch (Exception e) {
+            // 客户端断开
+            unsubscribe(subscriber);
+            subscriber.queue.clear();
+            subscriber.sink.close();
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (!subscriber.queue.isEmpty()) {
+            drainLater(subscriber);
+        }
+    }
+
+    private long tileOf(double lat, double lng) {
+        return key(index(lat), index(lng));
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / tileDegrees);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    public static final class Subscriber {
+        private final Set<Long> tiles;
+        private final Sink sink;
+        private final Queue<String[]> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // 只在定时任务线程里读写
+        private boolean needsSnapshot = true;
+        private long lastOfferSeq;
+
+        private Subscriber(Set<Long> tiles, Sink sink) {
+            this.tiles = tiles;
+            this.sink = sink;
+        }
+    }
+
+    // 坐标取 1e-5 度（约 1 米）精度，更小的抖动不算变化
+    private record State(String deviceId, int latE5, int lngE5, int battery, char type, long tile) {
+
+        static State of(Device device, long tile) {
+            String type = device.getType();
+            return new State(device.getDeviceId(),
+                    (int) Math.round(device.getLatitude() * 1e5), (int) Math.round(device.getLongitude() * 1e5),
+                    device.getBattery(), type == null || type.isEmpty() ? '?' : type.charAt(0), tile);
+        }
+
+        void appendTo(StringBuilder out) {
+            out.append("[\"");
+            JsonStringEncoder.getInstance().quoteAsString(deviceId, out);
+            out.append("\",").append(latE5).append(',').append(lngE5).append(',').append(battery)
+                    .append(",\"").append(type).append("\"]");
+        }
+    }
+
+    private static final class TileDelta {
+        final List<State> updates = new ArrayList<>();
+        final List<String> removals = new ArrayList<>();
+        private String updatesJson;
+        private String removalsJson;
+
+        void appendTo(StringBuilder removalsOut, StringBuilder updatesOut) {
+            if (updatesJson == null) {
+                StringBuilder u = new StringBuilder();
+                for (State state : updates) {
+                    if (u.length() > 0) {
+                        u.append(',');
+                    }
+                    state.appendTo(u);
+                }
+                StringBuilder r = new StringBuilder();
+                for (String deviceId : removals) {
+                    if (r.length() > 0) {
+                        r.append(',');
+                    }
+                    r.append('"');
+                    JsonStringEncoder.getInstance().quoteAsString(deviceId, r);
+                    r.append('"');
+                }
+                updatesJson = u.toString();
+                removalsJson = r.toString();
+            }
+            append(removalsOut, removalsJson);
+            append(updatesOut, updatesJson);
+        }
+
+        private static void append(StringBuilder out, String fragment) {
+            if (fragment.isEmpty()) {
+                return;
+            }
+            if (out.length() > 0) {
+                out.append(',');
+            }
+            out.append(fragment);
+        }
+    }
+}
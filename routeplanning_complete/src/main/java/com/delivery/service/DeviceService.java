@@ -3,20 +3,128 @@ package com.delivery.service;
 import com.delivery.dto.*;
 import com.delivery.entity.Device;
 import com.delivery.repository.DeviceRepository;
+import com.delivery.routing.GeoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class DeviceService {
 
+    // 批量快照的聚类网格，约 55 公里
+    private static final double SNAPSHOT_CLUSTER_DEGREES = 0.5;
+
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private DeviceSpatialIndex deviceSpatialIndex;
+
+    @Autowired
+    private FleetStateStore fleetStateStore;
+
+    @Autowired
+    private DeviceLeaseManager deviceLeaseManager;
+
+    // robotControl 合并后推送的遥测：写入实时状态，跨格子时同步移动索引
+    public int ingestTelemetry(List<DeviceTelemetry> updates) {
+        int accepted = 0;
+        for (DeviceTelemetry update : updates) {
+            // 只给索引里已有的设备分配状态槽位，未知 id 不占容量
+            if (update.getDeviceId() == null || !deviceSpatialIndex.contains(update.getDeviceId())) {
+                continue;
+            }
+            if (fleetStateStore.update(update.getDeviceId(), update.getLat(), update.getLng(),
+                    update.getBattery(), update.getTimestamp())) {
+                deviceSpatialIndex.relocate(update.getDeviceId());
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    // 确认下单：把设备预留给持有方（通常是推荐时用的 orderId）
+    public boolean reserveDevice(String deviceId, String holder) {
+        return deviceLeaseManager.reserve(deviceId, holder);
+    }
+
+    public boolean releaseDevice(String deviceId, String holder) {
+        return deviceLeaseManager.release(deviceId, holder);
+    }
+
     public AvailableDevicesResponse getAvailableDevices(double lat, double lng, double radius) {
-        List<Device> devices = deviceRepository.findAvailableDevicesNearLocation(lat, lng, radius);
+        return toResponse(findAvailableDevices(lat, lng, radius));
+    }
+
+    public AvailableDevicesResponse getNearestDevices(double lat, double lng, int k, double maxRadius) {
+        return toResponse(findNearestDevices(lat, lng, k, maxRadius));
+    }
+
+    // 优先查内存索引；索引还没加载完成时退回数据库查询
+    public List<Device> findAvailableDevices(double lat, double lng, double radius) {
+        if (deviceSpatialIndex.isReady()) {
+            return deviceSpatialIndex.findWithinRadius(lat, lng, radius);
+        }
+        return deviceRepository.findAvailableDevicesNearLocation(lat, lng, radius);
+    }
+
+    public List<Device> findNearestDevices(double lat, double lng, int k, double maxRadius) {
+        if (deviceSpatialIndex.isReady()) {
+            return deviceSpatialIndex.findNearest(lat, lng, k, maxRadius);
+        }
+        return deviceRepository.findAvailableDevicesNearLocation(lat, lng, maxRadius).stream()
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    public List<Device> findAvailableDevicesOfType(String type) {
+        List<Device> devices = deviceSpatialIndex.isReady()
+                ? deviceSpatialIndex.findAll()
+                : deviceRepository.findByStatus("AVAILABLE");
+        return devices.stream()
+                .filter(d -> type.equals(d.getType()))
+                .collect(Collectors.toList());
+    }
+
+    // 为一批起点取一次设备快照，建一个临时索引，整批订单看到的是同一份设备状态
+    // 起点先按 SNAPSHOT_CLUSTER_DEGREES 的网格聚类，每簇各取一个包围盒：相距很远的起点不会拼成一个覆盖半个地图的大框
+    // 坐标缺失或非法的起点直接跳过
+    public DeviceSpatialIndex snapshotAround(List<Location> origins, double radius) {
+        DeviceSpatialIndex snapshot = new DeviceSpatialIndex(deviceSpatialIndex.getCellSizeKm());
+        Map<Long, double[]> clusters = new HashMap<>();
+        for (Location origin : origins) {
+            if (!GeoUtils.isValid(origin)) {
+                continue;
+            }
+            long key = ((long) Math.floor(origin.getLat() / SNAPSHOT_CLUSTER_DEGREES) << 32)
+                    | ((long) Math.floor(origin.getLng() / SNAPSHOT_CLUSTER_DEGREES) & 0xffffffffL);
+            double[] box = clusters.computeIfAbsent(key, k -> new double[]{90, -90, 180, -180});
+            box[0] = Math.min(box[0], origin.getLat());
+            box[1] = Math.max(box[1], origin.getLat());
+            box[2] = Math.min(box[2], origin.getLng());
+            box[3] = Math.max(box[3], origin.getLng());
+        }
+        double latSpan = radius / 111.32;
+        for (double[] box : clusters.values()) {
+            double farLat = Math.min(Math.max(Math.abs(box[0]), Math.abs(box[1])) + latSpan, 89.9);
+            double lngSpan = radius / (111.32 * Math.cos(Math.toRadians(farLat)));
+            double minLat = box[0] - latSpan, maxLat = box[1] + latSpan;
+            double minLng = box[2] - lngSpan, maxLng = box[3] + lngSpan;
+            List<Device> devices = deviceSpatialIndex.isReady()
+                    ? deviceSpatialIndex.findWithinBounds(minLat, maxLat, minLng, maxLng)
+                    : deviceRepository.findAvailableDevicesInBounds(minLat, maxLat, minLng, maxLng);
+            // 相邻簇的包围盒会重叠，upsert 按 deviceId 去重
+            for (Device device : devices) {
+                snapshot.upsert(device);
+            }
+        }
+        return snapshot;
+    }
 
+    private AvailableDevicesResponse toResponse(List<Device> devices) {
         AvailableDevicesResponse response = new AvailableDevicesResponse();
         response.setDevices(devices.stream().map(this::convertToDto).collect(Collectors.toList()));
         return response;
@@ -0,0 +1,403 @@
+package com.delivery.service;
+
+import com.delivery.entity.Device;
+import com.delivery.repository.DeviceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 可用设备的内存空间索引：按经纬度切成固定大小的网格，半径查询只扫描覆盖到的格子
+@Component
+public class DeviceSpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+    // 半个地球周长，再大的半径也不会多覆盖任何设备
+    private static final double MAX_RADIUS_KM = 20037.5;
+    private static final long CURSOR_OVERLAP_SECONDS = 5;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    // 实时遥测；批量推荐用的临时快照索引不注入，直接用快照里的值
+    @Autowired(required = false)
+    private FleetStateStore fleetState;
+
+    // 网格边长（公里），城市配送场景下 1km 左右比较合适
+    @Value("${device.index.cell-size-km:1.0}")
+    private double cellSizeKm = 1.0;
+
+    // 全量对账间隔，兜底没有维护 updated_at 的写方
+    @Value("${device.index.full-sync-interval-ms:600000}")
+    private long fullSyncIntervalMs = 600000;
+
+    private final Map<String, Device> devicesById = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // 增量对账的游标：已经看到的最大 updated_at
+    private volatile LocalDateTime cursor;
+    private volatile long lastFullSyncMs;
+
+    public DeviceSpatialIndex() {
+    }
+
+    public DeviceSpatialIndex(double cellSizeKm) {
+        this.cellSizeKm = cellSizeKm;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        sync();
+    }
+
+    // 定期和数据库对账：平时只按 updated_at 游标拉变化的行，隔 fullSyncIntervalMs 才全量对一次
+    // updated_at 由本服务的预留/释放/到期 SQL 维护；别的写方改 status 时如果不更新 updated_at，只能等全量对账才生效
+    // 位置变化走遥测（relocate），不依赖这里
+    @Scheduled(fixedDelayString = "${device.index.sync-interval-ms:5000}",
+            initialDelayString = "${device.index.sync-interval-ms:5000}")
+    public void sync() {
+        try {
+            if (cursor == null || System.currentTimeMillis() - lastFullSyncMs >= fullSyncIntervalMs) {
+                fullSync();
+            } else {
+                syncChanges();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void fullSync() {
+        // 先取游标再全量读，读的过程中变化的行下一轮增量还会再拉到
+        LocalDateTime mark = deviceRepository.findMaxUpdatedAt();
+        List<Device> available = deviceRepository.findByStatus("AVAILABLE");
+        Set<String> seen = new HashSet<>();
+        for (Device row : available) {
+            seen.add(row.getDeviceId());
+            apply(row);
+        }
+        for (String deviceId : new ArrayList<>(devicesById.keySet())) {
+            if (!seen.contains(deviceId)) {
+                remove(deviceId);
+            }
+        }
+        cursor = mark == null ? EPOCH : mark;
+        lastFullSyncMs = System.currentTimeMillis();
+        ready = true;
+    }
+
+    private void syncChanges() {
+        // 往回多看一小段，避免漏掉时间戳较早但提交较晚的事务；重复应用同一行没有副作用
+        LocalDateTime since = cursor.minusSeconds(CURSOR_OVERLAP_SECONDS);
+        LocalDateTime next = cursor;
+        for (Device row : deviceRepository.findByUpdatedAtAfter(since)) {
+            apply(row);
+            if (row.getUpdatedAt() != null && row.getUpdatedAt().isAfter(next)) {
+                next = row.getUpdatedAt();
+            }
+        }
+        cursor = next;
+    }
+
+    private void apply(Device row) {
+        if (!"AVAILABLE".equals(row.getStatus())) {
+            remove(row.getDeviceId());
+            return;
+        }
+        // 数据库里的坐标可能落后于遥测，按实时位置决定所在格子
+        Device device = live(row);
+        Device current = devicesById.get(device.getDeviceId());
+        if (current == null || !sameState(current, device)) {
+            upsert(device);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return devicesById.size();
+    }
+
+    public double getCellSizeKm() {
+        return cellSizeKm;
+    }
+
+    public List<Device> findAll() {
+        List<Device> result = new ArrayList<>(devicesById.size());
+        for (Device device : devicesById.values()) {
+            result.add(live(device));
+        }
+        return result;
+    }
+
+    // 设备行变化时调用；非 AVAILABLE 状态直接移出索引
+    public void upsert(Device device) {
+        if (!"AVAILABLE".equals(device.getStatus())) {
+            remove(device.getDeviceId());
+            return;
+        }
+        Device snapshot = copyOf(device);
+        long newCell = cellOf(snapshot.getLatitude(), snapshot.getLongitude());
+        devicesById.compute(snapshot.getDeviceId(), (id, old) -> {
+            if (old != null) {
+                long oldCell = cellOf(old.getLatitude(), old.getLongitude());
+                if (oldCell != newCell) {
+                    removeFromCell(oldCell, id);
+                }
+            }
+            // 在 compute 里加入格子，避免和 removeFromCell 删除空格子时产生竞争
+            cells.compute(newCell, (k, ids) -> {
+                Set<String> set = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                set.add(id);
+                return set;
+            });
+            return snapshot;
+        });
+    }
+
+    public boolean contains(String deviceId) {
+        return devicesById.containsKey(deviceId);
+    }
+
+    // 遥测位置更新：只有跨格子时才改索引，格子内移动由读路径从 FleetStateStore 取实时坐标
+    // 坐标在 compute 里从 FleetStateStore 读，同一设备的并发更新按顺序生效，最后一次一定是最新位置
+    public void relocate(String deviceId) {
+        devicesById.computeIfPresent(deviceId, (id, old) -> {
+            Device current = live(old);
+            if (current == old) {
+                return old;
+            }
+            double lat = current.getLatitude(), lng = current.getLongitude();
+            long newCell = cellOf(lat, lng);
+            long oldCell = cellOf(old.getLatitude(), old.getLongitude());
+            if (oldCell == newCell) {
+                return old;
+            }
+            removeFromCell(oldCell, id);
+            cells.compute(newCell, (k, ids) -> {
+                Set<String> set = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                set.add(id);
+                return set;
+            });
+            Device moved = copyOf(old);
+            moved.setLatitude(lat);
+            moved.setLongitude(lng);
+            return moved;
+        });
+    }
+
+    public void remove(String deviceId) {
+        devicesById.computeIfPresent(deviceId, (id, old) -> {
+            removeFromCell(cellOf(old.getLatitude(), old.getLongitude()), id);
+            return null;
+        });
+    }
+
+    // 半径查询，结果按距离由近到远排序
+    public List<Device> findWithinRadius(double lat, double lng, double radiusKm) {
+        checkQuery(lat, lng, radiusKm);
+        radiusKm = Math.min(radiusKm, MAX_RADIUS_KM);
+        List<Candidate> candidates = new ArrayList<>();
+        double latSpan = radiusKm / KM_PER_DEGREE_LAT;
+        // 取查询范围内纬度绝对值最大处的经度换算，保证包围盒不会漏格子
+        double farLat = Math.min(Math.abs(lat) + latSpan, 89.9);
+        double lngSpan = radiusKm / (KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(farLat)));
+        int rowFrom = index(Math.max(lat - latSpan, -90)), rowTo = index(Math.min(lat + latSpan, 90));
+        int colFrom = index(Math.max(lng - lngSpan, -180)), colTo = index(Math.min(lng + lngSpan, 180));
+        // 包围盒的格子比设备还多时，直接扫全部设备更快
+        if (((long) rowTo - rowFrom + 1) * ((long) colTo - colFrom + 1) > devicesById.size()) {
+            scanAll(lat, lng, radiusKm, candidates);
+        } else {
+            for (int r = rowFrom; r <= rowTo; r++) {
+                for (int c = colFrom; c <= colTo; c++) {
+                    collect(key(r, c), lat, lng, radiusKm, candidates);
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::distance));
+        List<Device> result = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            result.add(candidate.device());
+        }
+        return result;
+    }
+
+    // 矩形范围查询，批量推荐用它一次取出整批订单附近的设备快照
+    public List<Device> findWithinBounds(double minLat, double maxLat, double minLng, double maxLng) {
+        List<Device> result = new ArrayList<>();
+        for (int r = index(minLat); r <= index(maxLat); r++) {
+            for (int c = index(minLng); c <= index(maxLng); c++) {
+                Set<String> ids = cells.get(key(r, c));
+                if (ids == null) {
+                    continue;
+                }
+                for (String id : ids) {
+                    Device device = live(devicesById.get(id));
+                    if (device != null
+                            && device.getLatitude() >= minLat && device.getLatitude() <= maxLat
+                            && device.getLongitude() >= minLng && device.getLongitude() <= maxLng) {
+                        result.add(device);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // k 近邻：从中心格子一圈圈向外扩，直到第 k 个候选比下一圈的最近可能距离还近
+    public List<Device> findNearest(double lat, double lng, int k, double maxRadiusKm) {
+        checkQuery(lat, lng, maxRadiusKm);
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        maxRadiusKm = Math.min(maxRadiusKm, MAX_RADIUS_KM);
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance).reversed());
+        int centerRow = index(lat), centerCol = index(lng);
+        // 经度方向格子在地面上更窄，按较短的边估算每一圈的最小距离
+        double ringStepKm = cellDegrees() * KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(Math.min(Math.abs(lat), 89.9)));
+        long maxRing = (long) Math.ceil(maxRadiusKm / ringStepKm) + 1;
+        // 要扫的格子比设备还多时，退化成全量扫描
+        if ((2 * maxRing + 1) * (2 * maxRing + 1) > devicesById.size()) {
+            List<Candidate> all = new ArrayList<>();
+            scanAll(lat, lng, maxRadiusKm, all);
+            all.sort(Comparator.comparingDouble(Candidate::distance));
+            List<Device> result = new ArrayList<>(Math.min(k, all.size()));
+            for (Candidate candidate : all.subList(0, Math.min(k, all.size()))) {
+                result.add(candidate.device());
+            }
+            return result;
+        }
+        List<Candidate> ring = new ArrayList<>();
+        for (int d = 0; d <= maxRing; d++) {
+            ring.clear();
+            for (int r = centerRow - d; r <= centerRow + d; r++) {
+                for (int c = centerCol - d; c <= centerCol + d; c++) {
+                    if (Math.abs(r - centerRow) == d || Math.abs(c - centerCol) == d) {
+                        collect(key(r, c), lat, lng, maxRadiusKm, ring);
+                    }
+                }
+            }
+            for (Candidate candidate : ring) {
+                best.offer(candidate);
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            // 第 d+1 圈内的点距离中心至少 d 个格子边长
+            if (best.size() == k && best.peek().distance() <= d * ringStepKm) {
+                break;
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(Candidate::distance));
+        List<Device> result = new ArrayList<>(sorted.size());
+        for (Candidate candidate : sorted) {
+            result.add(candidate.device());
+        }
+        return result;
+    }
+
+    private void scanAll(double lat, double lng, double radiusKm, List<Candidate> out) {
+        for (Device stored : devicesById.values()) {
+            Device device = live(stored);
+            double distance = haversine(lat, lng, device.getLatitude(), device.getLongitude());
+            if (distance <= radiusKm) {
+                out.add(new Candidate(device, distance));
+            }
+        }
+    }
+
+    private static void checkQuery(double lat, double lng, double radiusKm) {
+        if (!(Math.abs(lat) <= 90) || !(Math.abs(lng) <= 180) || !(radiusKm >= 0) || Double.isInfinite(radiusKm)) {
+            throw new IllegalArgumentException("invalid location or radius");
+        }
+    }
+
+    private void collect(long cellKey, double lat, double lng, double radiusKm, List<Candidate> out) {
+        Set<String> ids = cells.get(cellKey);
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            Device device = live(devicesById.get(id));
+            if (device == null) {
+                continue;
+            }
+            double distance = haversine(lat, lng, device.getLatitude(), device.getLongitude());
+            if (distance <= radiusKm) {
+                out.add(new Candidate(device, distance));
+            }
+        }
+    }
+
+    private Device live(Device device) {
+        return device == null || fleetState == null ? device : fleetState.overlay(device);
+    }
+
+    private void removeFromCell(long cellKey, String deviceId) {
+        cells.computeIfPresent(cellKey, (k, ids) -> {
+            ids.remove(deviceId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // 网格按等经纬度划分，格子边长 cellSizeKm 按纬度方向换算成角度
+    private long cellOf(double lat, double lng) {
+        return key(index(lat), index(lng));
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees());
+    }
+
+    private double cellDegrees() {
+        return cellSizeKm / KM_PER_DEGREE_LAT;
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static boolean sameState(Device a, Device b) {
+        return a.getLatitude() == b.getLatitude()
+                && a.getLongitude() == b.getLongitude()
+                && a.getBattery() == b.getBattery()
+                && a.getMaxWeight() == b.getMaxWeight()
+                && Objects.equals(a.getType(), b.getType())
+                && Objects.equals(a.getStationId(), b.getStationId());
+    }
+
+    // 索引里存副本，避免外部修改实体后索引格子和坐标对不上
+    private static Device copyOf(Device device) {
+        Device copy = new Device();
+        copy.setDeviceId(device.getDeviceId());
+        copy.setType(device.getType());
+        copy.setStationId(device.getStationId());
+        copy.setLatitude(device.getLatitude());
+        copy.setLongitude(device.getLongitude());
+        copy.setBattery(device.getBattery());
+        copy.setMaxWeight(device.getMaxWeight());
+        copy.setStatus(device.getStatus());
+        return copy;
+    }
+
+    private record Candidate(Device device, double distance) {}
+}
@@ -0,0 +1,161 @@
+package com.delivery.service;
+
+import com.delivery.entity.Device;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 设备实时状态（位置、电量），由 robotControl 推送的遥测更新
+// 按设备下标存成几列基本类型数组，每台设备一个序列锁：写入时序号为奇数，读者读前读后序号一致才算读到完整的一条，读路径不加锁
+@Component
+public class FleetStateStore {
+
+    private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int capacity;
+    private final Map<String, Integer> indexById = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    private final long[] seq;
+    private final double[] lat;
+    private final double[] lng;
+    private final int[] battery;
+    private final long[] deviceTime;   // 设备上报时间，只用来丢弃乱序的旧数据
+    private final long[] receivedAt;   // 本机收到的时间，用来判断数据是否还新鲜
+
+    // 超过这个时间没有遥测就不再覆盖数据库里的值（设备离线）
+    @Value("${fleet.state.max-age-ms:60000}")
+    private long maxAgeMs = 60000;
+
+    // 秒级粗时钟：新鲜度只需要秒级精度，读路径上不去取系统时间
+    private volatile long clock = System.currentTimeMillis();
+
+    public FleetStateStore(@Value("${fleet.state.capacity:65536}") int capacity) {
+        this.capacity = capacity;
+        this.seq = new long[capacity];
+        this.lat = new double[capacity];
+        this.lng = new double[capacity];
+        this.battery = new int[capacity];
+        this.deviceTime = new long[capacity];
+        this.receivedAt = new long[capacity];
+    }
+
+    // 返回这条遥测是否被采用：数值越界、容量用完或者比已有的数据旧时返回 false
+    public boolean update(String deviceId, double newLat, double newLng, int newBattery, long timestamp) {
+        if (!isValid(newLat, newLng, newBattery)) {
+            return false;
+        }
+        int i = indexOf(deviceId);
+        if (i < 0) {
+            return false;
+        }
+        long s;
+        int spins = 0;
+        while (true) {
+            s = (long) SEQ.getAcquire(seq, i);
+            if ((s & 1) == 0 && SEQ.compareAndSet(seq, i, s, s + 1)) {
+                break;
+            }
+            spins = backoff(spins);
+        }
+        VarHandle.storeStoreFence(); // 序号先变奇数，字段才能被看到
+        if (timestamp < deviceTime[i]) {
+            SEQ.setRelease(seq, i, s); // 没改任何字段，序号原样放回
+            return false;
+        }
+        lat[i] = newLat;
+        lng[i] = newLng;
+        battery[i] = newBattery;
+        deviceTime[i] = timestamp;
+        receivedAt[i] = clock;
+        SEQ.setRelease(seq, i, s + 2);
+        return true;
+    }
+
+    // 和 robotControl 的 TelemetryTable 同样的范围校验；遥测接口是公开的，越界坐标会让空间索引的格子计算溢出（NaN 也不通过）
+    static boolean isValid(double lat, double lng, int battery) {
+        return Math.abs(lat) <= 90 && Math.abs(lng) <= 180 && battery >= 0 && battery <= 100;
+    }
+
+    // 有新鲜遥测时返回带实时位置 / 电量的副本，否则原样返回
+    public Device overlay(Device device) {
+        Integer index = indexById.get(device.getDeviceId());
+        if (index == null) {
+            return device;
+        }
+        int i = index;
+        double liveLat, liveLng;
+        int liveBattery;
+        long received;
+        int spins = 0;
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(seq, i);
+            if ((s1 & 1) != 0) {
+                spins = backoff(spins);
+                continue;
+            }
+            liveLat = lat[i];
+            liveLng = lng[i];
+            liveBattery = battery[i];
+            received = receivedAt[i];
+            VarHandle.loadLoadFence();
+            if ((long) SEQ.getOpaque(seq, i) == s1) {
+                break;
+            }
+        }
+        if (received == 0 || clock - received > maxAgeMs) {
+            return device;
+        }
+        Device live = new Device();
+        live.setDeviceId(device.getDeviceId());
+        live.setType(device.getType());
+        live.setStationId(device.getStationId());
+        live.setLatitude(liveLat);
+        live.setLongitude(liveLng);
+        live.setBattery(liveBattery);
+        live.setMaxWeight(device.getMaxWeight());
+        live.setStatus(device.getStatus());
+        return live;
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        clock = System.currentTimeMillis();
+    }
+
+    public int size() {
+        return Math.min(nextIndex.get(), capacity);
+    }
+
+    // 写入方被调度出去时序号会一直是奇数，自旋一会儿还没好就让出 CPU
+    private static int backoff(int spins) {
+        if (spins < 64) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return spins + 1;
+    }
+
+    // 设备下标只分配不回收，容量按车队规模配置
+    private int indexOf(String deviceId) {
+        Integer index = indexById.get(deviceId);
+        if (index != null) {
+            return index;
+        }
+        if (nextIndex.get() >= capacity) {
+            return -1;
+        }
+        // 满了返回 null，map 里不会留下无效下标
+        index = indexById.computeIfAbsent(deviceId, id -> {
+            int i = nextIndex.getAndIncrement();
+            return i < capacity ? i : null;
+        });
+        return index == null ? -1 : index;
+    }
+}
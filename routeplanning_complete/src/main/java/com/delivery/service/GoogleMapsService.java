@@ -1,5 +1,6 @@
 package com.delivery.service;
 
+import com.delivery.dto.DistanceMatrix;
 import com.delivery.dto.Location;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,6 +10,9 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class GoogleMapsService {
@@ -19,14 +23,26 @@ public class GoogleMapsService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ExecutorService routeExecutor;
+
     @Value("${google.maps.api.key}")
     private String apiKey;
 
+    // Distance Matrix 单次请求的上限：每边最多 25 个点，元素总数不超过 max-elements
+    @Value("${google.maps.matrix.max-elements:100}")
+    private int matrixMaxElements;
+
+    @Value("${google.maps.matrix.max-concurrency:8}")
+    private int matrixMaxConcurrency;
+
+    private static final int MATRIX_MAX_SIDE = 25;
+
     private static final String GEOCODING_API = "https://maps.googleapis.com/maps/api/geocode/json";
     private static final String DISTANCE_MATRIX_API = "https://maps.googleapis.com/maps/api/distancematrix/json";
     private static final String ROADS_API = "https://roads.googleapis.com/v1/nearestRoads";
 
-    @Cacheable(value = "geocoding", key = "#address")
+    @Cacheable(value = "geocoding", key = "#address", unless = "#result == null")
     public Location geocodeAddress(String address) {
         try {
             String url = String.format("%s?address=%s&key=%s",
@@ -75,6 +91,92 @@ public class GoogleMapsService {
         return null;
     }
 
+    // 多对多距离矩阵：按 API 上限切成尽量大的块，各块并发请求后拼回一个矩阵
+    public DistanceMatrix getDistanceMatrix(List<Location> origins, List<Location> destinations, String mode) {
+        int rows = origins.size();
+        int cols = destinations.size();
+        double[][] distances = new double[rows][cols];
+        int[][] durations = new int[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            Arrays.fill(distances[i], Double.NaN);
+            Arrays.fill(durations[i], -1);
+        }
+        if (rows == 0 || cols == 0) {
+            return new DistanceMatrix(distances, durations);
+        }
+
+        // 终点尽量铺满一行，剩下的元素额度给起点
+        int tileCols = Math.min(cols, Math.min(MATRIX_MAX_SIDE, matrixMaxElements));
+        int tileRows = Math.min(rows, Math.min(MATRIX_MAX_SIDE, Math.max(1, matrixMaxElements / tileCols)));
+
+        // 限制同时在途的请求数，避免触发 API 的 QPS 限制
+        Semaphore permits = new Semaphore(matrixMaxConcurrency);
+        List<CompletableFuture<Void>> tiles = new ArrayList<>();
+        for (int r = 0; r < rows; r += tileRows) {
+            for (int c = 0; c < cols; c += tileCols) {
+                int rowStart = r;
+                int colStart = c;
+                int rowEnd = Math.min(rows, r + tileRows);
+                int colEnd = Math.min(cols, c + tileCols);
+                tiles.add(CompletableFuture.runAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        // 每块只写自己负责的区域，不需要额外同步
+                        fetchMatrixTile(origins.subList(rowStart, rowEnd), destinations.subList(colStart, colEnd),
+                                mode, distances, durations, rowStart, colStart);
+                    } finally {
+                        permits.release();
+                    }
+                }, routeExecutor));
+            }
+        }
+        CompletableFuture.allOf(tiles.toArray(new CompletableFuture<?>[0])).join();
+        return new DistanceMatrix(distances, durations);
+    }
+
+    private void fetchMatrixTile(List<Location> origins, List<Location> destinations, String mode,
+                                 double[][] distances, int[][] durations, int rowStart, int colStart) {
+        try {
+            String url = String.format("%s?origins=%s&destinations=%s&mode=%s&key=%s",
+                    DISTANCE_MATRIX_API,
+                    joinLocations(origins),
+                    joinLocations(destinations),
+                    mode, apiKey);
+
+            String response = restTemplate.getForObject(url, String.class);
+            JsonNode root = objectMapper.readTree(response);
+
+            if (!"OK".equals(root.get("status").asText())) {
+                return;
+            }
+            JsonNode rowNodes = root.get("rows");
+            for (int i = 0; i < origins.size(); i++) {
+                JsonNode elements = rowNodes.get(i).get("elements");
+                for (int j = 0; j < destinations.size(); j++) {
+                    JsonNode element = elements.get(j);
+                    // 单个元素可能是 ZERO_RESULTS / NOT_FOUND，保留默认值
+                    if ("OK".equals(element.get("status").asText())) {
+                        distances[rowStart + i][colStart + j] = element.get("distance").get("value").asDouble();
+                        durations[rowStart + i][colStart + j] = element.get("duration").get("value").asInt();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String joinLocations(List<Location> locations) {
+        StringBuilder sb = new StringBuilder();
+        for (Location loc : locations) {
+            if (sb.length() > 0) {
+                sb.append('|');
+            }
+            sb.append(String.format("%f,%f", loc.getLat(), loc.getLng()));
+        }
+        return sb.toString();
+    }
+
     public List<Location> getNearestRoads(Location location) {
         try {
             String url = String.format("%s?points=%f,%f&key=%s",
@@ -1,113 +1,192 @@
 package com.delivery.service;
 
+import com.delivery.dispatch.AssignmentSolver;
 import com.delivery.dto.*;
 import com.delivery.entity.Device;
 import com.delivery.entity.Station;
-import com.delivery.repository.DeviceRepository;
 import com.delivery.repository.StationRepository;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.delivery.routing.GeoUtils;
+import com.delivery.routing.RouteEngine;
+import com.delivery.routing.RouteResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class PathRecommendationService {
 
     @Autowired
-    private DeviceRepository deviceRepository;
+    private DeviceService deviceService;
 
     @Autowired
     private StationRepository stationRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private RouteEngine routeEngine;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private ExecutorService routeExecutor;
 
-    @Value("${google.maps.api.key}")
-    private String googleMapsApiKey;
+    @Autowired
+    private RouteCache routeCache;
+
+    @Autowired
+    private DeviceLeaseManager deviceLeaseManager;
+
+    @Autowired
+    private GoogleMapsService googleMapsService;
+
+    // 设备查询和两次路线查询并发执行，各自超时；路线超时后用直线距离估算
+    @Value("${path.recommend.device-timeout-ms:1000}")
+    private long deviceTimeoutMs;
+
+    @Value("${path.recommend.route-timeout-ms:2000}")
+    private long routeTimeoutMs;
+
+    // 批量推荐同时处理的订单数上限
+    @Value("${path.batch.max-concurrency:32}")
+    private int batchMaxConcurrency;
+
+    // 全局分配模式：代价 = 费用 + 每分钟时间折算的费用；每个订单只保留最便宜的若干台候选设备
+    @Value("${path.assign.time-weight:0.1}")
+    private double assignTimeWeight;
+
+    @Value("${path.assign.max-candidates:64}")
+    private int assignMaxCandidates;
+
+    // 机器人空驶到取件点的距离改用 Distance Matrix 的道路距离；按 机器人数 x 订单数 计费，默认关闭走直线估算
+    @Value("${path.assign.road-pickup:false}")
+    private boolean assignRoadPickup;
 
-    private static final String DIRECTIONS_API_URL = "https://maps.googleapis.com/maps/api/directions/json";
-    private static final String ROADS_API_URL = "https://roads.googleapis.com/v1/snapToRoads";
     private static final double DRONE_COST_PER_KM = 0.5;
     private static final double ROBOT_COST_PER_KM = 0.3;
     private static final double DRONE_BASE_COST = 2.0;
     private static final double ROBOT_BASE_COST = 1.5;
+    private static final double DEVICE_SEARCH_RADIUS_KM = 10;
+    // 占租约时被并发请求抢走设备后重新挑选的次数
+    private static final int MAX_LEASE_ATTEMPTS = 3;
 
     public PathRecommendationResponse recommendPath(PathRecommendationRequest request) {
-        List<Device> availableDevices = findAvailableDevices(request.getOrigin(), request.getPackageWeight());
+        CompletableFuture<List<Device>> devicesFuture = CompletableFuture
+                .supplyAsync(() -> findAvailableDevices(request.getOrigin(), request.getPackageWeight()), routeExecutor)
+                .orTimeout(deviceTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return new ArrayList<>();
+                });
 
         // 获取Google Maps路径信息
-        GoogleMapsRoute droneRoute = getGoogleMapsRoute(request.getOrigin(), request.getDestination(), "DRONE");
-        GoogleMapsRoute robotRoute = getGoogleMapsRoute(request.getOrigin(), request.getDestination(), "ROBOT");
+        CompletableFuture<RouteResult> droneFuture = fetchRouteAsync(request.getOrigin(), request.getDestination(), "DRONE");
+        CompletableFuture<RouteResult> robotFuture = fetchRouteAsync(request.getOrigin(), request.getDestination(), "ROBOT");
+
+        List<Device> availableDevices = devicesFuture.join();
+        RouteResult droneRoute = droneFuture.join();
+        RouteResult robotRoute = robotFuture.join();
+
+        // 被其他订单占着租约的设备不再推荐
+        List<Device> candidates = withoutLeasedDevices(availableDevices, request.getOrderId());
+        if (request.isHoldDevices() && request.getOrderId() != null) {
+            return buildHeldResponse(request, candidates, droneRoute, robotRoute);
+        }
+        return buildResponse(request, candidates, droneRoute, robotRoute);
+    }
+
+    // 推荐出的设备逐个占软租约；有设备被并发请求抢走时去掉它重新挑，最后没用上的租约立即释放
+    private PathRecommendationResponse buildHeldResponse(PathRecommendationRequest request, List<Device> devices,
+                                                         RouteResult droneRoute, RouteResult robotRoute) {
+        String holder = request.getOrderId();
+        Set<String> held = new HashSet<>();
+        List<Device> candidates = devices;
+        PathRecommendationResponse response = null;
+        for (int attempt = 0; attempt < MAX_LEASE_ATTEMPTS && !candidates.isEmpty(); attempt++) {
+            response = buildResponse(request, candidates, droneRoute, robotRoute);
+            Set<String> lost = new HashSet<>();
+            for (Recommendation rec : response.getRecommendations()) {
+                DeviceLeaseManager.Lease lease = deviceLeaseManager.tryLease(rec.getDeviceId(), holder);
+                if (lease == null) {
+                    lost.add(rec.getDeviceId());
+                } else {
+                    held.add(rec.getDeviceId());
+                    rec.setLeaseExpiresAt(lease.expiresAt());
+                }
+            }
+            if (lost.isEmpty()) {
+                break;
+            }
+            candidates = candidates.stream().filter(d -> !lost.contains(d.getDeviceId())).collect(Collectors.toList());
+            response = null;
+        }
+        if (response == null) {
+            response = new PathRecommendationResponse();
+            response.setOrderId(request.getOrderId());
+            response.setRecommendations(new ArrayList<>());
+        }
+        for (Recommendation rec : response.getRecommendations()) {
+            held.remove(rec.getDeviceId());
+        }
+        for (String deviceId : held) {
+            deviceLeaseManager.release(deviceId, holder);
+        }
+        return response;
+    }
+
+    private List<Device> withoutLeasedDevices(List<Device> devices, String holder) {
+        if (!deviceLeaseManager.hasActiveLeases()) {
+            return devices;
+        }
+        return devices.stream()
+                .filter(d -> !deviceLeaseManager.isLeasedByOther(d.getDeviceId(), holder))
+                .collect(Collectors.toList());
+    }
 
+    private PathRecommendationResponse buildResponse(PathRecommendationRequest request, List<Device> availableDevices,
+                                                     RouteResult droneRoute, RouteResult robotRoute) {
         List<Recommendation> recommendations = new ArrayList<>();
+        PathRecommendationResponse response = new PathRecommendationResponse();
+        response.setOrderId(request.getOrderId());
+        response.setRecommendations(recommendations);
+        // 附近没有可用设备（或设备查询超时 / 出错、全被别的订单占着）时返回空列表，下面三个方案都假设至少有一台设备
+        if (availableDevices.isEmpty()) {
+            return response;
+        }
 
         // 生成三种推荐方案
         recommendations.add(generateFastestRoute(request, availableDevices, droneRoute, robotRoute));
         recommendations.add(generateCheapestRoute(request, availableDevices, droneRoute, robotRoute));
         recommendations.add(generateOptimalRoute(request, availableDevices, droneRoute, robotRoute));
-
-        PathRecommendationResponse response = new PathRecommendationResponse();
-        response.setOrderId(request.getOrderId());
-        response.setRecommendations(recommendations);
         return response;
     }
 
-    private GoogleMapsRoute getGoogleMapsRoute(Location origin, Location destination, String deviceType) {
-        try {
-            String mode = "DRONE".equals(deviceType) ? "walking" : "driving";
-            String avoid = "ROBOT".equals(deviceType) ? "highways" : "";
-
-            String url = String.format("%s?origin=%f,%f&destination=%f,%f&mode=%s&avoid=%s&key=%s",
-                    DIRECTIONS_API_URL,
-                    origin.getLat(), origin.getLng(),
-                    destination.getLat(), destination.getLng(),
-                    mode, avoid, googleMapsApiKey);
-
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode root = objectMapper.readTree(response);
-
-            if ("OK".equals(root.get("status").asText())) {
-                JsonNode route = root.get("routes").get(0);
-                JsonNode leg = route.get("legs").get(0);
-
-                GoogleMapsRoute gmRoute = new GoogleMapsRoute();
-                gmRoute.setDistance(leg.get("distance").get("value").asDouble() / 1000.0);
-                gmRoute.setDuration(leg.get("duration").get("value").asInt() / 60);
-
-                // 提取航点
-                List<Location> waypoints = new ArrayList<>();
-                JsonNode steps = leg.get("steps");
-                for (JsonNode step : steps) {
-                    Location loc = new Location();
-                    loc.setLat(step.get("end_location").get("lat").asDouble());
-                    loc.setLng(step.get("end_location").get("lng").asDouble());
-                    waypoints.add(loc);
-                }
-                gmRoute.setWaypoints(waypoints);
-
-                // 对于无人机，使用直线距离的1.2倍作为飞行距离
-                if ("DRONE".equals(deviceType)) {
-                    double directDistance = calculateDistance(origin, destination);
-                    gmRoute.setDistance(directDistance * 1.2);
-                    gmRoute.setDuration((int)(directDistance * 2));
-                    gmRoute.setWaypoints(generateDroneWaypoints(origin, destination));
-                }
+    private CompletableFuture<RouteResult> fetchRouteAsync(Location origin, Location destination, String deviceType) {
+        return CompletableFuture
+                .supplyAsync(() -> getRoute(origin, destination, deviceType), routeExecutor)
+                .completeOnTimeout(estimateRoute(origin, destination, deviceType), routeTimeoutMs, TimeUnit.MILLISECONDS);
+    }
 
-                return gmRoute;
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    // 先查路线缓存，未命中再调路线引擎；降级估算结果不进缓存，下次还会重试
+    private RouteResult getRoute(Location origin, Location destination, String deviceType) {
+        RouteResult cached = routeCache.get(origin, destination, deviceType);
+        if (cached != null) {
+            return cached;
+        }
+        RouteResult fetched = routeEngine.route(origin, destination, deviceType);
+        if (fetched != null) {
+            routeCache.put(origin, destination, deviceType, fetched);
+            return fetched;
         }
+        return estimateRoute(origin, destination, deviceType);
+    }
 
-        // 降级方案：使用计算的距离
-        GoogleMapsRoute fallback = new GoogleMapsRoute();
+    // 降级方案：使用计算的距离
+    private RouteResult estimateRoute(Location origin, Location destination, String deviceType) {
+        RouteResult fallback = new RouteResult();
         double distance = calculateDistance(origin, destination);
         fallback.setDistance(distance);
         fallback.setDuration("DRONE".equals(deviceType) ? (int)(distance * 2) : (int)(distance * 6));
@@ -115,22 +194,8 @@ public class PathRecommendationService {
         return fallback;
     }
 
-    private List<Location> generateDroneWaypoints(Location origin, Location destination) {
-        List<Location> waypoints = new ArrayList<>();
-        // 生成无人机飞行路径的中间点（直线飞行）
-        int numPoints = 5;
-        for (int i = 1; i <= numPoints; i++) {
-            double ratio = (double) i / (numPoints + 1);
-            Location waypoint = new Location();
-            waypoint.setLat(origin.getLat() + (destination.getLat() - origin.getLat()) * ratio);
-            waypoint.setLng(origin.getLng() + (destination.getLng() - origin.getLng()) * ratio);
-            waypoints.add(waypoint);
-        }
-        return waypoints;
-    }
-
     private Recommendation generateFastestRoute(PathRecommendationRequest request, List<Device> devices,
-                                                GoogleMapsRoute droneRoute, GoogleMapsRoute robotRoute) {
+                                                RouteResult droneRoute, RouteResult robotRoute) {
         Device drone = devices.stream()
                 .filter(d -> "DRONE".equals(d.getType()))
                 .filter(d -> d.getMaxWeight() >= request.getPackageWeight())
@@ -151,7 +216,7 @@ public class PathRecommendationService {
     }
 
     private Recommendation generateCheapestRoute(PathRecommendationRequest request, List<Device> devices,
-                                                 GoogleMapsRoute droneRoute, GoogleMapsRoute robotRoute) {
+                                                 RouteResult droneRoute, RouteResult robotRoute) {
         Device robot = devices.stream()
                 .filter(d -> "ROBOT".equals(d.getType()))
                 .filter(d -> d.getMaxWeight() >= request.getPackageWeight())
@@ -163,7 +228,7 @@ public class PathRecommendationService {
     }
 
     private Recommendation generateOptimalRoute(PathRecommendationRequest request, List<Device> devices,
-                                                GoogleMapsRoute droneRoute, GoogleMapsRoute robotRoute) {
+                                                RouteResult droneRoute, RouteResult robotRoute) {
         String deviceType = selectOptimalDevice(request.getPackageWeight(), droneRoute.getDistance());
         Device device = devices.stream()
                 .filter(d -> deviceType.equals(d.getType()))
@@ -171,11 +236,11 @@ public class PathRecommendationService {
                 .findFirst()
                 .orElse(devices.get(0));
 
-        GoogleMapsRoute selectedRoute = "DRONE".equals(deviceType) ? droneRoute : robotRoute;
+        RouteResult selectedRoute = "DRONE".equals(deviceType) ? droneRoute : robotRoute;
         return createRecommendation("OPTIMAL", deviceType, device.getDeviceId(), selectedRoute);
     }
 
-    private Recommendation createRecommendation(String type, String device, String deviceId, GoogleMapsRoute gmRoute) {
+    private Recommendation createRecommendation(String type, String device, String deviceId, RouteResult gmRoute) {
         Recommendation rec = new Recommendation();
         rec.setType(type);
         rec.setDevice(device);
@@ -197,7 +262,7 @@ public class PathRecommendationService {
         return rec;
     }
 
-    private double calculateCost(String deviceType, double distance) {
+    static double calculateCost(String deviceType, double distance) {
         if ("DRONE".equals(deviceType)) {
             return distance * DRONE_COST_PER_KM + DRONE_BASE_COST;
         } else {
@@ -206,23 +271,275 @@ public class PathRecommendationService {
     }
 
     public BatchPathRecommendationResponse recommendBatchPaths(BatchPathRecommendationRequest request) {
+        long batchStart = System.nanoTime();
+        List<OrderRequest> requested = request.getOrders() == null ? new ArrayList<>() : request.getOrders();
+        // 缺起终点或坐标非法的订单单独标成 INVALID，不影响同批其他订单
+        List<OrderRequest> orders = new ArrayList<>(requested.size());
+        for (OrderRequest order : requested) {
+            if (isValidOrder(order)) {
+                orders.add(order);
+            }
+        }
+        BatchPathRecommendationResponse response = request.isGlobalAssignment()
+                ? assignBatchPaths(orders, batchStart)
+                : recommendEachPath(orders, batchStart);
+        return orders.size() == requested.size() ? response : withInvalidOrders(requested, response);
+    }
+
+    private static boolean isValidOrder(OrderRequest order) {
+        return order != null && GeoUtils.isValid(order.getOrigin()) && GeoUtils.isValid(order.getDestination());
+    }
+
+    // 把被跳过的非法订单按原顺序插回结果
+    private BatchPathRecommendationResponse withInvalidOrders(List<OrderRequest> requested, BatchPathRecommendationResponse response) {
+        List<PathRecommendationResponse> results = new ArrayList<>(requested.size());
+        List<OrderTiming> timings = new ArrayList<>(requested.size());
+        int next = 0;
+        for (OrderRequest order : requested) {
+            if (isValidOrder(order)) {
+                results.add(response.getResults().get(next));
+                timings.add(response.getTimings().get(next++));
+                continue;
+            }
+            String orderId = order == null ? null : order.getOrderId();
+            PathRecommendationResponse invalid = new PathRecommendationResponse();
+            invalid.setOrderId(orderId);
+            invalid.setRecommendations(new ArrayList<>());
+            results.add(invalid);
+            OrderTiming timing = new OrderTiming();
+            timing.setOrderId(orderId);
+            timing.setStatus("INVALID");
+            timings.add(timing);
+        }
+        response.setResults(results);
+        response.setTimings(timings);
+        return response;
+    }
+
+    private BatchPathRecommendationResponse recommendEachPath(List<OrderRequest> orders, long batchStart) {
+        // 整批订单共用一份设备快照，避免每个订单各查一次
+        List<Location> origins = orders.stream().map(OrderRequest::getOrigin).collect(Collectors.toList());
+        DeviceSpatialIndex snapshot = deviceService.snapshotAround(origins, DEVICE_SEARCH_RADIUS_KM);
+
+        // 起终点和设备类型都相同的路线只查一次
+        Map<String, CompletableFuture<RouteResult>> routes = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(Math.max(1, batchMaxConcurrency));
+
+        PathRecommendationResponse[] results = new PathRecommendationResponse[orders.size()];
+        OrderTiming[] timings = new OrderTiming[orders.size()];
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            int slot = i;
+            OrderRequest order = orders.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                permits.acquireUninterruptibly();
+                long start = System.nanoTime();
+                OrderTiming timing = new OrderTiming();
+                timing.setOrderId(order.getOrderId());
+                try {
+                    results[slot] = recommendForOrder(order, snapshot, routes);
+                    timing.setStatus(results[slot].getRecommendations().isEmpty() ? "NO_DEVICES" : "OK");
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    PathRecommendationResponse failed = new PathRecommendationResponse();
+                    failed.setOrderId(order.getOrderId());
+                    failed.setRecommendations(new ArrayList<>());
+                    results[slot] = failed;
+                    timing.setStatus("FAILED");
+                } finally {
+                    timing.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    timings[slot] = timing;
+                    permits.release();
+                }
+            }, routeExecutor);
+        }
+        CompletableFuture.allOf(tasks).join();
+
         BatchPathRecommendationResponse response = new BatchPathRecommendationResponse();
-        List<PathRecommendationResponse> results = new ArrayList<>();
+        response.setResults(Arrays.asList(results));
+        response.setTimings(Arrays.asList(timings));
+        response.setTotalElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart));
+        return response;
+    }
 
-        for (OrderRequest order : request.getOrders()) {
-            PathRecommendationRequest pathRequest = new PathRecommendationRequest();
-            pathRequest.setOrderId(order.getOrderId());
-            pathRequest.setOrigin(order.getOrigin());
-            pathRequest.setDestination(order.getDestination());
-            pathRequest.setPackageWeight(order.getPackageWeight());
+    private PathRecommendationResponse recommendForOrder(OrderRequest order, DeviceSpatialIndex snapshot,
+                                                         Map<String, CompletableFuture<RouteResult>> routes) {
+        PathRecommendationRequest pathRequest = new PathRecommendationRequest();
+        pathRequest.setOrderId(order.getOrderId());
+        pathRequest.setOrigin(order.getOrigin());
+        pathRequest.setDestination(order.getDestination());
+        pathRequest.setPackageWeight(order.getPackageWeight());
+
+        Location origin = order.getOrigin();
+        Location destination = order.getDestination();
+        CompletableFuture<RouteResult> droneFuture = routes.computeIfAbsent(routeKey(origin, destination, "DRONE"),
+                k -> fetchRouteAsync(origin, destination, "DRONE"));
+        CompletableFuture<RouteResult> robotFuture = routes.computeIfAbsent(routeKey(origin, destination, "ROBOT"),
+                k -> fetchRouteAsync(origin, destination, "ROBOT"));
+
+        // 快照只反映数据库状态，软租约要在这里再过滤一次
+        List<Device> devices = withoutLeasedDevices(
+                snapshot.findWithinRadius(origin.getLat(), origin.getLng(), DEVICE_SEARCH_RADIUS_KM), order.getOrderId());
+        return buildResponse(pathRequest, devices, droneFuture.join(), robotFuture.join());
+    }
 
-            results.add(recommendPath(pathRequest));
+    // 全局分配：整批订单一起建 设备 x 订单 的代价矩阵求最小费用匹配，同一台设备只会分给一个订单
+    private BatchPathRecommendationResponse assignBatchPaths(List<OrderRequest> orders, long batchStart) {
+        List<Location> origins = orders.stream().map(OrderRequest::getOrigin).collect(Collectors.toList());
+        DeviceSpatialIndex snapshot = deviceService.snapshotAround(origins, DEVICE_SEARCH_RADIUS_KM);
+
+        // 先并发取齐每个订单的两种路线
+        Map<String, CompletableFuture<RouteResult>> routes = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(Math.max(1, batchMaxConcurrency));
+        RouteResult[] droneRoutes = new RouteResult[orders.size()];
+        RouteResult[] robotRoutes = new RouteResult[orders.size()];
+        OrderTiming[] timings = new OrderTiming[orders.size()];
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            int slot = i;
+            OrderRequest order = orders.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                permits.acquireUninterruptibly();
+                long start = System.nanoTime();
+                OrderTiming timing = new OrderTiming();
+                timing.setOrderId(order.getOrderId());
+                try {
+                    Location origin = order.getOrigin();
+                    Location destination = order.getDestination();
+                    droneRoutes[slot] = routes.computeIfAbsent(routeKey(origin, destination, "DRONE"),
+                            k -> fetchRouteAsync(origin, destination, "DRONE")).join();
+                    robotRoutes[slot] = routes.computeIfAbsent(routeKey(origin, destination, "ROBOT"),
+                            k -> fetchRouteAsync(origin, destination, "ROBOT")).join();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    timing.setStatus("FAILED");
+                } finally {
+                    timing.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    timings[slot] = timing;
+                    permits.release();
+                }
+            }, routeExecutor);
         }
+        CompletableFuture.allOf(tasks).join();
 
+        List<List<Device>> nearby = new ArrayList<>(orders.size());
+        for (OrderRequest order : orders) {
+            nearby.add(withoutLeasedDevices(snapshot.findWithinRadius(
+                    order.getOrigin().getLat(), order.getOrigin().getLng(), DEVICE_SEARCH_RADIUS_KM), order.getOrderId()));
+        }
+        Map<String, Integer> pickupRows = new HashMap<>();
+        DistanceMatrix pickups = assignRoadPickup ? robotPickupMatrix(origins, nearby, pickupRows) : null;
+
+        // 稀疏代价矩阵：行是订单，列是设备
+        List<Device> devices = new ArrayList<>();
+        Map<String, Integer> deviceColumns = new HashMap<>();
+        int[] rowStart = new int[orders.size() + 1];
+        int[] colIndex = new int[Math.max(16, orders.size() * 8)];
+        double[] costs = new double[colIndex.length];
+        int edges = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            rowStart[i] = edges;
+            if (droneRoutes[i] == null || robotRoutes[i] == null) {
+                continue;
+            }
+            OrderRequest order = orders.get(i);
+            List<Candidate> candidates = new ArrayList<>();
+            for (Device device : nearby.get(i)) {
+                RouteResult route = "DRONE".equals(device.getType()) ? droneRoutes[i] : robotRoutes[i];
+                Integer row = pickupRows.get(device.getDeviceId());
+                double cost = row == null
+                        ? assignmentCost(order, device, route, Double.NaN, -1)
+                        : assignmentCost(order, device, route, pickups.getDistances()[row][i], pickups.getDurations()[row][i]);
+                if (!Double.isNaN(cost)) {
+                    candidates.add(new Candidate(device, cost));
+                }
+            }
+            candidates.sort(Comparator.comparingDouble(Candidate::cost));
+            int keep = Math.min(candidates.size(), Math.max(1, assignMaxCandidates));
+            if (edges + keep > colIndex.length) {
+                colIndex = Arrays.copyOf(colIndex, Math.max(colIndex.length * 2, edges + keep));
+                costs = Arrays.copyOf(costs, colIndex.length);
+            }
+            for (Candidate candidate : candidates.subList(0, keep)) {
+                Integer column = deviceColumns.computeIfAbsent(candidate.device().getDeviceId(), id -> {
+                    devices.add(candidate.device());
+                    return devices.size() - 1;
+                });
+                colIndex[edges] = column;
+                costs[edges++] = candidate.cost();
+            }
+        }
+        rowStart[orders.size()] = edges;
+        int[] assigned = AssignmentSolver.solve(orders.size(), devices.size(), rowStart, colIndex, costs);
+
+        List<PathRecommendationResponse> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            PathRecommendationResponse response = new PathRecommendationResponse();
+            response.setOrderId(orders.get(i).getOrderId());
+            response.setRecommendations(new ArrayList<>());
+            if (assigned[i] >= 0) {
+                Device device = devices.get(assigned[i]);
+                RouteResult route = "DRONE".equals(device.getType()) ? droneRoutes[i] : robotRoutes[i];
+                response.getRecommendations().add(createRecommendation("ASSIGNED", device.getType(), device.getDeviceId(), route));
+                timings[i].setStatus("OK");
+            } else if (timings[i].getStatus() == null) {
+                timings[i].setStatus("UNASSIGNED");
+            }
+            results.add(response);
+        }
+
+        BatchPathRecommendationResponse response = new BatchPathRecommendationResponse();
         response.setResults(results);
+        response.setTimings(Arrays.asList(timings));
+        response.setTotalElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart));
         return response;
     }
 
+    // 机器人 x 取件点 的道路距离矩阵，pickupRows 记下每台机器人所在的行
+    private DistanceMatrix robotPickupMatrix(List<Location> origins, List<List<Device>> nearby, Map<String, Integer> pickupRows) {
+        List<Location> robots = new ArrayList<>();
+        for (List<Device> devices : nearby) {
+            for (Device device : devices) {
+                if (!"DRONE".equals(device.getType()) && !pickupRows.containsKey(device.getDeviceId())) {
+                    pickupRows.put(device.getDeviceId(), robots.size());
+                    Location location = new Location();
+                    location.setLat(device.getLatitude());
+                    location.setLng(device.getLongitude());
+                    robots.add(location);
+                }
+            }
+        }
+        return googleMapsService.getDistanceMatrix(robots, origins, "driving");
+    }
+
+    // 设备接这个订单的代价：先空驶到取件点再送达；载重或电量不够时返回 NaN
+    // 有道路距离（米）/ 时长（秒）时用它算空驶，查不到时按直线估算
+    private double assignmentCost(OrderRequest order, Device device, RouteResult route,
+                                  double pickupMeters, int pickupSeconds) {
+        if (device.getMaxWeight() < order.getPackageWeight()) {
+            return Double.NaN;
+        }
+        String deviceType = device.getType();
+        double pickup = Double.isNaN(pickupMeters)
+                ? GeoUtils.haversineKm(device.getLatitude(), device.getLongitude(),
+                        order.getOrigin().getLat(), order.getOrigin().getLng())
+                : pickupMeters / 1000;
+        double distance = pickup + route.getDistance();
+        if (device.getBattery() < calculateBatteryRequired(deviceType, distance, order.getPackageWeight())) {
+            return Double.NaN;
+        }
+        double pickupMinutes = pickupSeconds >= 0 ? pickupSeconds / 60.0 : pickup * ("DRONE".equals(deviceType) ? 2 : 6);
+        double minutes = route.getDuration() + pickupMinutes;
+        return calculateCost(deviceType, distance) + assignTimeWeight * minutes;
+    }
+
+    private record Candidate(Device device, double cost) {}
+
+    private String routeKey(Location origin, Location destination, String deviceType) {
+        return String.format("%f,%f>%f,%f:%s", origin.getLat(), origin.getLng(),
+                destination.getLat(), destination.getLng(), deviceType);
+    }
+
     private String selectOptimalDevice(double weight, double distance) {
         if (weight > 5) return "ROBOT";
         if (weight <= 1 && distance > 3) return "DRONE";
@@ -232,42 +549,18 @@ public class PathRecommendationService {
     }
 
     private List<Device> findAvailableDevices(Location origin, double weight) {
-        return deviceRepository.findAvailableDevicesNearLocation(origin.getLat(), origin.getLng(), 10);
+        return deviceService.findAvailableDevices(origin.getLat(), origin.getLng(), DEVICE_SEARCH_RADIUS_KM);
     }
 
     private double calculateDistance(Location origin, Location destination) {
-        double lat1 = Math.toRadians(origin.getLat());
-        double lat2 = Math.toRadians(destination.getLat());
-        double deltaLat = lat2 - lat1;
-        double deltaLng = Math.toRadians(destination.getLng() - origin.getLng());
-
-        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2) +
-                Math.cos(lat1) * Math.cos(lat2) *
-                        Math.sin(deltaLng / 2) * Math.sin(deltaLng / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return 6371 * c;
+        return GeoUtils.haversineKm(origin, destination);
     }
 
-    private double calculateBatteryRequired(String deviceType, double distance, double weight) {
+    static double calculateBatteryRequired(String deviceType, double distance, double weight) {
         if ("DRONE".equals(deviceType)) {
             return distance * 10 + weight * 2;
         } else {
             return distance * 5 + weight * 1;
         }
     }
-
-    // 内部类：Google Maps路径数据
-    private static class GoogleMapsRoute {
-        private double distance;
-        private int duration;
-        private List<Location> waypoints;
-
-        public double getDistance() { return distance; }
-        public void setDistance(double distance) { this.distance = distance; }
-        public int getDuration() { return duration; }
-        public void setDuration(int duration) { this.duration = duration; }
-        public List<Location> getWaypoints() { return waypoints; }
-        public void setWaypoints(List<Location> waypoints) { this.waypoints = waypoints; }
-    }
 }
\ No newline at end of file
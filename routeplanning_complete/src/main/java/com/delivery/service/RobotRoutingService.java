@@ -0,0 +1,178 @@
+package com.delivery.service;
+
+import com.delivery.dispatch.RobotRoutePlanner;
+import com.delivery.dto.*;
+import com.delivery.entity.Device;
+import com.delivery.entity.Station;
+import com.delivery.repository.StationRepository;
+import com.delivery.routing.GeoUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 机器人多点派送：一波订单按离取件点最近的站点分组，每个站点用本站可用的机器人规划多点路线，各站点并行规划
+@Service
+public class RobotRoutingService {
+
+    @Autowired
+    private StationRepository stationRepository;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private ExecutorService routeExecutor;
+
+    @Autowired
+    private DeviceLeaseManager deviceLeaseManager;
+
+    // 每个站点的局部搜索时间预算，各站点并行，整波耗时约等于这个值
+    @Value("${path.vrp.time-budget-ms:2000}")
+    private long timeBudgetMs;
+
+    // 与 estimateRoute 一致：机器人每公里 6 分钟
+    private static final double ROBOT_MINUTES_PER_KM = 6;
+
+    public RobotWavePlanResponse planWave(BatchPathRecommendationRequest request) {
+        long start = System.nanoTime();
+        List<OrderRequest> orders = request.getOrders() == null ? new ArrayList<>() : request.getOrders();
+        List<Station> stations = stationRepository.findAll();
+
+        Map<String, List<OrderRequest>> ordersByStation = new HashMap<>();
+        List<String> unassigned = new ArrayList<>();
+        for (OrderRequest order : orders) {
+            Station station = nearestStation(stations, order.getOrigin());
+            if (station == null) {
+                unassigned.add(order.getOrderId());
+                continue;
+            }
+            ordersByStation.computeIfAbsent(station.getStationId(), k -> new ArrayList<>()).add(order);
+        }
+
+        // 被这一波以外的订单占着租约的机器人不参与规划，本波订单自己占着的照常使用
+        Set<String> waveOrderIds = new HashSet<>();
+        for (OrderRequest order : orders) {
+            waveOrderIds.add(order.getOrderId());
+        }
+        Map<String, List<Device>> robotsByStation = new HashMap<>();
+        for (Device robot : deviceService.findAvailableDevicesOfType("ROBOT")) {
+            String holder = deviceLeaseManager.holderOf(robot.getDeviceId());
+            if (holder != null && !waveOrderIds.contains(holder)) {
+                continue;
+            }
+            if (robot.getStationId() != null) {
+                robotsByStation.computeIfAbsent(robot.getStationId(), k -> new ArrayList<>()).add(robot);
+            }
+        }
+
+        List<CompletableFuture<StationPlan>> futures = new ArrayList<>();
+        for (Station station : stations) {
+            List<OrderRequest> stationOrders = ordersByStation.get(station.getStationId());
+            if (stationOrders == null) {
+                continue;
+            }
+            List<Device> robots = robotsByStation.getOrDefault(station.getStationId(), new ArrayList<>());
+            futures.add(CompletableFuture.supplyAsync(() -> planStation(station, stationOrders, robots), routeExecutor));
+        }
+
+        List<RobotRoutePlan> routes = new ArrayList<>();
+        for (CompletableFuture<StationPlan> future : futures) {
+            StationPlan plan = future.join();
+            routes.addAll(plan.routes());
+            unassigned.addAll(plan.unassignedOrderIds());
+        }
+
+        RobotWavePlanResponse response = new RobotWavePlanResponse();
+        response.setRoutes(routes);
+        response.setUnassignedOrderIds(unassigned);
+        response.setTotalElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return response;
+    }
+
+    private StationPlan planStation(Station station, List<OrderRequest> orders, List<Device> robots) {
+        List<RobotRoutePlanner.Job> jobs = new ArrayList<>(orders.size());
+        for (OrderRequest order : orders) {
+            jobs.add(new RobotRoutePlanner.Job(order.getOrigin().getLat(), order.getOrigin().getLng(),
+                    order.getDestination().getLat(), order.getDestination().getLng(), order.getPackageWeight()));
+        }
+        List<RobotRoutePlanner.Vehicle> vehicles = new ArrayList<>(robots.size());
+        for (Device robot : robots) {
+            vehicles.add(new RobotRoutePlanner.Vehicle(robot.getMaxWeight(), maxDistanceKm(robot)));
+        }
+
+        RobotRoutePlanner.Plan plan = RobotRoutePlanner.plan(
+                station.getLatitude(), station.getLongitude(), jobs, vehicles, timeBudgetMs);
+
+        Location depot = new Location();
+        depot.setLat(station.getLatitude());
+        depot.setLng(station.getLongitude());
+        List<RobotRoutePlan> routes = new ArrayList<>();
+        for (int v = 0; v < robots.size(); v++) {
+            int[] stops = plan.stops()[v];
+            if (stops.length == 0) {
+                continue;
+            }
+            List<RouteStop> routeStops = new ArrayList<>(stops.length);
+            List<Location> waypoints = new ArrayList<>(stops.length + 2);
+            waypoints.add(depot);
+            for (int stop : stops) {
+                OrderRequest order = orders.get(Math.abs(stop) - 1);
+                RouteStop routeStop = new RouteStop();
+                routeStop.setOrderId(order.getOrderId());
+                routeStop.setType(stop > 0 ? "PICKUP" : "DROPOFF");
+                routeStop.setLocation(stop > 0 ? order.getOrigin() : order.getDestination());
+                routeStops.add(routeStop);
+                waypoints.add(routeStop.getLocation());
+            }
+            waypoints.add(depot);
+
+            double distance = plan.distanceKm()[v];
+            Route route = new Route();
+            route.setDistance(distance);
+            route.setDuration((int) (distance * ROBOT_MINUTES_PER_KM));
+            route.setCost(PathRecommendationService.calculateCost("ROBOT", distance));
+            route.setWaypoints(waypoints);
+
+            RobotRoutePlan routePlan = new RobotRoutePlan();
+            routePlan.setDeviceId(robots.get(v).getDeviceId());
+            routePlan.setStationId(station.getStationId());
+            routePlan.setStops(routeStops);
+            routePlan.setRoute(route);
+            routes.add(routePlan);
+        }
+
+        List<String> unassigned = new ArrayList<>();
+        for (int job : plan.unassigned()) {
+            unassigned.add(orders.get(job).getOrderId());
+        }
+        return new StationPlan(routes, unassigned);
+    }
+
+    // 电量能支撑的最大里程：按满载算，耗电量随里程线性增长
+    private double maxDistanceKm(Device robot) {
+        double fixed = PathRecommendationService.calculateBatteryRequired("ROBOT", 0, robot.getMaxWeight());
+        double perKm = PathRecommendationService.calculateBatteryRequired("ROBOT", 1, 0)
+                - PathRecommendationService.calculateBatteryRequired("ROBOT", 0, 0);
+        return Math.max(0, (robot.getBattery() - fixed) / perKm);
+    }
+
+    private Station nearestStation(List<Station> stations, Location location) {
+        Station nearest = null;
+        double best = Double.MAX_VALUE;
+        for (Station station : stations) {
+            double distance = GeoUtils.haversineKm(station.getLatitude(), station.getLongitude(),
+                    location.getLat(), location.getLng());
+            if (distance < best) {
+                best = distance;
+                nearest = station;
+            }
+        }
+        return nearest;
+    }
+
+    private record StationPlan(List<RobotRoutePlan> routes, List<String> unassignedOrderIds) {}
+}
@@ -0,0 +1,54 @@
+package com.delivery.service;
+
+import com.delivery.dto.Location;
+import com.delivery.routing.RouteResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+// Directions 路线缓存：起终点吸附到网格上再做 key，相邻几十米内的请求共用一条路线
+@Component
+public class RouteCache {
+
+    private static final double METERS_PER_DEGREE_LAT = 111_320;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${route.cache.grid-meters:50}")
+    private double gridMeters;
+
+    // 容量和过期时间在 CacheConfig 的 "routes" 缓存里配置，这里直接用底层的 Caffeine 缓存
+    private Cache<Object, Object> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = ((CaffeineCache) cacheManager.getCache("routes")).getNativeCache();
+    }
+
+    // 不用 cache.get(key, loader)：loader 里是阻塞的 HTTP 调用，会在 compute 锁里钉住虚拟线程
+    public RouteResult get(Location origin, Location destination, String deviceType) {
+        return (RouteResult) cache.getIfPresent(keyOf(origin, destination, deviceType));
+    }
+
+    public void put(Location origin, Location destination, String deviceType, RouteResult route) {
+        cache.put(keyOf(origin, destination, deviceType), route);
+    }
+
+    // 经纬度都按纬度方向的米数换算成格子，经度方向的格子在地面上只会更小，不会把更远的点合并
+    private RouteKey keyOf(Location origin, Location destination, String deviceType) {
+        double gridDegrees = gridMeters / METERS_PER_DEGREE_LAT;
+        return new RouteKey(
+                Math.round(origin.getLat() / gridDegrees),
+                Math.round(origin.getLng() / gridDegrees),
+                Math.round(destination.getLat() / gridDegrees),
+                Math.round(destination.getLng() / gridDegrees),
+                deviceType);
+    }
+
+    private record RouteKey(long originLat, long originLng, long destinationLat, long destinationLng, String deviceType) {}
+}
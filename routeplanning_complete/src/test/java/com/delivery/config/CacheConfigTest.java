@@ -0,0 +1,67 @@
+package com.delivery.config;
+
+import com.delivery.dto.Location;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// geocoding 缓存未命中时只能调用一次方法体：解析不出来的地址（返回 null）每次未命中也只花一次付费调用
+class CacheConfigTest {
+
+    static class Geocoder {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        public int calls() {
+            return calls.get();
+        }
+
+        @Cacheable(value = "geocoding", key = "#address", unless = "#result == null")
+        public Location geocodeAddress(String address) {
+            calls.incrementAndGet();
+            if (address.startsWith("nowhere")) {
+                return null;
+            }
+            Location location = new Location();
+            location.setLat(1);
+            location.setLng(2);
+            return location;
+        }
+    }
+
+    private AnnotationConfigApplicationContext context;
+    private Geocoder geocoder;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.register(CacheConfig.class, Geocoder.class);
+        context.refresh();
+        geocoder = context.getBean(Geocoder.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void unresolvableAddressCallsTheApiOncePerMiss() {
+        assertNull(geocoder.geocodeAddress("nowhere"));
+        assertEquals(1, geocoder.calls());
+        // null 不缓存，下一次还是未命中，但同样只调一次
+        assertNull(geocoder.geocodeAddress("nowhere"));
+        assertEquals(2, geocoder.calls());
+    }
+
+    @Test
+    void resolvedAddressIsCached() {
+        Location first = geocoder.geocodeAddress("1 Market St");
+        assertSame(first, geocoder.geocodeAddress("1 Market St"));
+        assertEquals(1, geocoder.calls());
+    }
+}
@@ -0,0 +1,88 @@
+package com.delivery.dispatch;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 小规模随机稀疏矩阵上和穷举对比：分配数最多，分配数相同时总代价最小
+class AssignmentSolverTest {
+
+    @Test
+    void matchesBruteForceOnSmallSparseMatrices() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            int rows = 1 + random.nextInt(6);
+            int cols = 1 + random.nextInt(6);
+            double density = 0.2 + random.nextDouble() * 0.8;
+            double[][] dense = new double[rows][cols];
+            List<Integer> colIndex = new ArrayList<>();
+            List<Double> cost = new ArrayList<>();
+            int[] rowStart = new int[rows + 1];
+            for (int r = 0; r < rows; r++) {
+                rowStart[r] = colIndex.size();
+                for (int c = 0; c < cols; c++) {
+                    // 整数代价，方便出现并列最优
+                    dense[r][c] = random.nextDouble() < density ? random.nextInt(20) : Double.NaN;
+                    if (!Double.isNaN(dense[r][c])) {
+                        colIndex.add(c);
+                        cost.add(dense[r][c]);
+                    }
+                }
+            }
+            rowStart[rows] = colIndex.size();
+
+            int[] assigned = AssignmentSolver.solve(rows, cols, rowStart,
+                    colIndex.stream().mapToInt(Integer::intValue).toArray(),
+                    cost.stream().mapToDouble(Double::doubleValue).toArray());
+
+            boolean[] used = new boolean[cols];
+            int count = 0;
+            double total = 0;
+            for (int r = 0; r < rows; r++) {
+                int c = assigned[r];
+                if (c < 0) {
+                    continue;
+                }
+                assertFalse(Double.isNaN(dense[r][c]), "round " + round + ": order " + r + " got a non-candidate device");
+                assertFalse(used[c], "round " + round + ": device " + c + " assigned twice");
+                used[c] = true;
+                count++;
+                total += dense[r][c];
+            }
+            double[] best = bruteForce(dense, 0, new boolean[cols]);
+            assertEquals(best[0], count, "round " + round + ": assigned count");
+            assertEquals(best[1], total, 1e-9, "round " + round + ": total cost");
+        }
+    }
+
+    @Test
+    void emptyCandidatesLeaveOrdersUnassigned() {
+        int[] assigned = AssignmentSolver.solve(2, 3, new int[]{0, 0, 1}, new int[]{2}, new double[]{5});
+        assertArrayEquals(new int[]{-1, 2}, assigned);
+    }
+
+    // 返回 {最多分配数, 该分配数下的最小总代价}
+    private static double[] bruteForce(double[][] dense, int row, boolean[] used) {
+        if (row == dense.length) {
+            return new double[]{0, 0};
+        }
+        double[] best = bruteForce(dense, row + 1, used);
+        for (int c = 0; c < used.length; c++) {
+            if (used[c] || Double.isNaN(dense[row][c])) {
+                continue;
+            }
+            used[c] = true;
+            double[] rest = bruteForce(dense, row + 1, used);
+            used[c] = false;
+            double count = rest[0] + 1;
+            double total = rest[1] + dense[row][c];
+            if (count > best[0] || (count == best[0] && total < best[1])) {
+                best = new double[]{count, total};
+            }
+        }
+        return best;
+    }
+}
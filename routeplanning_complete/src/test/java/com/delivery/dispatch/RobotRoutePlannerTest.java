@@ -0,0 +1,103 @@
+package com.delivery.dispatch;
+
+import com.delivery.routing.GeoUtils;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 随机实例上检查规划结果的约束：每个订单恰好出现一次，先取后送且在同一台车上，载重、里程不超限
+class RobotRoutePlannerTest {
+
+    private static final double DEPOT_LAT = 37.77;
+    private static final double DEPOT_LNG = -122.42;
+
+    @Test
+    void plansRespectPrecedenceCapacityAndRange() {
+        Random random = new Random(17);
+        for (int round = 0; round < 40; round++) {
+            List<RobotRoutePlanner.Job> jobs = new ArrayList<>();
+            int jobCount = 1 + random.nextInt(40);
+            for (int j = 0; j < jobCount; j++) {
+                jobs.add(new RobotRoutePlanner.Job(
+                        DEPOT_LAT + (random.nextDouble() - 0.5) * 0.05, DEPOT_LNG + (random.nextDouble() - 0.5) * 0.05,
+                        DEPOT_LAT + (random.nextDouble() - 0.5) * 0.05, DEPOT_LNG + (random.nextDouble() - 0.5) * 0.05,
+                        0.5 + random.nextDouble() * 6));
+            }
+            List<RobotRoutePlanner.Vehicle> vehicles = new ArrayList<>();
+            int vehicleCount = 1 + random.nextInt(4);
+            for (int v = 0; v < vehicleCount; v++) {
+                vehicles.add(new RobotRoutePlanner.Vehicle(5 + random.nextInt(10), 5 + random.nextDouble() * 20));
+            }
+
+            RobotRoutePlanner.Plan plan = RobotRoutePlanner.plan(DEPOT_LAT, DEPOT_LNG, jobs, vehicles, 20);
+            assertFeasible("round " + round, jobs, vehicles, plan);
+        }
+    }
+
+    @Test
+    void jobsNoVehicleCanCarryOrReachStayUnassigned() {
+        List<RobotRoutePlanner.Job> jobs = List.of(
+                new RobotRoutePlanner.Job(DEPOT_LAT + 0.001, DEPOT_LNG, DEPOT_LAT + 0.002, DEPOT_LNG, 1),
+                // 比所有车的载重都重
+                new RobotRoutePlanner.Job(DEPOT_LAT + 0.001, DEPOT_LNG, DEPOT_LAT, DEPOT_LNG + 0.001, 50),
+                // 往返里程超过续航
+                new RobotRoutePlanner.Job(DEPOT_LAT + 0.5, DEPOT_LNG, DEPOT_LAT + 0.6, DEPOT_LNG, 1));
+        List<RobotRoutePlanner.Vehicle> vehicles = List.of(new RobotRoutePlanner.Vehicle(10, 20));
+
+        RobotRoutePlanner.Plan plan = RobotRoutePlanner.plan(DEPOT_LAT, DEPOT_LNG, jobs, vehicles, 20);
+
+        assertFeasible("fixed", jobs, vehicles, plan);
+        assertArrayEquals(new int[]{1, 2}, plan.unassigned());
+    }
+
+    private static void assertFeasible(String label, List<RobotRoutePlanner.Job> jobs,
+                                       List<RobotRoutePlanner.Vehicle> vehicles, RobotRoutePlanner.Plan plan) {
+        int[] seen = new int[jobs.size()];
+        for (int job : plan.unassigned()) {
+            seen[job]++;
+        }
+        assertEquals(vehicles.size(), plan.stops().length, label);
+        for (int v = 0; v < plan.stops().length; v++) {
+            RobotRoutePlanner.Vehicle vehicle = vehicles.get(v);
+            boolean[] onBoard = new boolean[jobs.size()];
+            double load = 0;
+            double distance = 0;
+            double lat = DEPOT_LAT, lng = DEPOT_LNG;
+            for (int stop : plan.stops()[v]) {
+                int job = Math.abs(stop) - 1;
+                RobotRoutePlanner.Job j = jobs.get(job);
+                double nextLat, nextLng;
+                if (stop > 0) {
+                    assertFalse(onBoard[job], label + ": job " + job + " picked up twice");
+                    seen[job]++;
+                    onBoard[job] = true;
+                    load += j.weight();
+                    assertTrue(load <= vehicle.capacity() + 1e-9, label + ": vehicle " + v + " overloaded");
+                    nextLat = j.pickupLat();
+                    nextLng = j.pickupLng();
+                } else {
+                    assertTrue(onBoard[job], label + ": job " + job + " dropped before pickup");
+                    onBoard[job] = false;
+                    load -= j.weight();
+                    nextLat = j.dropLat();
+                    nextLng = j.dropLng();
+                }
+                distance += GeoUtils.haversineKm(lat, lng, nextLat, nextLng);
+                lat = nextLat;
+                lng = nextLng;
+            }
+            distance += GeoUtils.haversineKm(lat, lng, DEPOT_LAT, DEPOT_LNG);
+            for (int job = 0; job < onBoard.length; job++) {
+                assertFalse(onBoard[job], label + ": job " + job + " never dropped");
+            }
+            assertEquals(distance, plan.distanceKm()[v], 1e-3, label + ": vehicle " + v + " distance");
+            assertTrue(distance <= vehicle.maxDistanceKm() + 1e-3, label + ": vehicle " + v + " out of range");
+        }
+        for (int job = 0; job < seen.length; job++) {
+            assertEquals(1, seen[job], label + ": job " + job + " appears " + seen[job] + " times");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.delivery.routing;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 随机网格路网上和 Dijkstra 对比：A* 的启发函数是球面直线距离，边长不短于直线距离时结果必须同样最优
+class AStarSearchTest {
+
+    private static final int SIDE = 9;
+    private static final double SPACING_DEGREES = 0.001;
+
+    @Test
+    void shortestDistancesMatchDijkstra() {
+        Random random = new Random(11);
+        for (int round = 0; round < 5; round++) {
+            RoadGraph graph = randomGrid(random);
+            AStarSearch search = new AStarSearch(graph);
+            int n = graph.nodeCount();
+            for (int source = 0; source < n; source++) {
+                double[] expected = dijkstra(graph, source);
+                for (int target = 0; target < n; target++) {
+                    int[] path = search.findPath(source, target);
+                    if (Double.isInfinite(expected[target])) {
+                        assertNull(path, source + " -> " + target + " should be unreachable");
+                        continue;
+                    }
+                    assertNotNull(path, source + " -> " + target);
+                    assertEquals(expected[target], search.lastDistanceMeters(), 1e-3, source + " -> " + target);
+                    assertEquals(expected[target], pathLength(graph, path), 1e-3, source + " -> " + target + " path");
+                    assertEquals(source, path[0]);
+                    assertEquals(target, path[path.length - 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void workspaceReuseDoesNotLeakBetweenQueries() {
+        RoadGraph graph = randomGrid(new Random(3));
+        AStarSearch reused = new AStarSearch(graph);
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            int[] path = reused.findPath(source, target);
+            int[] fresh = new AStarSearch(graph).findPath(source, target);
+            assertEquals(fresh == null, path == null);
+            if (path != null) {
+                assertEquals(pathLength(graph, fresh), pathLength(graph, path), 1e-3);
+            }
+        }
+    }
+
+    // 网格节点，随机删掉一部分边（可能不连通），边长 = 直线距离 * [1, 2)，双向边长度不同
+    private static RoadGraph randomGrid(Random random) {
+        int n = SIDE * SIDE;
+        int[] latE7 = new int[n];
+        int[] lngE7 = new int[n];
+        for (int i = 0; i < n; i++) {
+            latE7[i] = (int) Math.round((37.7 + (i / SIDE) * SPACING_DEGREES) * 1e7);
+            lngE7[i] = (int) Math.round((-122.4 + (i % SIDE) * SPACING_DEGREES) * 1e7);
+        }
+        int[] edgeOffsets = new int[n + 1];
+        List<Integer> targets = new ArrayList<>();
+        List<Float> lengths = new ArrayList<>();
+        int[][] steps = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}, {1, 1}};
+        for (int i = 0; i < n; i++) {
+            edgeOffsets[i] = targets.size();
+            int row = i / SIDE, col = i % SIDE;
+            for (int[] step : steps) {
+                int r = row + step[0], c = col + step[1];
+                if (r < 0 || r >= SIDE || c < 0 || c >= SIDE || random.nextDouble() < 0.25) {
+                    continue;
+                }
+                int j = r * SIDE + c;
+                double straight = GeoUtils.haversineKm(latE7[i] / 1e7, lngE7[i] / 1e7, latE7[j] / 1e7, lngE7[j] / 1e7) * 1000;
+                targets.add(j);
+                lengths.add((float) (straight * (1 + random.nextDouble())));
+            }
+        }
+        edgeOffsets[n] = targets.size();
+        float[] edgeLengths = new float[lengths.size()];
+        for (int e = 0; e < edgeLengths.length; e++) {
+            edgeLengths[e] = lengths.get(e);
+        }
+        return RoadGraph.fromArrays(latE7, lngE7, edgeOffsets,
+                targets.stream().mapToInt(Integer::intValue).toArray(), edgeLengths);
+    }
+
+    private static double[] dijkstra(RoadGraph graph, int source) {
+        double[] distance = new double[graph.nodeCount()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[source] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, source});
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int node = (int) top[1];
+            if (top[0] > distance[node]) {
+                continue;
+            }
+            for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                int next = graph.edgeTarget(e);
+                double d = distance[node] + graph.edgeLength(e);
+                if (d < distance[next]) {
+                    distance[next] = d;
+                    queue.add(new double[]{d, next});
+                }
+            }
+        }
+        return distance;
+    }
+
+    // 沿路径逐段找边累加长度，段之间没有边时失败
+    private static double pathLength(RoadGraph graph, int[] path) {
+        double total = 0;
+        for (int i = 1; i < path.length; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int e = graph.firstEdge(path[i - 1]), end = graph.endEdge(path[i - 1]); e < end; e++) {
+                if (graph.edgeTarget(e) == path[i]) {
+                    best = Math.min(best, graph.edgeLength(e));
+                }
+            }
+            assertTrue(best < Double.POSITIVE_INFINITY, "no edge " + path[i - 1] + " -> " + path[i]);
+            total += best;
+        }
+        return total;
+    }
+}
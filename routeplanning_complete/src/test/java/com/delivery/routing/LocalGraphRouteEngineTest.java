@@ -0,0 +1,98 @@
+package com.delivery.routing;
+
+import com.delivery.dto.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 同时进行的 A* 搜索数不超过池大小：突发请求排队，等不到工作区时返回 null 让调用方估算，不会无限分配整图大小的工作区
+class LocalGraphRouteEngineTest {
+
+    private static final int POOL = 2;
+
+    @TempDir
+    Path dir;
+
+    private LocalGraphRouteEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 三个节点连成一条线，双向边
+        int[] latE7 = {377000000, 377010000, 377020000};
+        int[] lngE7 = {-1224000000, -1224000000, -1224000000};
+        int[] edgeOffsets = {0, 1, 3, 4};
+        int[] edgeTargets = {1, 0, 2, 1};
+        float[] edgeLengths = {120, 120, 120, 120};
+        Path file = dir.resolve("line.rgrf");
+        RoadGraph.fromArrays(latE7, lngE7, edgeOffsets, edgeTargets, edgeLengths).write(file);
+
+        engine = new LocalGraphRouteEngine();
+        ReflectionTestUtils.setField(engine, "graphPath", file.toString());
+        ReflectionTestUtils.setField(engine, "maxSnapMeters", 500.0);
+        ReflectionTestUtils.setField(engine, "robotSpeedKmh", 10.0);
+        ReflectionTestUtils.setField(engine, "searchPoolSize", POOL);
+        ReflectionTestUtils.setField(engine, "searchWaitMs", 50L);
+        engine.init();
+    }
+
+    @Test
+    void returnsNullWhenEverySearchSlotIsBusy() throws Exception {
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(engine, "permits");
+        permits.acquire(POOL);
+        try {
+            long start = System.nanoTime();
+            assertNull(engine.route(location(37.7, -122.4), location(37.702, -122.4), "ROBOT"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 40);
+        } finally {
+            permits.release(POOL);
+        }
+        assertNotNull(engine.route(location(37.7, -122.4), location(37.702, -122.4), "ROBOT"));
+    }
+
+    @Test
+    void burstNeverHoldsMoreWorkspacesThanThePool() throws Exception {
+        ReflectionTestUtils.setField(engine, "searchWaitMs", 10_000L);
+        int threads = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<RouteResult>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return engine.route(location(37.7, -122.4), location(37.702, -122.4), "ROBOT");
+            }));
+        }
+        start.countDown();
+        for (Future<RouteResult> result : results) {
+            RouteResult route = result.get(30, TimeUnit.SECONDS);
+            assertNotNull(route);
+            assertEquals(0.24, route.getDistance(), 1e-6);
+        }
+        pool.shutdown();
+
+        Queue<?> searches = (Queue<?>) ReflectionTestUtils.getField(engine, "searches");
+        assertTrue(searches.size() <= POOL, searches.size() + " workspaces allocated");
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(engine, "permits");
+        assertEquals(POOL, permits.availablePermits());
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+}
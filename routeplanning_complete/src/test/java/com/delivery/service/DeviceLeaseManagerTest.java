@@ -0,0 +1,245 @@
+package com.delivery.service;
+
+import com.delivery.repository.DeviceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 多个 DeviceLeaseManager 实例共用一个库，模拟多实例部署：内存软租约各管各的，最终靠 reserveIfAvailable 的条件更新互斥
+// 仓库方法直接执行 DeviceRepository 上 @Query 里的 SQL，测的是真实的预留 / 释放语句
+class DeviceLeaseManagerTest {
+
+    private static final int DEVICES = 32;
+    private static final int INSTANCES = 4;
+    private static final int THREADS = 16;
+
+    private EmbeddedDatabase db;
+    private NamedParameterJdbcTemplate jdbc;
+    private DeviceRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbc = new NamedParameterJdbcTemplate(db);
+        jdbc.getJdbcTemplate().execute("CREATE TABLE devices (device_id VARCHAR(64) PRIMARY KEY, "
+                + "status VARCHAR(16) NOT NULL, reserved_by VARCHAR(64), reserved_until TIMESTAMP, updated_at TIMESTAMP)");
+        for (int i = 0; i < DEVICES; i++) {
+            jdbc.getJdbcTemplate().update("INSERT INTO devices(device_id, status) VALUES (?, 'AVAILABLE')", deviceId(i));
+        }
+        repository = sqlBackedRepository(jdbc);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    void concurrentReservationsHaveExactlyOneWinnerPerDevice() throws Exception {
+        DeviceLeaseManager[] instances = newInstances();
+        Map<String, List<String>> winners = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            DeviceLeaseManager instance = instances[t % INSTANCES];
+            String holder = "order-" + t;
+            tasks.add(pool.submit(() -> {
+                List<String> order = new ArrayList<>();
+                for (int i = 0; i < DEVICES; i++) {
+                    order.add(deviceId(i));
+                }
+                Collections.shuffle(order);
+                start.await();
+                for (String deviceId : order) {
+                    if (instance.reserve(deviceId, holder)) {
+                        winners.computeIfAbsent(deviceId, k -> Collections.synchronizedList(new ArrayList<>())).add(holder);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (int i = 0; i < DEVICES; i++) {
+            String deviceId = deviceId(i);
+            List<String> holders = winners.get(deviceId);
+            assertNotNull(holders, deviceId + " was never reserved");
+            assertEquals(1, holders.size(), deviceId + " reserved by " + holders);
+            assertEquals(holders.get(0), reservedBy(deviceId));
+        }
+    }
+
+    @Test
+    void reserveAndReleaseChurnNeverDoubleAssigns() throws Exception {
+        DeviceLeaseManager[] instances = newInstances();
+        AtomicReferenceArray<String> owners = new AtomicReferenceArray<>(DEVICES);
+        AtomicLong claims = new AtomicLong();
+        AtomicLong doubles = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            DeviceLeaseManager instance = instances[t % INSTANCES];
+            String holder = "order-" + t;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int n = 0; n < 500; n++) {
+                    // 设备少、线程多，保证有竞争
+                    int d = ThreadLocalRandom.current().nextInt(4);
+                    if (!instance.reserve(deviceId(d), holder)) {
+                        continue;
+                    }
+                    claims.incrementAndGet();
+                    if (!owners.compareAndSet(d, null, holder)) {
+                        doubles.incrementAndGet();
+                        continue;
+                    }
+                    Thread.yield();
+                    owners.set(d, null);
+                    assertTrue(instance.release(deviceId(d), holder));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(claims.get() > 0);
+        assertEquals(0, doubles.get());
+    }
+
+    @Test
+    void releaseChecksHolderInDatabase() {
+        DeviceLeaseManager first = newInstances()[0];
+        DeviceLeaseManager other = newInstances()[0];
+        String deviceId = deviceId(0);
+
+        assertTrue(first.reserve(deviceId, "a"));
+        // 另一个实例内存里没有这条租约，只能按数据库里的持有方释放
+        assertFalse(other.release(deviceId, "b"));
+        assertEquals("a", reservedBy(deviceId));
+        assertFalse(other.reserve(deviceId, "b"));
+
+        assertTrue(other.release(deviceId, "a"));
+        assertNull(reservedBy(deviceId));
+        assertTrue(other.reserve(deviceId, "b"));
+        assertEquals("b", reservedBy(deviceId));
+    }
+
+    @Test
+    void sweepReturnsExpiredReservations() {
+        DeviceLeaseManager manager = newInstances()[0];
+        ReflectionTestUtils.setField(manager, "reservationTtlMs", -1000L);
+        assertTrue(manager.reserve(deviceId(0), "a"));
+
+        manager.sweep();
+
+        assertNull(reservedBy(deviceId(0)));
+        assertTrue(newInstances()[0].reserve(deviceId(0), "b"));
+    }
+
+    @Test
+    void renewalExtendsReservationInDatabase() {
+        DeviceLeaseManager manager = newInstances()[0];
+        DeviceLeaseManager other = newInstances()[0];
+        // 第一次预留在库里立刻到期，续期必须把 reserved_until 往后推，否则任何实例的 sweep 都会把设备放回
+        ReflectionTestUtils.setField(manager, "reservationTtlMs", -1000L);
+        assertTrue(manager.reserve(deviceId(0), "a"));
+        ReflectionTestUtils.setField(manager, "reservationTtlMs", 600000L);
+        assertTrue(manager.reserve(deviceId(0), "a"));
+
+        other.sweep();
+
+        assertEquals("a", reservedBy(deviceId(0)));
+        assertFalse(other.reserve(deviceId(0), "b"));
+    }
+
+    @Test
+    void renewalAfterLosingReservationFails() {
+        DeviceLeaseManager manager = newInstances()[0];
+        DeviceLeaseManager other = newInstances()[0];
+        ReflectionTestUtils.setField(manager, "reservationTtlMs", -1000L);
+        assertTrue(manager.reserve(deviceId(0), "a"));
+        // 过期后被别的实例放回并预留给 b
+        other.sweep();
+        assertTrue(other.reserve(deviceId(0), "b"));
+
+        ReflectionTestUtils.setField(manager, "reservationTtlMs", 600000L);
+        assertFalse(manager.reserve(deviceId(0), "a"));
+        assertFalse(manager.isLeasedByOther(deviceId(0), "b"));
+        assertEquals("b", reservedBy(deviceId(0)));
+    }
+
+    private DeviceLeaseManager[] newInstances() {
+        DeviceLeaseManager[] instances = new DeviceLeaseManager[INSTANCES];
+        for (int i = 0; i < INSTANCES; i++) {
+            instances[i] = new DeviceLeaseManager();
+            ReflectionTestUtils.setField(instances[i], "deviceRepository", repository);
+        }
+        return instances;
+    }
+
+    private String reservedBy(String deviceId) {
+        return jdbc.getJdbcTemplate().queryForObject(
+                "SELECT reserved_by FROM devices WHERE device_id = ?", String.class, deviceId);
+    }
+
+    private static String deviceId(int i) {
+        return "D" + i;
+    }
+
+    // 只实现带 @Query 的方法：按 @Param 名绑定参数执行注解里的 SQL
+    private static DeviceRepository sqlBackedRepository(NamedParameterJdbcTemplate jdbc) {
+        return (DeviceRepository) Proxy.newProxyInstance(DeviceRepository.class.getClassLoader(),
+                new Class<?>[]{DeviceRepository.class}, (proxy, method, args) -> {
+                    Query query = method.getAnnotation(Query.class);
+                    if (query == null) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return jdbc.update(query.value(), parameters(method, args));
+                });
+    }
+
+    private static MapSqlParameterSource parameters(Method method, Object[] args) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        Parameter[] declared = method.getParameters();
+        for (int i = 0; i < declared.length; i++) {
+            parameters.addValue(declared[i].getAnnotation(Param.class).value(), args[i]);
+        }
+        return parameters;
+    }
+}
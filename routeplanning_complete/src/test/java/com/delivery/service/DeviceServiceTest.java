@@ -0,0 +1,76 @@
+package com.delivery.service;
+
+import com.delivery.dto.DeviceTelemetry;
+import com.delivery.entity.Device;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 遥测接口是公开的：越界的坐标 / 电量不能进实时状态表，也不能移动空间索引
+class DeviceServiceTest {
+
+    private FleetStateStore store;
+    private DeviceSpatialIndex index;
+    private DeviceService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new FleetStateStore(16);
+        index = new DeviceSpatialIndex(1.0);
+        ReflectionTestUtils.setField(index, "fleetState", store);
+        Device device = PathRecommendationServiceTest.robot("R-1", 0);
+        index.upsert(device);
+
+        service = new DeviceService();
+        ReflectionTestUtils.setField(service, "deviceSpatialIndex", index);
+        ReflectionTestUtils.setField(service, "fleetStateStore", store);
+    }
+
+    @Test
+    void acceptsInRangeTelemetryAndMovesTheIndex() {
+        assertEquals(1, service.ingestTelemetry(List.of(telemetry("R-1", 40.0, -74.0, 80, 1))));
+
+        List<Device> found = index.findWithinRadius(40.0, -74.0, 1);
+        assertEquals(1, found.size());
+        assertEquals(80, found.get(0).getBattery());
+    }
+
+    @Test
+    void rejectsOutOfRangeTelemetry() {
+        List<DeviceTelemetry> bad = List.of(
+                telemetry("R-1", 1e300, -74.0, 80, 1),
+                telemetry("R-1", 91, -74.0, 80, 2),
+                telemetry("R-1", 40.0, -180.5, 80, 3),
+                telemetry("R-1", Double.NaN, -74.0, 80, 4),
+                telemetry("R-1", 40.0, Double.POSITIVE_INFINITY, 80, 5),
+                telemetry("R-1", 40.0, -74.0, 101, 6),
+                telemetry("R-1", 40.0, -74.0, -1, 7));
+
+        assertEquals(0, service.ingestTelemetry(bad));
+
+        // 没有分配状态槽位，索引里还是原来的位置
+        assertEquals(0, store.size());
+        Device device = index.findAll().get(0);
+        assertEquals(100, device.getBattery());
+        assertEquals(1, index.findWithinRadius(device.getLatitude(), device.getLongitude(), 0.1).size());
+    }
+
+    @Test
+    void boundaryValuesAreAccepted() {
+        assertEquals(1, service.ingestTelemetry(List.of(telemetry("R-1", -90, 180, 0, 1))));
+        assertEquals(1, service.ingestTelemetry(List.of(telemetry("R-1", 90, -180, 100, 2))));
+    }
+
+    private static DeviceTelemetry telemetry(String deviceId, double lat, double lng, int battery, long timestamp) {
+        DeviceTelemetry telemetry = new DeviceTelemetry();
+        telemetry.setDeviceId(deviceId);
+        telemetry.setLat(lat);
+        telemetry.setLng(lng);
+        telemetry.setBattery(battery);
+        telemetry.setTimestamp(timestamp);
+        return telemetry;
+    }
+}
@@ -0,0 +1,132 @@
+package com.delivery.service;
+
+import com.delivery.entity.Device;
+import com.delivery.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 索引对账：平时按 updated_at 增量拉变化的行，到间隔才全量对一次
+class DeviceSpatialIndexTest {
+
+    private final Map<String, Device> rows = new LinkedHashMap<>();
+    private int fullLoads;
+    private DeviceSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 8, 0);
+        for (int i = 0; i < 3; i++) {
+            rows.put("D" + i, row("D" + i, "AVAILABLE", 37.77 + i * 0.001, start));
+        }
+        index = new DeviceSpatialIndex();
+        ReflectionTestUtils.setField(index, "deviceRepository", repository());
+    }
+
+    @Test
+    void incrementalSyncAppliesChangedRowsWithoutFullLoad() {
+        index.sync();
+        assertEquals(1, fullLoads);
+        assertEquals(3, index.size());
+
+        LocalDateTime later = LocalDateTime.of(2026, 1, 1, 8, 1);
+        rows.put("D0", row("D0", "RESERVED", 37.77, later));
+        rows.put("D3", row("D3", "AVAILABLE", 37.78, later));
+        index.sync();
+
+        assertEquals(1, fullLoads);
+        assertFalse(index.contains("D0"));
+        assertTrue(index.contains("D3"));
+        assertEquals(3, index.size());
+
+        // 释放后重新变回 AVAILABLE
+        rows.put("D0", row("D0", "AVAILABLE", 37.77, LocalDateTime.of(2026, 1, 1, 8, 2)));
+        index.sync();
+        assertTrue(index.contains("D0"));
+        assertEquals(1, fullLoads);
+    }
+
+    @Test
+    void fullResyncCatchesWritersThatSkipUpdatedAt() {
+        rows.get("D1").setUpdatedAt(LocalDateTime.of(2026, 1, 1, 7, 0));
+        index.sync();
+        // 别的写方改了状态但没动 updated_at，增量对账看不到
+        rows.get("D1").setStatus("OFFLINE");
+        index.sync();
+        assertTrue(index.contains("D1"));
+
+        ReflectionTestUtils.setField(index, "fullSyncIntervalMs", 0L);
+        index.sync();
+        assertEquals(2, fullLoads);
+        assertFalse(index.contains("D1"));
+    }
+
+    @Test
+    void emptyUpdatedAtStartsCursorFromEpoch() {
+        rows.values().forEach(d -> d.setUpdatedAt(null));
+        index.sync();
+        assertTrue(index.isReady());
+        assertEquals(3, index.size());
+
+        rows.put("D4", row("D4", "AVAILABLE", 37.79, LocalDateTime.of(2026, 1, 1, 9, 0)));
+        index.sync();
+        assertTrue(index.contains("D4"));
+        assertEquals(1, fullLoads);
+    }
+
+    private DeviceRepository repository() {
+        return (DeviceRepository) Proxy.newProxyInstance(DeviceRepository.class.getClassLoader(),
+                new Class<?>[]{DeviceRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByStatus": {
+                            fullLoads++;
+                            List<Device> result = new ArrayList<>();
+                            for (Device d : rows.values()) {
+                                if (d.getStatus().equals(args[0])) {
+                                    result.add(copy(d));
+                                }
+                            }
+                            return result;
+                        }
+                        case "findByUpdatedAtAfter": {
+                            List<Device> result = new ArrayList<>();
+                            for (Device d : rows.values()) {
+                                if (d.getUpdatedAt() != null && d.getUpdatedAt().isAfter((LocalDateTime) args[0])) {
+                                    result.add(copy(d));
+                                }
+                            }
+                            return result;
+                        }
+                        case "findMaxUpdatedAt":
+                            return rows.values().stream().map(Device::getUpdatedAt)
+                                    .filter(t -> t != null).max(LocalDateTime::compareTo).orElse(null);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static Device row(String id, String status, double lat, LocalDateTime updatedAt) {
+        Device device = new Device();
+        device.setDeviceId(id);
+        device.setStatus(status);
+        device.setLatitude(lat);
+        device.setLongitude(-122.42);
+        device.setBattery(80);
+        device.setUpdatedAt(updatedAt);
+        return device;
+    }
+
+    private static Device copy(Device d) {
+        return row(d.getDeviceId(), d.getStatus(), d.getLatitude(), d.getUpdatedAt());
+    }
+}
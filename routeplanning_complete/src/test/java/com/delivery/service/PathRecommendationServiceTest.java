@@ -0,0 +1,216 @@
+package com.delivery.service;
+
+import com.delivery.dto.*;
+import com.delivery.entity.Device;
+import com.delivery.routing.RouteEngine;
+import com.delivery.routing.RouteResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 批量推荐的两种模式都要跳过被其他订单占着软租约的设备：设备快照只反映数据库状态，软租约只在内存里
+// 没有候选设备（查询超时 / 出错、全被占着）时返回空推荐，不能抛异常
+class PathRecommendationServiceTest {
+
+    private static final double LAT = 37.7749;
+    private static final double LNG = -122.4194;
+
+    private final List<Device> fleet = new ArrayList<>();
+    private ExecutorService executor;
+    private DeviceLeaseManager leases;
+    private PathRecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        leases = new DeviceLeaseManager();
+        service = new PathRecommendationService();
+        ReflectionTestUtils.setField(service, "deviceService", fleetService(fleet));
+        ReflectionTestUtils.setField(service, "routeEngine",
+                (RouteEngine) (origin, destination, deviceType) -> null);
+        ReflectionTestUtils.setField(service, "routeCache", new RouteCache() {
+            @Override
+            public RouteResult get(Location origin, Location destination, String deviceType) {
+                return null;
+            }
+
+            @Override
+            public void put(Location origin, Location destination, String deviceType, RouteResult route) {
+            }
+        });
+        ReflectionTestUtils.setField(service, "routeExecutor", executor);
+        ReflectionTestUtils.setField(service, "deviceLeaseManager", leases);
+        ReflectionTestUtils.setField(service, "deviceTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(service, "routeTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(service, "batchMaxConcurrency", 4);
+        ReflectionTestUtils.setField(service, "assignTimeWeight", 0.1);
+        ReflectionTestUtils.setField(service, "assignMaxCandidates", 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void perOrderBatchSkipsDevicesLeasedByOtherOrders() {
+        fleet.add(robot("R-held", 0));
+        fleet.add(robot("R-free", 0.001));
+        assertNotNull(leases.tryLease("R-held", "other"));
+
+        BatchPathRecommendationResponse response = service.recommendBatchPaths(batch(false, order("o1")));
+
+        assertEquals("OK", response.getTimings().get(0).getStatus());
+        assertEquals(Set.of("R-free"), deviceIds(response.getResults().get(0)));
+    }
+
+    @Test
+    void perOrderBatchKeepsDevicesTheOrderHoldsItself() {
+        fleet.add(robot("R-mine", 0));
+        fleet.add(robot("R-free", 0.001));
+        assertNotNull(leases.tryLease("R-mine", "o1"));
+
+        BatchPathRecommendationResponse response = service.recommendBatchPaths(batch(false, order("o1")));
+
+        assertTrue(deviceIds(response.getResults().get(0)).contains("R-mine"));
+    }
+
+    @Test
+    void globalAssignmentSkipsDevicesLeasedByOtherOrders() {
+        fleet.add(robot("R-held", 0));
+        fleet.add(robot("R-free", 0.01));
+        assertNotNull(leases.tryLease("R-held", "other"));
+
+        BatchPathRecommendationResponse response = service.recommendBatchPaths(batch(true, order("o1"), order("o2")));
+
+        List<String> assigned = new ArrayList<>();
+        for (PathRecommendationResponse result : response.getResults()) {
+            assigned.addAll(deviceIds(result));
+        }
+        assertEquals(List.of("R-free"), assigned);
+    }
+
+    @Test
+    void noNearbyDevicesGivesEmptyRecommendations() {
+        PathRecommendationResponse response = service.recommendPath(request("o1"));
+
+        assertEquals("o1", response.getOrderId());
+        assertTrue(response.getRecommendations().isEmpty());
+    }
+
+    @Test
+    void deviceLookupFailureGivesEmptyRecommendations() {
+        ReflectionTestUtils.setField(service, "deviceService", new DeviceService() {
+            @Override
+            public List<Device> findAvailableDevices(double lat, double lng, double radius) {
+                throw new IllegalStateException("database down");
+            }
+        });
+
+        assertTrue(service.recommendPath(request("o1")).getRecommendations().isEmpty());
+    }
+
+    @Test
+    void allDevicesLeasedElsewhereGivesEmptyRecommendations() {
+        fleet.add(robot("R-held", 0));
+        assertNotNull(leases.tryLease("R-held", "other"));
+
+        assertTrue(service.recommendPath(request("o1")).getRecommendations().isEmpty());
+        PathRecommendationRequest held = request("o1");
+        held.setHoldDevices(true);
+        assertTrue(service.recommendPath(held).getRecommendations().isEmpty());
+    }
+
+    @Test
+    void batchOrderWithoutDevicesIsNotAFailure() {
+        BatchPathRecommendationResponse response = service.recommendBatchPaths(batch(false, order("o1")));
+
+        assertEquals("NO_DEVICES", response.getTimings().get(0).getStatus());
+        assertTrue(response.getResults().get(0).getRecommendations().isEmpty());
+    }
+
+    static DeviceService fleetService(List<Device> fleet) {
+        return new DeviceService() {
+            @Override
+            public DeviceSpatialIndex snapshotAround(List<Location> origins, double radius) {
+                DeviceSpatialIndex snapshot = new DeviceSpatialIndex(1.0);
+                for (Device device : fleet) {
+                    snapshot.upsert(device);
+                }
+                return snapshot;
+            }
+
+            @Override
+            public List<Device> findAvailableDevices(double lat, double lng, double radius) {
+                return new ArrayList<>(fleet);
+            }
+
+            @Override
+            public List<Device> findAvailableDevicesOfType(String type) {
+                return fleet.stream().filter(d -> type.equals(d.getType())).toList();
+            }
+        };
+    }
+
+    static Device robot(String deviceId, double offset) {
+        Device device = new Device();
+        device.setDeviceId(deviceId);
+        device.setType("ROBOT");
+        device.setStatus("AVAILABLE");
+        device.setLatitude(LAT + offset);
+        device.setLongitude(LNG);
+        device.setBattery(100);
+        device.setMaxWeight(10);
+        return device;
+    }
+
+    static OrderRequest order(String orderId) {
+        OrderRequest order = new OrderRequest();
+        order.setOrderId(orderId);
+        order.setOrigin(location(LAT, LNG));
+        order.setDestination(location(LAT + 0.01, LNG + 0.01));
+        order.setPackageWeight(1);
+        return order;
+    }
+
+    private static PathRecommendationRequest request(String orderId) {
+        OrderRequest order = order(orderId);
+        PathRecommendationRequest request = new PathRecommendationRequest();
+        request.setOrderId(orderId);
+        request.setOrigin(order.getOrigin());
+        request.setDestination(order.getDestination());
+        request.setPackageWeight(order.getPackageWeight());
+        return request;
+    }
+
+    static BatchPathRecommendationRequest batch(boolean globalAssignment, OrderRequest... orders) {
+        BatchPathRecommendationRequest request = new BatchPathRecommendationRequest();
+        request.setOrders(List.of(orders));
+        request.setGlobalAssignment(globalAssignment);
+        return request;
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+
+    private static Set<String> deviceIds(PathRecommendationResponse response) {
+        Set<String> ids = new HashSet<>();
+        for (Recommendation rec : response.getRecommendations()) {
+            ids.add(rec.getDeviceId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,88 @@
+package com.delivery.service;
+
+import com.delivery.dto.RobotRoutePlan;
+import com.delivery.dto.RobotWavePlanResponse;
+import com.delivery.entity.Device;
+import com.delivery.entity.Station;
+import com.delivery.repository.StationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.delivery.service.PathRecommendationServiceTest.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// 一波规划里，被这一波以外的订单占着软租约的机器人不能再分出去
+class RobotRoutingServiceTest {
+
+    private final List<Device> fleet = new ArrayList<>();
+    private ExecutorService executor;
+    private DeviceLeaseManager leases;
+    private RobotRoutingService service;
+
+    @BeforeEach
+    void setUp() {
+        Station station = new Station();
+        station.setStationId("S1");
+        station.setLatitude(37.7749);
+        station.setLongitude(-122.4194);
+        StationRepository stations = (StationRepository) Proxy.newProxyInstance(StationRepository.class.getClassLoader(),
+                new Class<?>[]{StationRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                        return List.of(station);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        executor = Executors.newCachedThreadPool();
+        leases = new DeviceLeaseManager();
+        service = new RobotRoutingService();
+        ReflectionTestUtils.setField(service, "stationRepository", stations);
+        ReflectionTestUtils.setField(service, "deviceService", fleetService(fleet));
+        ReflectionTestUtils.setField(service, "routeExecutor", executor);
+        ReflectionTestUtils.setField(service, "deviceLeaseManager", leases);
+        ReflectionTestUtils.setField(service, "timeBudgetMs", 20L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void skipsRobotsLeasedOutsideTheWave() {
+        fleet.add(stationed(robot("R-held", 0)));
+        fleet.add(stationed(robot("R-mine", 0.001)));
+        assertNotNull(leases.tryLease("R-held", "other"));
+        assertNotNull(leases.tryLease("R-mine", "o1"));
+
+        RobotWavePlanResponse response = service.planWave(batch(false, order("o1"), order("o2")));
+
+        for (RobotRoutePlan route : response.getRoutes()) {
+            assertEquals("R-mine", route.getDeviceId());
+        }
+        assertFalse(response.getRoutes().isEmpty());
+    }
+
+    @Test
+    void leavesOrdersUnassignedWhenEveryRobotIsLeasedElsewhere() {
+        fleet.add(stationed(robot("R-held", 0)));
+        assertNotNull(leases.tryLease("R-held", "other"));
+
+        RobotWavePlanResponse response = service.planWave(batch(false, order("o1")));
+
+        assertTrue(response.getRoutes().isEmpty());
+        assertEquals(List.of("o1"), response.getUnassignedOrderIds());
+    }
+
+    private static Device stationed(Device robot) {
+        robot.setStationId("S1");
+        return robot;
+    }
+}